@@ -28,8 +28,10 @@ public class CorsConfig {
             "Authorization",
             "X-Requested-With",
             "Access-Control-Request-Method",
-            "Access-Control-Request-Headers"
+            "Access-Control-Request-Headers",
+            "X-Guest-Cart"
         ));
+        config.setExposedHeaders(Collections.singletonList("X-Guest-Cart"));
         
         // Allow all methods
         config.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS", "PATCH"));
@@ -0,0 +1,25 @@
+package com.example.back_end.constant;
+
+public enum DiscountType {
+    PERCENTAGE("Giảm theo phần trăm"),
+    FIXED_AMOUNT("Giảm số tiền cố định");
+
+    private final String displayName;
+
+    DiscountType(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    public static DiscountType fromString(String type) {
+        for (DiscountType discountType : DiscountType.values()) {
+            if (discountType.name().equalsIgnoreCase(type)) {
+                return discountType;
+            }
+        }
+        throw new IllegalArgumentException("Invalid discount type: " + type);
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.back_end.constant;
+
+// Phạm vi áp dụng của khuyến mãi: cả đơn hàng, một danh mục, một thương hiệu hoặc một sản phẩm
+public enum PromotionScope {
+    ORDER("Toàn bộ đơn hàng"),
+    CATEGORY("Theo danh mục"),
+    BRAND("Theo thương hiệu"),
+    PRODUCT("Theo sản phẩm");
+
+    private final String displayName;
+
+    PromotionScope(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    public static PromotionScope fromString(String scope) {
+        for (PromotionScope promotionScope : PromotionScope.values()) {
+            if (promotionScope.name().equalsIgnoreCase(scope)) {
+                return promotionScope;
+            }
+        }
+        throw new IllegalArgumentException("Invalid promotion scope: " + scope);
+    }
+}
@@ -6,6 +6,8 @@ public class SecurityConstant {
             "/api/products/**",
             "/api/categories/**",
             "/api/brands/**",
+            // Giỏ hàng của khách chưa đăng nhập (nằm trong token có chữ ký phía client)
+            "/api/cart/guest/**",
             "/error"
     };
     
@@ -0,0 +1,54 @@
+package com.example.back_end.controller;
+
+import com.example.back_end.dto.response.ApiResponse;
+import com.example.back_end.service.flashsale.FlashSaleService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/flash-sales")
+@RequiredArgsConstructor
+public class AdminFlashSaleController {
+    private final FlashSaleService flashSaleService;
+
+    // Các sản phẩm đang flash sale kèm số hàng còn lại trong bộ đếm và thống kê luồng ghi
+    @GetMapping
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getFlashSales() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("products", flashSaleService.getSales());
+        result.put("stats", flashSaleService.getStats());
+
+        return ResponseEntity.ok(ApiResponse.<Map<String, Object>>builder()
+                .code(200)
+                .message("Flash sales retrieved successfully")
+                .result(result)
+                .build());
+    }
+
+    @PutMapping("/{productId}")
+    public ResponseEntity<ApiResponse<Void>> enableFlashSale(@PathVariable Long productId) {
+        flashSaleService.enable(productId);
+        return ResponseEntity.ok(ApiResponse.<Void>builder()
+                .code(200)
+                .message("Flash sale enabled")
+                .build());
+    }
+
+    @DeleteMapping("/{productId}")
+    public ResponseEntity<ApiResponse<Void>> disableFlashSale(@PathVariable Long productId) {
+        flashSaleService.disable(productId);
+        return ResponseEntity.ok(ApiResponse.<Void>builder()
+                .code(200)
+                .message("Flash sale disabled")
+                .build());
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.back_end.controller;
+
+import com.example.back_end.dto.response.ApiResponse;
+import com.example.back_end.service.cache.ProductDetailCache;
+import com.example.back_end.service.cart.CartStore;
+import com.example.back_end.service.search.ProductSearchIndex;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/metrics")
+@RequiredArgsConstructor
+public class AdminMetricsController {
+    private final ProductDetailCache productDetailCache;
+    private final ProductSearchIndex productSearchIndex;
+    private final CartStore cartStore;
+
+    // Thống kê các cache trong bộ nhớ (hit / miss / eviction) để điều chỉnh kích thước
+    @GetMapping("/caches")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getCacheStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("productDetail", productDetailCache.getStats());
+        stats.put("cartStore", cartStore.getStats());
+
+        return ResponseEntity.ok(ApiResponse.<Map<String, Object>>builder()
+                .code(200)
+                .message("Cache statistics retrieved successfully")
+                .result(stats)
+                .build());
+    }
+
+    // Chỉ mục tìm kiếm: độ trễ của lượt tìm kiếm mờ được đo riêng để giữ trong ngân sách
+    @GetMapping("/search")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getSearchStats() {
+        return ResponseEntity.ok(ApiResponse.<Map<String, Object>>builder()
+                .code(200)
+                .message("Search statistics retrieved successfully")
+                .result(productSearchIndex.getStats())
+                .build());
+    }
+}
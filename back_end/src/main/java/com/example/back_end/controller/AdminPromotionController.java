@@ -0,0 +1,69 @@
+package com.example.back_end.controller;
+
+import com.example.back_end.dto.request.PromotionRequest;
+import com.example.back_end.dto.response.ApiResponse;
+import com.example.back_end.entity.Promotion;
+import com.example.back_end.service.promotion.PromotionService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/promotions")
+@RequiredArgsConstructor
+public class AdminPromotionController {
+    private final PromotionService promotionService;
+
+    // Tất cả khuyến mãi kèm thống kê của bảng đã biên dịch và lượt dùng mã giảm giá
+    @GetMapping
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getPromotions() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("promotions", promotionService.getPromotions());
+        result.put("stats", promotionService.getStats());
+
+        return ResponseEntity.ok(ApiResponse.<Map<String, Object>>builder()
+                .code(200)
+                .message("Promotions retrieved successfully")
+                .result(result)
+                .build());
+    }
+
+    @PostMapping
+    public ResponseEntity<ApiResponse<Promotion>> createPromotion(@Valid @RequestBody PromotionRequest request) {
+        return ResponseEntity.ok(ApiResponse.<Promotion>builder()
+                .code(200)
+                .message("Promotion created")
+                .result(promotionService.createPromotion(request))
+                .build());
+    }
+
+    @PutMapping("/{id}")
+    public ResponseEntity<ApiResponse<Promotion>> updatePromotion(@PathVariable Long id,
+                                                                  @Valid @RequestBody PromotionRequest request) {
+        return ResponseEntity.ok(ApiResponse.<Promotion>builder()
+                .code(200)
+                .message("Promotion updated")
+                .result(promotionService.updatePromotion(id, request))
+                .build());
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<ApiResponse<Void>> deactivatePromotion(@PathVariable Long id) {
+        promotionService.deactivatePromotion(id);
+        return ResponseEntity.ok(ApiResponse.<Void>builder()
+                .code(200)
+                .message("Promotion deactivated")
+                .build());
+    }
+}
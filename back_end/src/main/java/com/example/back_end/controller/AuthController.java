@@ -13,6 +13,7 @@ import com.example.back_end.dto.response.ForgotPasswordResponse;
 import com.example.back_end.dto.response.IntrospectResponse;
 import com.example.back_end.dto.response.ResetPasswordResponse;
 import com.example.back_end.dto.response.VerifyOtpResponse;
+import com.example.back_end.service.GuestCartService;
 import com.example.back_end.service.TokenStorageService;
 import com.example.back_end.service.UserService;
 import com.example.back_end.service.EmailVerificationService;
@@ -39,6 +40,7 @@ public class AuthController {
     private final UserService userService;
     private final TokenStorageService tokenStorageService;
     private final EmailVerificationService emailVerificationService;
+    private final GuestCartService guestCartService;
     private static final Logger log = LoggerFactory.getLogger(AuthController.class);
     
     @PostMapping("/register")
@@ -79,6 +81,17 @@ public class AuthController {
             
             // Lưu token mới vào storage
             tokenStorageService.storeToken(credentials.get("username"), response.getToken());
+
+            // Gộp giỏ hàng lúc chưa đăng nhập (nếu có); lỗi gộp không làm hỏng đăng nhập
+            String guestCart = credentials.get("guestCart");
+            if (guestCart != null && !guestCart.isBlank()) {
+                try {
+                    User user = userService.findByUsername(credentials.get("username"));
+                    guestCartService.mergeIntoUserCart(user.getId(), guestCart);
+                } catch (Exception e) {
+                    log.warn("Could not merge guest cart for username {}: {}", credentials.get("username"), e.getMessage());
+                }
+            }
             
             log.info("Login successful for username: {}", credentials.get("username"));
             return ResponseEntity.ok(ApiResponse.<AuthenticationResponse>builder()
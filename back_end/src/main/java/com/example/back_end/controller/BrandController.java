@@ -0,0 +1,27 @@
+package com.example.back_end.controller;
+
+import com.example.back_end.service.ProductService;
+import com.example.back_end.service.facet.ProductFacetIndex;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/brands")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class BrandController {
+    private final ProductService productService;
+
+    // Danh sách thương hiệu kèm số sản phẩm, có thể giới hạn trong một danh mục
+    @GetMapping
+    public ResponseEntity<Map<String, Integer>> getBrands(@RequestParam(required = false) String category) {
+        Map<String, List<String>> filters = category == null
+                ? Map.of()
+                : Map.of(ProductFacetIndex.CATEGORY, List.of(category));
+        return ResponseEntity.ok(productService.getFacetValues(ProductFacetIndex.BRAND, filters));
+    }
+}
@@ -1,16 +1,22 @@
 package com.example.back_end.controller;
 
 import com.example.back_end.dto.CartDTO;
+import com.example.back_end.dto.CartPricingDTO;
+import com.example.back_end.dto.request.BulkCartRequest;
 import com.example.back_end.dto.response.ApiResponse;
-import com.example.back_end.entity.Cart;
+import com.example.back_end.dto.response.BulkCartResponse;
 import com.example.back_end.mapper.CartMapper;
 import com.example.back_end.service.CartService;
+import com.example.back_end.service.GuestCartService;
 import com.example.back_end.service.UserService;
+import com.example.back_end.service.cart.CartStore;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.Map;
 
@@ -22,12 +28,17 @@ public class CartController {
     private final CartService cartService;
     private final UserService userService;
     private final CartMapper cartMapper;
+    private final GuestCartService guestCartService;
 
+    // Client gửi lại ETag trong If-None-Match: giỏ không đổi thì trả 304 mà không nạp sản phẩm
     @GetMapping
-    public ResponseEntity<ApiResponse<CartDTO>> getCart(@AuthenticationPrincipal User userPrincipal) {
+    public ResponseEntity<ApiResponse<CartDTO>> getCart(@AuthenticationPrincipal User userPrincipal, WebRequest request) {
         com.example.back_end.entity.User user = userService.findByUsername(userPrincipal.getUsername());
-        Cart cart = cartService.getCartByUserId(user.getId());
-        CartDTO cartDTO = cartMapper.toCartDTO(cart);
+        CartStore.CartView cart = cartService.getCartView(user.getId());
+        if (request.checkNotModified(cartService.eTag(cart))) {
+            return null;
+        }
+        CartDTO cartDTO = cartMapper.toCartDTO(cartService.toCart(user.getId(), cart));
         return ResponseEntity.ok(ApiResponse.<CartDTO>builder()
                 .code(200)
                 .message("Cart retrieved successfully")
@@ -35,12 +46,26 @@ public class CartController {
                 .build());
     }
 
+    // Giá giỏ hàng sau khuyến mãi; couponCode không hợp lệ / không áp dụng được trả về lỗi tương ứng
+    @GetMapping("/pricing")
+    public ResponseEntity<ApiResponse<CartPricingDTO>> getPricing(
+            @AuthenticationPrincipal User userPrincipal,
+            @RequestParam(required = false) String couponCode) {
+        com.example.back_end.entity.User user = userService.findByUsername(userPrincipal.getUsername());
+        return ResponseEntity.ok(ApiResponse.<CartPricingDTO>builder()
+                .code(200)
+                .message("Cart pricing calculated")
+                .result(cartService.getPricing(user.getId(), couponCode))
+                .build());
+    }
+
     @PostMapping("/add")
-    public ResponseEntity<ApiResponse<CartDTO>> addToCart(
+    public ResponseEntity<ApiResponse<Object>> addToCart(
             @AuthenticationPrincipal User userPrincipal,
+            @RequestHeader(value = "Prefer", required = false) String prefer,
             @RequestBody Map<String, Object> requestBody) {
         if (!requestBody.containsKey("productId") || !requestBody.containsKey("quantity")) {
-            return ResponseEntity.badRequest().body(ApiResponse.<CartDTO>builder()
+            return ResponseEntity.badRequest().body(ApiResponse.<Object>builder()
                     .code(400)
                     .message("Product ID and quantity are required")
                     .result(null)
@@ -52,28 +77,24 @@ public class CartController {
         Integer quantity = Integer.valueOf(requestBody.get("quantity").toString());
         
         if (quantity <= 0) {
-            return ResponseEntity.badRequest().body(ApiResponse.<CartDTO>builder()
+            return ResponseEntity.badRequest().body(ApiResponse.<Object>builder()
                     .code(400)
                     .message("Quantity must be greater than 0")
                     .result(null)
                     .build());
         }
 
-        Cart cart = cartService.addToCart(user.getId(), productId, quantity);
-        CartDTO cartDTO = cartMapper.toCartDTO(cart);
-        return ResponseEntity.ok(ApiResponse.<CartDTO>builder()
-                .code(200)
-                .message("Product added to cart")
-                .result(cartDTO)
-                .build());
+        CartService.CartChange change = cartService.addToCart(user.getId(), productId, quantity);
+        return respond(user.getId(), change, prefer, "Product added to cart");
     }
 
     @PutMapping("/update")
-    public ResponseEntity<ApiResponse<CartDTO>> updateCartItem(
+    public ResponseEntity<ApiResponse<Object>> updateCartItem(
             @AuthenticationPrincipal User userPrincipal,
+            @RequestHeader(value = "Prefer", required = false) String prefer,
             @RequestBody Map<String, Object> requestBody) {
         if (!requestBody.containsKey("cartItemId") || !requestBody.containsKey("quantity")) {
-            return ResponseEntity.badRequest().body(ApiResponse.<CartDTO>builder()
+            return ResponseEntity.badRequest().body(ApiResponse.<Object>builder()
                     .code(400)
                     .message("Cart item ID and quantity are required")
                     .result(null)
@@ -85,36 +106,61 @@ public class CartController {
         Integer quantity = Integer.valueOf(requestBody.get("quantity").toString());
 
         if (quantity <= 0) {
-            return ResponseEntity.badRequest().body(ApiResponse.<CartDTO>builder()
+            return ResponseEntity.badRequest().body(ApiResponse.<Object>builder()
                     .code(400)
                     .message("Quantity must be greater than 0")
                     .result(null)
                     .build());
         }
 
-        Cart cart = cartService.updateCartItemQuantityById(user.getId(), cartItemId, quantity);
-        CartDTO cartDTO = cartMapper.toCartDTO(cart);
-        return ResponseEntity.ok(ApiResponse.<CartDTO>builder()
-                .code(200)
-                .message("Cart item updated")
-                .result(cartDTO)
-                .build());
+        CartService.CartChange change = cartService.updateCartItemQuantityById(user.getId(), cartItemId, quantity);
+        return respond(user.getId(), change, prefer, "Cart item updated");
     }
 
     @DeleteMapping("/remove/{productId}")
-    public ResponseEntity<ApiResponse<CartDTO>> removeFromCart(
+    public ResponseEntity<ApiResponse<Object>> removeFromCart(
             @AuthenticationPrincipal User userPrincipal,
+            @RequestHeader(value = "Prefer", required = false) String prefer,
             @PathVariable Long productId) {
         com.example.back_end.entity.User user = userService.findByUsername(userPrincipal.getUsername());
-        Cart cart = cartService.removeFromCart(user.getId(), productId);
-        CartDTO cartDTO = cartMapper.toCartDTO(cart);
-        return ResponseEntity.ok(ApiResponse.<CartDTO>builder()
-                .code(200)
-                .message("Product removed from cart")
-                .result(cartDTO)
+        CartService.CartChange change = cartService.removeFromCart(user.getId(), productId);
+        return respond(user.getId(), change, prefer, "Product removed from cart");
+    }
+
+    // Nhiều thao tác add / update / remove trong một request, kết quả trả về theo từng dòng
+    @PostMapping("/bulk")
+    public ResponseEntity<ApiResponse<BulkCartResponse>> bulkUpdate(
+            @AuthenticationPrincipal User userPrincipal,
+            @Valid @RequestBody BulkCartRequest request) {
+        com.example.back_end.entity.User user = userService.findByUsername(userPrincipal.getUsername());
+        BulkCartResponse result = cartService.applyBulk(user.getId(), request);
+        boolean allSucceeded = result.getResults().stream().allMatch(BulkCartResponse.LineResult::isSuccess);
+
+        ResponseEntity.BodyBuilder response = result.isApplied() ? ResponseEntity.ok() : ResponseEntity.badRequest();
+        return response.body(ApiResponse.<BulkCartResponse>builder()
+                .code(result.isApplied() ? 200 : 400)
+                .message(!result.isApplied() ? "No operations were applied"
+                        : allSucceeded ? "Cart updated" : "Some operations failed")
+                .result(result)
                 .build());
     }
 
+    // Gộp giỏ của khách (token X-Guest-Cart) vào giỏ của người dùng; gửi lại cùng token không làm tăng số lượng
+    @PostMapping("/merge")
+    public ResponseEntity<ApiResponse<CartDTO>> mergeGuestCart(
+            @AuthenticationPrincipal User userPrincipal,
+            @RequestHeader(GuestCartController.GUEST_CART_HEADER) String guestCart) {
+        com.example.back_end.entity.User user = userService.findByUsername(userPrincipal.getUsername());
+        CartStore.CartView cart = guestCartService.mergeIntoUserCart(user.getId(), guestCart);
+        return ResponseEntity.ok()
+                .eTag(cartService.eTag(cart))
+                .body(ApiResponse.<CartDTO>builder()
+                        .code(200)
+                        .message("Guest cart merged")
+                        .result(cartMapper.toCartDTO(cartService.toCart(user.getId(), cart)))
+                        .build());
+    }
+
     @DeleteMapping("/clear")
     public ResponseEntity<ApiResponse<Void>> clearCart(@AuthenticationPrincipal User userPrincipal) {
         com.example.back_end.entity.User user = userService.findByUsername(userPrincipal.getUsername());
@@ -125,4 +171,25 @@ public class CartController {
                 .result(null)
                 .build());
     }
-} 
\ No newline at end of file
+
+    /**
+     * Mặc định trả về toàn bộ giỏ; client gửi "Prefer: return=minimal" nhận phản hồi rút gọn (CartDeltaDTO).
+     * Cả hai đều kèm ETag của phiên bản giỏ mới, dùng cho If-None-Match ở GET /api/cart.
+     */
+    private ResponseEntity<ApiResponse<Object>> respond(Integer userId, CartService.CartChange change,
+                                                        String prefer, String message) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(cartService.eTag(change.cart()));
+        Object result;
+        if (prefer != null && prefer.toLowerCase().contains("return=minimal")) {
+            response.header("Preference-Applied", "return=minimal");
+            result = cartService.toDelta(change);
+        } else {
+            result = cartMapper.toCartDTO(cartService.toCart(userId, change.cart()));
+        }
+        return response.body(ApiResponse.<Object>builder()
+                .code(200)
+                .message(message)
+                .result(result)
+                .build());
+    }
+}
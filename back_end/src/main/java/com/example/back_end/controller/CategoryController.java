@@ -1 +1,28 @@
- 
\ No newline at end of file
+package com.example.back_end.controller;
+
+import com.example.back_end.dto.CategoryDTO;
+import com.example.back_end.service.CategoryService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/categories")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class CategoryController {
+    private final CategoryService categoryService;
+
+    // Danh sách danh mục kèm số sản phẩm đang bán, đọc từ ảnh chụp trong bộ nhớ
+    @GetMapping
+    public ResponseEntity<List<CategoryDTO>> getCategories() {
+        return ResponseEntity.ok(categoryService.getCategories());
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<CategoryDTO> getCategoryById(@PathVariable Long id) {
+        return ResponseEntity.ok(categoryService.getCategoryById(id));
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.back_end.controller;
+
+import com.example.back_end.dto.response.ApiResponse;
+import com.example.back_end.dto.response.GuestCartResponse;
+import com.example.back_end.service.GuestCartService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+// Giỏ hàng cho khách chưa đăng nhập: token giỏ gửi lên ở header X-Guest-Cart, token mới trả về trong body và header
+@RestController
+@RequestMapping("/api/cart/guest")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "http://localhost:5173")
+public class GuestCartController {
+    public static final String GUEST_CART_HEADER = "X-Guest-Cart";
+
+    private final GuestCartService guestCartService;
+
+    @GetMapping
+    public ResponseEntity<ApiResponse<GuestCartResponse>> getCart(
+            @RequestHeader(value = GUEST_CART_HEADER, required = false) String token) {
+        return respond(guestCartService.getCart(token), "Cart retrieved successfully");
+    }
+
+    @PostMapping("/add")
+    public ResponseEntity<ApiResponse<GuestCartResponse>> addToCart(
+            @RequestHeader(value = GUEST_CART_HEADER, required = false) String token,
+            @RequestBody Map<String, Object> requestBody) {
+        if (!requestBody.containsKey("productId") || !requestBody.containsKey("quantity")) {
+            return ResponseEntity.badRequest().body(ApiResponse.<GuestCartResponse>builder()
+                    .code(400)
+                    .message("Product ID and quantity are required")
+                    .result(null)
+                    .build());
+        }
+
+        Long productId = Long.valueOf(requestBody.get("productId").toString());
+        Integer quantity = Integer.valueOf(requestBody.get("quantity").toString());
+        return respond(guestCartService.addToCart(token, productId, quantity), "Product added to cart");
+    }
+
+    @PutMapping("/update")
+    public ResponseEntity<ApiResponse<GuestCartResponse>> updateCartItem(
+            @RequestHeader(value = GUEST_CART_HEADER, required = false) String token,
+            @RequestBody Map<String, Object> requestBody) {
+        if (!requestBody.containsKey("productId") || !requestBody.containsKey("quantity")) {
+            return ResponseEntity.badRequest().body(ApiResponse.<GuestCartResponse>builder()
+                    .code(400)
+                    .message("Product ID and quantity are required")
+                    .result(null)
+                    .build());
+        }
+
+        Long productId = Long.valueOf(requestBody.get("productId").toString());
+        Integer quantity = Integer.valueOf(requestBody.get("quantity").toString());
+        return respond(guestCartService.updateCartItem(token, productId, quantity), "Cart item updated");
+    }
+
+    @DeleteMapping("/remove/{productId}")
+    public ResponseEntity<ApiResponse<GuestCartResponse>> removeFromCart(
+            @RequestHeader(value = GUEST_CART_HEADER, required = false) String token,
+            @PathVariable Long productId) {
+        return respond(guestCartService.removeFromCart(token, productId), "Product removed from cart");
+    }
+
+    private ResponseEntity<ApiResponse<GuestCartResponse>> respond(GuestCartResponse result, String message) {
+        return ResponseEntity.ok()
+                .header(GUEST_CART_HEADER, result.getToken())
+                .body(ApiResponse.<GuestCartResponse>builder()
+                        .code(200)
+                        .message(message)
+                        .result(result)
+                        .build());
+    }
+}
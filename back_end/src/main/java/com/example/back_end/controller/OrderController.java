@@ -5,12 +5,14 @@ import com.example.back_end.dto.OrderDTO;
 import com.example.back_end.dto.request.CreateDirectOrderRequest;
 import com.example.back_end.dto.request.CreateOrderRequest;
 import com.example.back_end.dto.response.ApiResponse;
+import com.example.back_end.dto.response.CursorPage;
 import com.example.back_end.dto.response.OrderStatusResponse;
 import com.example.back_end.entity.Order;
 import com.example.back_end.mapper.OrderMapper;
 import com.example.back_end.service.OrderService;
 import com.example.back_end.service.OrderStatusService;
 import com.example.back_end.service.UserService;
+import com.example.back_end.service.flashsale.FlashSaleService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -36,6 +38,7 @@ public class OrderController {
     private final OrderStatusService orderStatusService;
     private final OrderMapper orderMapper;
     private final UserService userService;
+    private final FlashSaleService flashSaleService;
 
     // Get current user's orders with pagination
     @GetMapping("/my-orders")
@@ -62,6 +65,26 @@ public class OrderController {
                 .build());
     }
 
+    // Get current user's orders with keyset (cursor) pagination
+    @GetMapping(value = "/my-orders", params = "cursor")
+    public ResponseEntity<ApiResponse<CursorPage<OrderDTO>>> getMyOrdersByCursor(
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "orderDate") String sortBy,
+            @RequestParam(defaultValue = "desc") String sortDir,
+            @RequestParam(defaultValue = "false") boolean withCount) {
+
+        String username = SecurityContextHolder.getContext().getAuthentication().getName();
+        CursorPage<Order> orders = orderService.getOrdersByUsername(
+                username, sortBy, sortDir.equalsIgnoreCase("desc"), cursor, size, withCount);
+
+        return ResponseEntity.ok(ApiResponse.<CursorPage<OrderDTO>>builder()
+                .code(200)
+                .message("Orders retrieved successfully")
+                .result(orders.map(orderMapper::toOrderDTO))
+                .build());
+    }
+
     // Get orders by user ID (admin only)
     @GetMapping("/user/{userId}")
     public ResponseEntity<ApiResponse<List<OrderDTO>>> getOrdersByUserId(@PathVariable Integer userId) {
@@ -144,7 +167,10 @@ public class OrderController {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         String username = auth.getName();
         
-        Order order = orderService.createDirectOrder(username, request);
+        // Sản phẩm flash sale được cấp hàng từ bộ đếm trong bộ nhớ, các sản phẩm khác đi luồng thường
+        Order order = flashSaleService.handles(request)
+                ? flashSaleService.createDirectOrder(username, request)
+                : orderService.createDirectOrder(username, request);
         OrderDTO orderDTO = orderMapper.toOrderDTO(order);
         
         return ResponseEntity.ok(ApiResponse.<OrderDTO>builder()
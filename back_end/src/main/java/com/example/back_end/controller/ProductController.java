@@ -2,7 +2,12 @@ package com.example.back_end.controller;
 
 import com.example.back_end.dto.ProductDTO;
 import com.example.back_end.dto.ProductDetailDTO;
+import com.example.back_end.dto.response.CursorPage;
+import com.example.back_end.dto.response.FacetedProductResponse;
 import com.example.back_end.service.ProductService;
+import com.example.back_end.service.cache.CatalogVersions;
+import com.example.back_end.service.facet.ProductFacetIndex;
+import com.example.back_end.service.search.SuggestionTrie;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -10,6 +15,11 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/products")
@@ -18,15 +28,22 @@ import org.springframework.web.bind.annotation.*;
 @Slf4j
 public class ProductController {
     private final ProductService productService;
+    private final CatalogVersions catalogVersions;
 
     @GetMapping
     public ResponseEntity<Page<ProductDTO>> getAllProducts(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "id") String sort,
-            @RequestParam(defaultValue = "asc") String direction) {
+            @RequestParam(defaultValue = "asc") String direction,
+            WebRequest request) {
         
         log.info("Getting all products with sort={}, direction={}", sort, direction);
+
+        String etag = catalogVersions.listETag(String.join("|", "all", String.valueOf(page), String.valueOf(size), sort, direction));
+        if (request.checkNotModified(etag, catalogVersions.listLastModified())) {
+            return null; // 304, không truy vấn DB
+        }
         
         Sort.Direction sortDirection = direction.equalsIgnoreCase("desc") ? 
                 Sort.Direction.DESC : Sort.Direction.ASC;
@@ -35,13 +52,32 @@ public class ProductController {
         return ResponseEntity.ok(productService.getAllProducts(pageRequest));
     }
 
+    // Phân trang keyset: client gửi cursor rỗng cho trang đầu, sau đó gửi lại nextCursor
+    @GetMapping(params = "cursor")
+    public ResponseEntity<CursorPage<ProductDTO>> getAllProductsByCursor(
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "id") String sort,
+            @RequestParam(defaultValue = "asc") String direction,
+            @RequestParam(defaultValue = "false") boolean withCount) {
+
+        return ResponseEntity.ok(productService.getProductsByCursor(
+                null, sort, direction.equalsIgnoreCase("desc"), cursor, size, withCount));
+    }
+
     @GetMapping("/{id}")
-    public ResponseEntity<ProductDTO> getProductById(@PathVariable Long id) {
+    public ResponseEntity<ProductDTO> getProductById(@PathVariable Long id, WebRequest request) {
+        if (request.checkNotModified(catalogVersions.productETag(id), catalogVersions.productLastModified(id))) {
+            return null;
+        }
         return ResponseEntity.ok(productService.getProductById(id));
     }
 
     @GetMapping("/{id}/detail")
-    public ResponseEntity<ProductDetailDTO> getProductDetailById(@PathVariable Long id) {
+    public ResponseEntity<ProductDetailDTO> getProductDetailById(@PathVariable Long id, WebRequest request) {
+        if (request.checkNotModified(catalogVersions.productETag(id), catalogVersions.productLastModified(id))) {
+            return null;
+        }
         return ResponseEntity.ok(productService.getProductDetailById(id));
     }
 
@@ -51,10 +87,16 @@ public class ProductController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "id") String sort,
-            @RequestParam(defaultValue = "asc") String direction) {
+            @RequestParam(defaultValue = "asc") String direction,
+            WebRequest request) {
         
         log.info("Getting products by category={} with sort={}, direction={}", 
                 categoryName, sort, direction);
+
+        String etag = catalogVersions.listETag(String.join("|", "category", categoryName, String.valueOf(page), String.valueOf(size), sort, direction));
+        if (request.checkNotModified(etag, catalogVersions.listLastModified())) {
+            return null;
+        }
         
         Sort.Direction sortDirection = direction.equalsIgnoreCase("desc") ? 
                 Sort.Direction.DESC : Sort.Direction.ASC;
@@ -63,12 +105,25 @@ public class ProductController {
         return ResponseEntity.ok(productService.getProductsByCategory(categoryName, pageRequest));
     }
 
+    @GetMapping(value = "/category/{categoryName}", params = "cursor")
+    public ResponseEntity<CursorPage<ProductDTO>> getProductsByCategoryCursor(
+            @PathVariable String categoryName,
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "id") String sort,
+            @RequestParam(defaultValue = "asc") String direction,
+            @RequestParam(defaultValue = "false") boolean withCount) {
+
+        return ResponseEntity.ok(productService.getProductsByCursor(
+                categoryName, sort, direction.equalsIgnoreCase("desc"), cursor, size, withCount));
+    }
+
     @GetMapping("/search")
     public ResponseEntity<Page<ProductDTO>> searchProducts(
             @RequestParam String keyword,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
-            @RequestParam(defaultValue = "id") String sort,
+            @RequestParam(defaultValue = ProductService.RELEVANCE_SORT) String sort,
             @RequestParam(defaultValue = "asc") String direction) {
         
         log.info("Searching products with keyword={}, sort={}, direction={}", 
@@ -80,4 +135,45 @@ public class ProductController {
         PageRequest pageRequest = PageRequest.of(page, size, Sort.by(sortDirection, sort));
         return ResponseEntity.ok(productService.searchProducts(keyword, pageRequest));
     }
-} 
\ No newline at end of file
+
+    // Gợi ý khi gõ: chỉ đọc cây tiền tố trong bộ nhớ, không truy vấn DB
+    @GetMapping("/suggest")
+    public ResponseEntity<List<SuggestionTrie.Suggestion>> suggest(
+            @RequestParam("q") String prefix,
+            @RequestParam(defaultValue = "8") int limit) {
+        return ResponseEntity.ok(productService.suggest(prefix, limit));
+    }
+
+    // Lọc kết hợp nhiều facet (OR trong cùng facet, AND giữa các facet) kèm số lượng theo từng giá trị
+    @GetMapping("/browse")
+    public ResponseEntity<FacetedProductResponse> browseProducts(
+            @RequestParam(required = false) List<String> category,
+            @RequestParam(required = false) List<String> brand,
+            @RequestParam(required = false) List<String> color,
+            @RequestParam(required = false) List<String> material,
+            @RequestParam(required = false) List<String> priceBand,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "id") String sort,
+            @RequestParam(defaultValue = "asc") String direction) {
+
+        Map<String, List<String>> filters = new LinkedHashMap<>();
+        putFilter(filters, ProductFacetIndex.CATEGORY, category);
+        putFilter(filters, ProductFacetIndex.BRAND, brand);
+        putFilter(filters, ProductFacetIndex.COLOR, color);
+        putFilter(filters, ProductFacetIndex.MATERIAL, material);
+        putFilter(filters, ProductFacetIndex.PRICE_BAND, priceBand);
+
+        Sort.Direction sortDirection = direction.equalsIgnoreCase("desc") ?
+                Sort.Direction.DESC : Sort.Direction.ASC;
+
+        PageRequest pageRequest = PageRequest.of(page, size, Sort.by(sortDirection, sort));
+        return ResponseEntity.ok(productService.browseProducts(filters, pageRequest));
+    }
+
+    private static void putFilter(Map<String, List<String>> filters, String facet, List<String> values) {
+        if (values != null && !values.isEmpty()) {
+            filters.put(facet, values);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.back_end.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Phản hồi rút gọn của một thao tác trên giỏ: chỉ dòng vừa thay đổi và tổng mới.
+ * item = null nghĩa là dòng của productId đã bị xóa khỏi giỏ.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartDeltaDTO {
+    private long version;
+    private Long productId;
+    private CartItemDTO item;
+    private BigDecimal totalPrice;
+    private int totalItems;
+}
@@ -0,0 +1,36 @@
+package com.example.back_end.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Giá của giỏ hàng sau khuyến mãi, tính ở server (cùng cách tính với lúc đặt hàng).
+ * totalAmount chưa gồm phí vận chuyển.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartPricingDTO {
+    private BigDecimal subtotal;
+    private BigDecimal discountAmount;
+    private BigDecimal totalAmount;
+    private String couponCode;
+    private List<AppliedPromotion> promotions;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class AppliedPromotion {
+        private Long promotionId;
+        private String name;
+        private String code;
+        private BigDecimal amount;
+    }
+}
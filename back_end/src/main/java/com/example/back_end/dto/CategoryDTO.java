@@ -0,0 +1,18 @@
+package com.example.back_end.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CategoryDTO {
+    private Long id;
+    private String name;
+    private String description;
+    // Số sản phẩm đang bán (active) trong danh mục
+    private Integer productCount;
+}
@@ -16,6 +16,10 @@ public class OrderDetailDTO {
     private Long productId;
     private String productName;
     private String productImage;
+    private String productBrand;
+    private String productModel;
+    private String productColor;
+    private String productMaterial;
     private BigDecimal price;
     private Integer quantity;
     private BigDecimal subtotal;
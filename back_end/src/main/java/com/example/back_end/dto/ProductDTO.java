@@ -15,7 +15,7 @@ import java.util.List;
 public class ProductDTO {
     private Long id;
     private String name;
-    private String description;
+    private String shortDescription;
     private BigDecimal price;
     private Integer stock;
     private String categoryName;
@@ -0,0 +1,22 @@
+package com.example.back_end.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Các thuộc tính của sản phẩm dùng để xây dựng chỉ mục facet trong bộ nhớ.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductFacetDocument {
+    private Long id;
+    private String brand;
+    private String color;
+    private String material;
+    private BigDecimal price;
+    private String categoryName;
+}
@@ -0,0 +1,24 @@
+package com.example.back_end.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Các trường văn bản của sản phẩm dùng để xây dựng chỉ mục tìm kiếm trong bộ nhớ,
+ * kèm giá để sắp xếp kết quả tìm kiếm ngay trong chỉ mục.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSearchDocument {
+    private Long id;
+    private String name;
+    private String brand;
+    private String model;
+    private String shortDescription;
+    private String categoryName;
+    private BigDecimal price;
+}
@@ -0,0 +1,24 @@
+package com.example.back_end.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Dòng sản phẩm cho các trang danh sách, được đọc trực tiếp bằng JPQL constructor expression
+ * (không khởi tạo entity Product, không chạm vào các quan hệ lazy).
+ * Không chứa các cột LONGTEXT (description, specifications, features): chúng chỉ được đọc ở trang chi tiết.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSummary {
+    private Long id;
+    private String name;
+    private String shortDescription;
+    private BigDecimal price;
+    private Integer stock;
+    private String categoryName;
+}
@@ -0,0 +1,39 @@
+package com.example.back_end.dto.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkCartRequest {
+    @NotEmpty(message = "Operations are required")
+    private List<@Valid CartOperation> operations;
+
+    // true: chỉ áp dụng khi mọi thao tác đều hợp lệ; false: áp dụng các thao tác hợp lệ, báo lỗi từng dòng còn lại
+    private boolean atomic;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class CartOperation {
+        // add: cộng thêm số lượng; update: đặt số lượng; remove: xóa dòng
+        @NotBlank(message = "Action is required")
+        private String action;
+
+        @NotNull(message = "Product ID is required")
+        private Long productId;
+
+        private Integer quantity;
+    }
+}
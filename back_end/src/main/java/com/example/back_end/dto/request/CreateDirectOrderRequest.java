@@ -1,5 +1,6 @@
 package com.example.back_end.dto.request;
 
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -16,6 +17,7 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 public class CreateDirectOrderRequest {
+    @Valid
     @NotNull(message = "Product items are required")
     private List<OrderItemRequest> items;
     
@@ -34,10 +36,20 @@ public class CreateDirectOrderRequest {
     
     private String paymentMethod;
     
+    // Tỉnh/thành phố giao hàng (tên đầy đủ); không có thì lấy từ cuối shippingAddress
+    private String province;
+    
+    // standard / express / economy; không có là standard
+    private String shippingMethod;
+    
+    // Không còn được dùng để tính tiền: phí vận chuyển được tính lại ở server (ShippingFees)
     private BigDecimal shippingFee;
     
+    // Không còn được dùng để tính tiền: mức giảm được tính lại ở server (PromotionService)
     private BigDecimal discountAmount;
     
+    private String couponCode;
+    
     private String notes;
     
     @Data
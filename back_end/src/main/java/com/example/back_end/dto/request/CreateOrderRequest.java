@@ -29,9 +29,19 @@ public class CreateOrderRequest {
     
     private String paymentMethod;
     
+    // Tỉnh/thành phố giao hàng (tên đầy đủ); không có thì lấy từ cuối shippingAddress
+    private String province;
+    
+    // standard / express / economy; không có là standard
+    private String shippingMethod;
+    
+    // Không còn được dùng để tính tiền: phí vận chuyển được tính lại ở server (ShippingFees)
     private BigDecimal shippingFee;
     
+    // Không còn được dùng để tính tiền: mức giảm được tính lại ở server (PromotionService)
     private BigDecimal discountAmount;
     
+    private String couponCode;
+    
     private String notes;
 }
\ No newline at end of file
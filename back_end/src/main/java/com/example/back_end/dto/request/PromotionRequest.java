@@ -0,0 +1,54 @@
+package com.example.back_end.dto.request;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PromotionRequest {
+    @NotBlank(message = "Promotion name is required")
+    private String name;
+
+    // Bỏ trống: khuyến mãi tự động; có giá trị: mã giảm giá khách phải nhập
+    private String code;
+
+    // ORDER, CATEGORY, BRAND hoặc PRODUCT
+    @NotBlank(message = "Scope is required")
+    private String scope;
+
+    private Long targetId;
+
+    private String targetBrand;
+
+    // PERCENTAGE hoặc FIXED_AMOUNT
+    @NotBlank(message = "Discount type is required")
+    private String discountType;
+
+    @NotNull(message = "Discount value is required")
+    @DecimalMin(value = "0.01", message = "Discount value must be greater than 0")
+    private BigDecimal discountValue;
+
+    private BigDecimal minSubtotal;
+
+    private BigDecimal maxDiscount;
+
+    @Min(value = 1, message = "Usage limit must be at least 1")
+    private Integer usageLimit;
+
+    private LocalDateTime startsAt;
+
+    private LocalDateTime endsAt;
+
+    private Boolean active;
+}
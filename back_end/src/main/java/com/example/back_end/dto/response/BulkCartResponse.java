@@ -0,0 +1,36 @@
+package com.example.back_end.dto.response;
+
+import com.example.back_end.dto.CartDTO;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkCartResponse {
+    // false khi yêu cầu atomic có thao tác lỗi: giỏ không thay đổi
+    private boolean applied;
+    private long version;
+    private List<LineResult> results;
+    private CartDTO cart;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class LineResult {
+        private int index;
+        private String action;
+        private Long productId;
+        private boolean success;
+        // Số lượng của sản phẩm trong giỏ sau thao tác (0 nếu đã xóa)
+        private Integer quantity;
+        private Integer errorCode;
+        private String message;
+    }
+}
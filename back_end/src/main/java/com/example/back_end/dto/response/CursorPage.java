@@ -0,0 +1,39 @@
+package com.example.back_end.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Một trang kết quả phân trang theo con trỏ (keyset).
+ * nextCursor là token mờ, gửi lại qua tham số "cursor" để lấy trang tiếp theo.
+ * totalElements chỉ có khi client yêu cầu withCount=true.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CursorPage<T> {
+    private List<T> content;
+    private int size;
+    private boolean hasNext;
+    private String nextCursor;
+    private Long totalElements;
+
+    public <R> CursorPage<R> map(Function<? super T, ? extends R> mapper) {
+        return CursorPage.<R>builder()
+                .content(content.stream().map(mapper).collect(Collectors.toList()))
+                .size(size)
+                .hasNext(hasNext)
+                .nextCursor(nextCursor)
+                .totalElements(totalElements)
+                .build();
+    }
+}
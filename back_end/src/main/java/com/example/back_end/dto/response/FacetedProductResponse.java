@@ -0,0 +1,20 @@
+package com.example.back_end.dto.response;
+
+import com.example.back_end.dto.ProductDTO;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Page;
+
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FacetedProductResponse {
+    private Page<ProductDTO> products;
+    // facet -> (giá trị -> số sản phẩm khớp), ví dụ {"brand": {"Apple": 12, "Samsung": 9}}
+    private Map<String, Map<String, Integer>> facets;
+}
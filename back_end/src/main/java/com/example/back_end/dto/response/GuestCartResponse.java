@@ -0,0 +1,17 @@
+package com.example.back_end.dto.response;
+
+import com.example.back_end.dto.CartDTO;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GuestCartResponse {
+    // Token mới của giỏ khách: client thay token cũ bằng token này và gửi lại ở header X-Guest-Cart
+    private String token;
+    private CartDTO cart;
+}
@@ -12,7 +12,9 @@ import lombok.*;
 @Table(name = "cart_items")
 public class CartItem {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "cart_items_id")
+    @TableGenerator(name = "cart_items_id", table = "id_generators", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "cart_items", allocationSize = 50)
     private Long id;
 
     @ManyToOne
@@ -2,6 +2,10 @@ package com.example.back_end.entity;
 
 import com.example.back_end.constant.OrderStatus;
 import com.example.back_end.constant.PaymentStatus;
+import com.example.back_end.service.id.OrderNumberGenerator;
+import com.example.back_end.service.promotion.CouponRedemptions;
+import com.example.back_end.service.stats.OrderStatisticsRollup;
+import com.example.back_end.service.transition.OrderTransitionScheduler;
 import jakarta.persistence.*;
 import lombok.*;
 import lombok.extern.slf4j.Slf4j;
@@ -11,7 +15,6 @@ import org.hibernate.annotations.UpdateTimestamp;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.UUID;
 
 @Getter
 @Setter
@@ -21,6 +24,9 @@ import java.util.UUID;
 @AllArgsConstructor
 @Slf4j
 @Table(name = "orders")
+// Mã đơn hàng được gán trước khi insert (OrderNumberGenerator); thống kê được cập nhật theo thay đổi trạng thái.
+// CouponRedemptions đứng trước OrderStatisticsRollup: nó cần persistedStatus trước khi được cập nhật
+@EntityListeners({OrderNumberGenerator.class, CouponRedemptions.class, OrderStatisticsRollup.class, OrderTransitionScheduler.class})
 public class Order {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -108,13 +114,9 @@ public class Order {
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<OrderDetail> orderDetails;
 
-    @PrePersist
-    private void generateOrderNumber() {
-        if (orderNumber == null) {
-            orderNumber = "ORD-" + System.currentTimeMillis() + "-" + 
-                         UUID.randomUUID().toString().substring(0, 8).toUpperCase();
-        }
-    }
+    // Trạng thái đã lưu trong DB (lúc load / lần ghi gần nhất), để biết đơn chuyển từ trạng thái nào
+    @Transient
+    private OrderStatus persistedStatus;
 
     // Helper methods
     public BigDecimal getSubtotal() {
@@ -13,18 +13,41 @@ import java.math.BigDecimal;
 @AllArgsConstructor
 @Table(name = "order_details")
 public class OrderDetail {
+    // Id cấp theo khối từ bảng id_generators (không dùng IDENTITY) để Hibernate gom INSERT thành batch JDBC
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "order_details_id")
+    @TableGenerator(name = "order_details_id", table = "id_generators", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "order_details", allocationSize = 50)
     private Long id;
 
     @ManyToOne
     @JoinColumn(name = "order_id", nullable = false)
     private Order order;
 
-    @ManyToOne
+    // Lịch sử đơn hàng hiển thị từ các cột chụp lại bên dưới, không cần nạp sản phẩm
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "product_id", nullable = false)
     private Product product;
 
+    // Thông tin sản phẩm tại thời điểm mua (không đổi khi sản phẩm được sửa sau này)
+    @Column(name = "product_name")
+    private String productName;
+
+    @Column(name = "product_brand")
+    private String productBrand;
+
+    @Column(name = "product_model")
+    private String productModel;
+
+    @Column(name = "product_color")
+    private String productColor;
+
+    @Column(name = "product_material")
+    private String productMaterial;
+
+    @Column(name = "product_image", length = 500)
+    private String productImage;
+
     @Column(nullable = false)
     private Integer quantity;
 
@@ -33,4 +56,25 @@ public class OrderDetail {
 
     @Column(nullable = false, precision = 15, scale = 2)
     private BigDecimal subtotal;
-} 
\ No newline at end of file
+
+    /**
+     * Chụp lại thông tin sản phẩm với URL ảnh chính đã nạp sẵn (dịch vụ đơn hàng nạp ảnh của cả đơn bằng một
+     * truy vấn), tránh nạp lười productImages cho từng dòng.
+     */
+    public void captureProductSnapshot(String primaryImageUrl) {
+        productName = product.getName();
+        productBrand = product.getBrand();
+        productModel = product.getModel();
+        productColor = product.getColor();
+        productMaterial = product.getMaterial();
+        productImage = primaryImageUrl;
+    }
+
+    // Dự phòng cho các đường tạo dòng đơn chưa chụp sẵn
+    @PrePersist
+    private void captureProductSnapshot() {
+        if (productName == null && product != null) {
+            captureProductSnapshot(product.getPrimaryImageUrl());
+        }
+    }
+}
@@ -72,6 +72,11 @@ public class Product {
     @Builder.Default
     private Boolean active = true;
 
+    // Sản phẩm đang flash sale: đặt mua trực tiếp đi qua bộ đếm trong bộ nhớ (FlashSaleService)
+    @Column(name = "flash_sale")
+    @Builder.Default
+    private Boolean flashSale = false;
+
     @CreationTimestamp
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
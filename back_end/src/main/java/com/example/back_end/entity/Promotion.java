@@ -0,0 +1,82 @@
+package com.example.back_end.entity;
+
+import com.example.back_end.constant.DiscountType;
+import com.example.back_end.constant.PromotionScope;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Khuyến mãi / mã giảm giá. Không có code: tự động áp dụng khi giỏ thỏa điều kiện; có code: chỉ áp dụng khi
+ * khách nhập mã. usageLimit (chỉ dùng cho mã giảm giá) là tổng số lượt dùng, đếm trong promotion_redemptions.
+ */
+@Getter
+@Setter
+@Entity
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "promotions")
+public class Promotion {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String name;
+
+    @Column(unique = true, length = 50)
+    private String code;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private PromotionScope scope;
+
+    // Id danh mục (CATEGORY) hoặc sản phẩm (PRODUCT)
+    @Column(name = "target_id")
+    private Long targetId;
+
+    // Thương hiệu (BRAND), so sánh không phân biệt hoa thường với products.brand
+    @Column(name = "target_brand")
+    private String targetBrand;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "discount_type", nullable = false, length = 20)
+    private DiscountType discountType;
+
+    @Column(name = "discount_value", nullable = false, precision = 15, scale = 2)
+    private BigDecimal discountValue;
+
+    // Ngưỡng tiền hàng (trong phạm vi khuyến mãi) để được giảm
+    @Column(name = "min_subtotal", precision = 15, scale = 2)
+    private BigDecimal minSubtotal;
+
+    // Mức giảm tối đa (cho khuyến mãi theo phần trăm)
+    @Column(name = "max_discount", precision = 15, scale = 2)
+    private BigDecimal maxDiscount;
+
+    @Column(name = "usage_limit")
+    private Integer usageLimit;
+
+    @Column(name = "starts_at")
+    private LocalDateTime startsAt;
+
+    @Column(name = "ends_at")
+    private LocalDateTime endsAt;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Boolean active = true;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
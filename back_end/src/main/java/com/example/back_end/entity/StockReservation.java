@@ -0,0 +1,47 @@
+package com.example.back_end.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Giữ hàng có thời hạn cho đơn hàng thanh toán qua cổng (VNPay): tồn kho đã bị trừ khi tạo đơn,
+ * nếu thanh toán không được xác nhận trước expiresAt thì đơn bị hủy và hàng được hoàn lại.
+ */
+@Getter
+@Setter
+@Entity
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "stock_reservations", indexes = {
+        // Bộ quét hết hạn đọc theo (status, expires_at): chỉ chạm các bản ghi đã đến hạn
+        @Index(name = "idx_reservation_status_expires", columnList = "status, expires_at")
+})
+public class StockReservation {
+    public enum Status {
+        HELD,
+        CONFIRMED,
+        RELEASED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "order_id", nullable = false, unique = true)
+    private Long orderId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    @Builder.Default
+    private Status status = Status.HELD;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Column(name = "created_at", nullable = false)
+    @Builder.Default
+    private LocalDateTime createdAt = LocalDateTime.now();
+}
@@ -14,7 +14,9 @@ import java.time.LocalDateTime;
 @Table(name = "wishlist_items")
 public class WishlistItem {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "wishlist_items_id")
+    @TableGenerator(name = "wishlist_items_id", table = "id_generators", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "wishlist_items", allocationSize = 50)
     private Long id;
 
     @ManyToOne
@@ -0,0 +1,39 @@
+package com.example.back_end.event;
+
+import lombok.Getter;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Phát ra khi dữ liệu của một hoặc nhiều sản phẩm thay đổi (thông tin, ảnh, tồn kho).
+ * Các bộ nhớ đệm / chỉ mục trong bộ nhớ lắng nghe sự kiện này để làm mới dữ liệu.
+ */
+@Getter
+public class ProductChangedEvent {
+    public enum ChangeType {
+        CONTENT, // thông tin sản phẩm, danh mục, ảnh...
+        STOCK    // chỉ số lượng tồn kho
+    }
+
+    private final Set<Long> productIds;
+    private final ChangeType type;
+
+    public ProductChangedEvent(Collection<Long> productIds, ChangeType type) {
+        this.productIds = Set.copyOf(productIds);
+        this.type = type;
+    }
+
+    public static ProductChangedEvent of(Long productId) {
+        return new ProductChangedEvent(List.of(productId), ChangeType.CONTENT);
+    }
+
+    public static ProductChangedEvent stock(Collection<Long> productIds) {
+        return new ProductChangedEvent(productIds, ChangeType.STOCK);
+    }
+
+    public boolean isStockOnly() {
+        return type == ChangeType.STOCK;
+    }
+}
@@ -24,15 +24,26 @@ public enum ErrorCode {
     INVALID_FULLNAME(1013, "Fullname must not be empty", HttpStatus.BAD_REQUEST),
     INVALID_FILE_TYPE(1014, "Invalid file type. Only images are allowed", HttpStatus.BAD_REQUEST),
     FILE_TOO_LARGE(1015, "File size exceeds maximum limit", HttpStatus.BAD_REQUEST),
+    INVALID_CURSOR(1016, "Invalid or expired pagination cursor", HttpStatus.BAD_REQUEST),
+    INVALID_SORT_FIELD(1017, "Sort field is not supported", HttpStatus.BAD_REQUEST),
+    INDEX_NOT_READY(1018, "Catalog index is still loading, please retry shortly", HttpStatus.SERVICE_UNAVAILABLE),
     
     // Product related errors
     PRODUCT_NOT_FOUND(2000, "Product not found", HttpStatus.NOT_FOUND),
+    CATEGORY_NOT_FOUND(2001, "Category not found", HttpStatus.NOT_FOUND),
     
     // Cart related errors
     CART_NOT_FOUND(3000, "Cart not found", HttpStatus.NOT_FOUND),
     ITEM_NOT_FOUND(3001, "Item not found", HttpStatus.NOT_FOUND),
     INVALID_QUANTITY(3002, "Quantity must be greater than zero", HttpStatus.BAD_REQUEST),
     UNAUTHORIZED_ACCESS(3003, "You do not have permission to access this resource", HttpStatus.FORBIDDEN),
+    INSUFFICIENT_STOCK(3004, "Not enough stock for this product", HttpStatus.BAD_REQUEST),
+    PRODUCT_UNAVAILABLE(3005, "Product is no longer available", HttpStatus.BAD_REQUEST),
+    INVALID_CART_OPERATION(3006, "Cart operation must be add, update or remove", HttpStatus.BAD_REQUEST),
+    TOO_MANY_CART_OPERATIONS(3007, "Too many operations in one request", HttpStatus.BAD_REQUEST),
+    INVALID_GUEST_CART(3008, "Guest cart is invalid or has expired", HttpStatus.BAD_REQUEST),
+    GUEST_CART_FULL(3009, "Guest cart cannot hold more products", HttpStatus.BAD_REQUEST),
+    QUANTITY_TOO_LARGE(3010, "Quantity exceeds the maximum allowed per product", HttpStatus.BAD_REQUEST),
     
     // Wishlist related errors
     WISHLIST_NOT_FOUND(4000, "Wishlist not found", HttpStatus.NOT_FOUND),
@@ -44,6 +55,17 @@ public enum ErrorCode {
     TOKEN_EXPIRED(5001, "Token xác thực đã hết hạn", HttpStatus.BAD_REQUEST),
     EMAIL_ALREADY_VERIFIED(5002, "Email đã được xác thực trước đó", HttpStatus.BAD_REQUEST),
     EMAIL_NOT_VERIFIED(5003, "Email chưa được xác thực", HttpStatus.BAD_REQUEST),
+    
+    // Promotion related errors
+    PROMOTION_NOT_FOUND(6000, "Promotion not found", HttpStatus.NOT_FOUND),
+    INVALID_PROMOTION(6001, "Promotion target, discount value or usage limit is invalid", HttpStatus.BAD_REQUEST),
+    PROMOTION_CODE_EXISTS(6002, "Coupon code is already in use", HttpStatus.BAD_REQUEST),
+    INVALID_COUPON(6003, "Coupon code is invalid or has expired", HttpStatus.BAD_REQUEST),
+    COUPON_NOT_APPLICABLE(6004, "Coupon does not apply to this cart", HttpStatus.BAD_REQUEST),
+    COUPON_EXHAUSTED(6005, "Coupon has no uses left", HttpStatus.BAD_REQUEST),
+
+    // Order related errors
+    INVALID_SHIPPING_METHOD(7000, "Shipping method must be standard, express or economy", HttpStatus.BAD_REQUEST),
     ;
 
     private final int code;
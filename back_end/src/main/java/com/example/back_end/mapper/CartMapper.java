@@ -18,11 +18,18 @@ public class CartMapper {
             return null;
         }
 
-        List<CartItemDTO> cartItemDTOs = cart.getCartItems() != null 
-            ? cart.getCartItems().stream()
-                .map(this::toCartItemDTO)
-                .collect(Collectors.toList())
-            : List.of();
+        CartDTO cartDTO = toGuestCartDTO(cart.getCartItems() != null ? cart.getCartItems() : List.of());
+        cartDTO.setId(cart.getId());
+        cartDTO.setUserId(cart.getUser().getId());
+        cartDTO.setUsername(cart.getUser().getUsername());
+        return cartDTO;
+    }
+
+    // Giỏ của khách chưa đăng nhập: không có id giỏ và người dùng
+    public CartDTO toGuestCartDTO(List<CartItem> cartItems) {
+        List<CartItemDTO> cartItemDTOs = cartItems.stream()
+            .map(this::toCartItemDTO)
+            .collect(Collectors.toList());
 
         BigDecimal totalPrice = cartItemDTOs.stream()
             .map(CartItemDTO::getSubtotal)
@@ -33,9 +40,6 @@ public class CartMapper {
             .sum();
 
         return CartDTO.builder()
-            .id(cart.getId())
-            .userId(cart.getUser().getId())
-            .username(cart.getUser().getUsername())
             .items(cartItemDTOs)
             .totalPrice(totalPrice)
             .totalItems(totalItems)
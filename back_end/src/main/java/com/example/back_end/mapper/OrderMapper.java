@@ -65,7 +65,9 @@ public class OrderMapper {
 
         BigDecimal subtotal = orderDetail.getPrice().multiply(BigDecimal.valueOf(orderDetail.getQuantity()));
 
-        String productImage = orderDetail.getProduct().getPrimaryImageUrl();
+        // Dòng cũ chưa được backfill thì đọc từ sản phẩm hiện tại
+        boolean snapshot = orderDetail.getProductName() != null;
+        String productImage = snapshot ? orderDetail.getProductImage() : orderDetail.getProduct().getPrimaryImageUrl();
         // Fallback to a default image if no image is available
         if (productImage == null || productImage.trim().isEmpty()) {
             productImage = "/api/placeholder/80/80"; // Default placeholder image
@@ -74,8 +76,12 @@ public class OrderMapper {
         return OrderDetailDTO.builder()
                 .id(orderDetail.getId())
                 .productId(orderDetail.getProduct().getId())
-                .productName(orderDetail.getProduct().getName())
+                .productName(snapshot ? orderDetail.getProductName() : orderDetail.getProduct().getName())
                 .productImage(productImage)
+                .productBrand(snapshot ? orderDetail.getProductBrand() : orderDetail.getProduct().getBrand())
+                .productModel(snapshot ? orderDetail.getProductModel() : orderDetail.getProduct().getModel())
+                .productColor(snapshot ? orderDetail.getProductColor() : orderDetail.getProduct().getColor())
+                .productMaterial(snapshot ? orderDetail.getProductMaterial() : orderDetail.getProduct().getMaterial())
                 .price(orderDetail.getPrice())
                 .quantity(orderDetail.getQuantity())
                 .subtotal(subtotal)
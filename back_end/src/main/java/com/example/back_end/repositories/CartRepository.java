@@ -9,4 +9,5 @@ import java.util.Optional;
 @Repository
 public interface CartRepository extends JpaRepository<Cart, Long> {
     Optional<Cart> findByUserId(Integer userId);
-} 
\ No newline at end of file
+
+}
\ No newline at end of file
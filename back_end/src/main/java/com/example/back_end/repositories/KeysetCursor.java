@@ -0,0 +1,85 @@
+package com.example.back_end.repositories;
+
+import com.example.back_end.exception.AppException;
+import com.example.back_end.exception.ErrorCode;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Vị trí của bản ghi cuối cùng trong trang trước: trường sắp xếp, chiều, giá trị khóa sắp xếp và id.
+ * Được mã hóa thành token base64url để client gửi lại nguyên vẹn.
+ */
+@Getter
+public class KeysetCursor {
+    // Giới hạn số dòng của một trang keyset (client / crawler không thể yêu cầu cả bảng trong một trang)
+    public static final int MAX_PAGE_SIZE = 100;
+
+    private static final String VERSION = "v1";
+    private static final String SEPARATOR = "|";
+
+    private final String sortField;
+    private final boolean descending;
+    private final long lastId;
+    private final String lastValue;
+
+    public KeysetCursor(String sortField, boolean descending, long lastId, Object lastValue) {
+        this.sortField = sortField;
+        this.descending = descending;
+        this.lastId = lastId;
+        this.lastValue = lastValue instanceof BigDecimal decimal ? decimal.toPlainString() : String.valueOf(lastValue);
+    }
+
+    // Kích thước trang thực tế: trong khoảng [1, MAX_PAGE_SIZE]
+    public static int pageSize(int requested) {
+        return Math.min(Math.max(requested, 1), MAX_PAGE_SIZE);
+    }
+
+    public String encode() {
+        String raw = String.join(SEPARATOR, VERSION, sortField, descending ? "desc" : "asc", Long.toString(lastId), lastValue);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Giải mã token và kiểm tra token được tạo cho đúng kiểu sắp xếp đang yêu cầu.
+     */
+    public static KeysetCursor decode(String token, String expectedField, boolean expectedDescending) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 5);
+            if (parts.length != 5 || !VERSION.equals(parts[0])) {
+                throw new AppException(ErrorCode.INVALID_CURSOR);
+            }
+            KeysetCursor cursor = new KeysetCursor(parts[1], "desc".equals(parts[2]), Long.parseLong(parts[3]), parts[4]);
+            if (!cursor.sortField.equals(expectedField) || cursor.descending != expectedDescending) {
+                throw new AppException(ErrorCode.INVALID_CURSOR);
+            }
+            return cursor;
+        } catch (IllegalArgumentException e) {
+            throw new AppException(ErrorCode.INVALID_CURSOR);
+        }
+    }
+
+    /**
+     * Chuyển giá trị khóa sắp xếp về đúng kiểu của thuộc tính để bind vào truy vấn.
+     */
+    public Object typedValue(Class<?> type) {
+        try {
+            if (type == Long.class) {
+                return Long.valueOf(lastValue);
+            }
+            if (type == BigDecimal.class) {
+                return new BigDecimal(lastValue);
+            }
+            if (type == LocalDateTime.class) {
+                return LocalDateTime.parse(lastValue);
+            }
+            return lastValue;
+        } catch (RuntimeException e) {
+            throw new AppException(ErrorCode.INVALID_CURSOR);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.back_end.repositories;
+
+import jakarta.persistence.TypedQuery;
+
+/**
+ * Các mảnh JPQL dùng chung cho phân trang keyset: "sau (giá trị, id) của bản ghi cuối" thay cho OFFSET.
+ * Tên trường luôn lấy từ danh sách cho phép của từng repository, không bao giờ từ input của client.
+ */
+final class KeysetQueries {
+    private KeysetQueries() {}
+
+    static String seekPredicate(String alias, String field, boolean descending) {
+        String op = descending ? "<" : ">";
+        if ("id".equals(field)) {
+            return alias + ".id " + op + " :lastId";
+        }
+        String column = alias + "." + field;
+        return "(" + column + " " + op + " :lastValue OR (" + column + " = :lastValue AND " + alias + ".id " + op + " :lastId))";
+    }
+
+    static String orderBy(String alias, String field, boolean descending) {
+        String direction = descending ? " DESC" : " ASC";
+        if ("id".equals(field)) {
+            return " ORDER BY " + alias + ".id" + direction;
+        }
+        return " ORDER BY " + alias + "." + field + direction + ", " + alias + ".id" + direction;
+    }
+
+    static void bindCursor(TypedQuery<?> query, KeysetCursor cursor, Class<?> fieldType) {
+        query.setParameter("lastId", cursor.getLastId());
+        if (!"id".equals(cursor.getSortField())) {
+            query.setParameter("lastValue", cursor.typedValue(fieldType));
+        }
+    }
+}
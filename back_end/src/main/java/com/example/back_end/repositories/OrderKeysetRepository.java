@@ -0,0 +1,12 @@
+package com.example.back_end.repositories;
+
+import java.util.List;
+
+public interface OrderKeysetRepository {
+    /**
+     * Đọc id của tối đa {@code limit} đơn hàng của người dùng nằm sau {@code after} theo thứ tự (sortField, id).
+     * @param after null = trang đầu tiên
+     */
+    List<Long> findIdsByUserIdAfter(Integer userId, String sortField, boolean descending,
+                                    KeysetCursor after, int limit);
+}
@@ -0,0 +1,44 @@
+package com.example.back_end.repositories;
+
+import com.example.back_end.exception.AppException;
+import com.example.back_end.exception.ErrorCode;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+public class OrderKeysetRepositoryImpl implements OrderKeysetRepository {
+    // Các trường được phép sắp xếp trong chế độ keyset (khớp với index trong schema.sql)
+    static final Map<String, Class<?>> SORT_FIELDS = Map.of(
+            "id", Long.class,
+            "orderDate", LocalDateTime.class,
+            "totalAmount", BigDecimal.class
+    );
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Long> findIdsByUserIdAfter(Integer userId, String sortField, boolean descending,
+                                           KeysetCursor after, int limit) {
+        Class<?> fieldType = SORT_FIELDS.get(sortField);
+        if (fieldType == null) {
+            throw new AppException(ErrorCode.INVALID_SORT_FIELD);
+        }
+
+        String jpql = "SELECT o.id FROM Order o WHERE o.user.id = :userId"
+                + (after != null ? " AND " + KeysetQueries.seekPredicate("o", sortField, descending) : "")
+                + KeysetQueries.orderBy("o", sortField, descending);
+
+        TypedQuery<Long> query = entityManager.createQuery(jpql, Long.class)
+                .setParameter("userId", userId);
+        if (after != null) {
+            KeysetQueries.bindCursor(query, after, fieldType);
+        }
+        return query.setMaxResults(limit).getResultList();
+    }
+}
@@ -12,14 +12,16 @@ import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface OrderRepository extends JpaRepository<Order, Long> {
+public interface OrderRepository extends JpaRepository<Order, Long>, OrderKeysetRepository {
     List<Order> findByUserId(Integer userId);
     Page<Order> findByUserId(Integer userId, Pageable pageable);
     Page<Order> findByUserIdOrderByOrderDateDesc(Integer userId, Pageable pageable);
+    long countByUserId(Integer userId);
     List<Order> findByStatus(OrderStatus status);
     List<Order> findByStatus(String status);
     Optional<Order> findByOrderNumber(String orderNumber);
@@ -41,21 +43,27 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     @Query("SELECT o FROM Order o WHERE o.orderDate BETWEEN :startDate AND :endDate")
     List<Order> findByOrderDateBetween(@Param("startDate") LocalDateTime startDate, 
                                       @Param("endDate") LocalDateTime endDate);
-    @Query("SELECT DISTINCT o FROM Order o " +
-           "LEFT JOIN FETCH o.orderDetails od " +
-           "LEFT JOIN FETCH od.product p " +
-           "LEFT JOIN FETCH p.productImages " +
-           "WHERE o.user.id = :userId " +
-           "ORDER BY o.orderDate DESC")
-    Page<Order> findByUserIdWithProductImages(@Param("userId") Integer userId, Pageable pageable);
+    // Phân trang hai bước, bước 1: chỉ lấy một trang id (LIMIT/OFFSET chạy trong SQL, không JOIN FETCH)
+    @Query(value = "SELECT o.id FROM Order o WHERE o.user.id = :userId",
+           countQuery = "SELECT COUNT(o) FROM Order o WHERE o.user.id = :userId")
+    Page<Long> findIdsByUserId(@Param("userId") Integer userId, Pageable pageable);
     
+    // Chi tiết đơn mang sẵn thông tin sản phẩm lúc mua: chỉ cần nạp orders + order_details
     @Query("SELECT DISTINCT o FROM Order o " +
-           "LEFT JOIN FETCH o.orderDetails od " +
-           "LEFT JOIN FETCH od.product p " +
-           "LEFT JOIN FETCH p.productImages " +
+           "LEFT JOIN FETCH o.orderDetails " +
            "WHERE o.id = :orderId")
-    Optional<Order> findByIdWithProductImages(@Param("orderId") Long orderId);
+    Optional<Order> findByIdWithDetails(@Param("orderId") Long orderId);
+
+    // Bước 2: nạp đồ thị đơn hàng cho một trang id đã được chọn trước (phân trang offset hoặc keyset)
+    @Query("SELECT DISTINCT o FROM Order o " +
+           "LEFT JOIN FETCH o.orderDetails " +
+           "WHERE o.id IN :ids")
+    List<Order> findAllWithDetailsByIdIn(@Param("ids") Collection<Long> ids);
     
     // Methods for OrderStatusService
     List<Order> findByStatusAndPaymentStatus(OrderStatus status, PaymentStatus paymentStatus);
-}
\ No newline at end of file
+
+    // Mã đơn mới nhất theo định dạng hiện tại (độ dài cố định, so sánh chuỗi = so sánh thời gian)
+    @Query("SELECT MAX(o.orderNumber) FROM Order o WHERE LENGTH(o.orderNumber) = :length")
+    String findMaxOrderNumberOfLength(@Param("length") int length);
+}
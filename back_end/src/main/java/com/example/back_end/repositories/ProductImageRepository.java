@@ -0,0 +1,29 @@
+package com.example.back_end.repositories;
+
+import com.example.back_end.entity.ProductImage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ProductImageRepository extends JpaRepository<ProductImage, Long> {
+
+    interface ImageUrlView {
+        Long getProductId();
+        String getImageUrl();
+    }
+
+    // Lấy URL ảnh của nhiều sản phẩm trong một truy vấn (dùng cho trang danh sách)
+    @Query("SELECT pi.product.id AS productId, pi.imageUrl AS imageUrl FROM ProductImage pi " +
+           "WHERE pi.product.id IN :productIds ORDER BY pi.product.id, pi.id")
+    List<ImageUrlView> findImageUrlsByProductIds(@Param("productIds") Collection<Long> productIds);
+
+    // Như trên nhưng ảnh chính đứng đầu mỗi sản phẩm (thứ tự như Product.getPrimaryImageUrl)
+    @Query("SELECT pi.product.id AS productId, pi.imageUrl AS imageUrl FROM ProductImage pi " +
+           "WHERE pi.product.id IN :productIds ORDER BY pi.product.id, pi.isPrimary DESC, pi.id")
+    List<ImageUrlView> findImageUrlsPrimaryFirstByProductIds(@Param("productIds") Collection<Long> productIds);
+}
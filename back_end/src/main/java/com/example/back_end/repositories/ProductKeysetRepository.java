@@ -0,0 +1,15 @@
+package com.example.back_end.repositories;
+
+import com.example.back_end.dto.ProductSummary;
+
+import java.util.List;
+
+public interface ProductKeysetRepository {
+    /**
+     * Đọc tối đa {@code limit} sản phẩm nằm sau {@code after} theo thứ tự (sortField, id).
+     * @param categoryName lọc theo danh mục, null = tất cả
+     * @param after null = trang đầu tiên
+     */
+    List<ProductSummary> findSummariesAfter(String categoryName, String sortField, boolean descending,
+                                            KeysetCursor after, int limit);
+}
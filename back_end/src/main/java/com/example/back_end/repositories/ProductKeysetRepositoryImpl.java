@@ -0,0 +1,59 @@
+package com.example.back_end.repositories;
+
+import com.example.back_end.dto.ProductSummary;
+import com.example.back_end.exception.AppException;
+import com.example.back_end.exception.ErrorCode;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class ProductKeysetRepositoryImpl implements ProductKeysetRepository {
+    // Các trường được phép sắp xếp trong chế độ keyset (khớp với index trong schema.sql)
+    static final Map<String, Class<?>> SORT_FIELDS = Map.of(
+            "id", Long.class,
+            "name", String.class,
+            "price", BigDecimal.class
+    );
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<ProductSummary> findSummariesAfter(String categoryName, String sortField, boolean descending,
+                                                   KeysetCursor after, int limit) {
+        Class<?> fieldType = SORT_FIELDS.get(sortField);
+        if (fieldType == null) {
+            throw new AppException(ErrorCode.INVALID_SORT_FIELD);
+        }
+
+        List<String> conditions = new ArrayList<>();
+        if (categoryName != null) {
+            conditions.add("c.name = :categoryName");
+        }
+        if (after != null) {
+            conditions.add(KeysetQueries.seekPredicate("p", sortField, descending));
+        }
+
+        StringBuilder jpql = new StringBuilder(
+                "SELECT new com.example.back_end.dto.ProductSummary(p.id, p.name, p.shortDescription, p.price, p.stock, c.name) " +
+                "FROM Product p LEFT JOIN p.category c");
+        if (!conditions.isEmpty()) {
+            jpql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+        jpql.append(KeysetQueries.orderBy("p", sortField, descending));
+
+        TypedQuery<ProductSummary> query = entityManager.createQuery(jpql.toString(), ProductSummary.class);
+        if (categoryName != null) {
+            query.setParameter("categoryName", categoryName);
+        }
+        if (after != null) {
+            KeysetQueries.bindCursor(query, after, fieldType);
+        }
+        return query.setMaxResults(limit).getResultList();
+    }
+}
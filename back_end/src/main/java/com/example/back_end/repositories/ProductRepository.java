@@ -1,18 +1,97 @@
 package com.example.back_end.repositories;
 
+import com.example.back_end.dto.ProductFacetDocument;
+import com.example.back_end.dto.ProductSearchDocument;
+import com.example.back_end.dto.ProductSummary;
 import com.example.back_end.entity.Product;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductKeysetRepository {
+
+    interface CategoryMembershipView {
+        Long getProductId();
+        Long getCategoryId();
+        Boolean getActive();
+    }
+
+    interface PriceView {
+        Long getProductId();
+        BigDecimal getPrice();
+    }
+
     List<Product> findByCategoryId(Long categoryId);
     List<Product> findByNameContainingIgnoreCase(String name);
     List<Product> findByActiveTrue();
     Page<Product> findByCategory_Name(String categoryName, Pageable pageable);
+    long countByCategory_Name(String categoryName);
     Page<Product> findByNameContainingIgnoreCase(String keyword, Pageable pageable);
-} 
\ No newline at end of file
+
+    // Listing projections: one query for the page rows (category name joined in), no entity hydration
+    @Query(value = "SELECT new com.example.back_end.dto.ProductSummary(p.id, p.name, p.shortDescription, p.price, p.stock, c.name) " +
+                   "FROM Product p LEFT JOIN p.category c",
+           countQuery = "SELECT COUNT(p) FROM Product p")
+    Page<ProductSummary> findSummaries(Pageable pageable);
+
+    @Query(value = "SELECT new com.example.back_end.dto.ProductSummary(p.id, p.name, p.shortDescription, p.price, p.stock, c.name) " +
+                   "FROM Product p JOIN p.category c WHERE c.name = :categoryName",
+           countQuery = "SELECT COUNT(p) FROM Product p JOIN p.category c WHERE c.name = :categoryName")
+    Page<ProductSummary> findSummariesByCategoryName(@Param("categoryName") String categoryName, Pageable pageable);
+
+    @Query(value = "SELECT new com.example.back_end.dto.ProductSummary(p.id, p.name, p.shortDescription, p.price, p.stock, c.name) " +
+                   "FROM Product p LEFT JOIN p.category c " +
+                   "WHERE LOWER(p.name) LIKE LOWER(CONCAT('%', :keyword, '%'))",
+           countQuery = "SELECT COUNT(p) FROM Product p WHERE LOWER(p.name) LIKE LOWER(CONCAT('%', :keyword, '%'))")
+    Page<ProductSummary> searchSummariesByName(@Param("keyword") String keyword, Pageable pageable);
+
+    @Query("SELECT new com.example.back_end.dto.ProductSummary(p.id, p.name, p.shortDescription, p.price, p.stock, c.name) " +
+           "FROM Product p LEFT JOIN p.category c WHERE p.id IN :ids")
+    List<ProductSummary> findSummariesByIds(@Param("ids") Collection<Long> ids);
+
+    // Search index feed: keyset batches ordered by id, plus targeted reloads for incremental updates; only active products are searchable
+    @Query("SELECT new com.example.back_end.dto.ProductSearchDocument(p.id, p.name, p.brand, p.model, p.shortDescription, c.name, p.price) " +
+           "FROM Product p LEFT JOIN p.category c WHERE p.id > :afterId AND p.active = true ORDER BY p.id")
+    List<ProductSearchDocument> findSearchDocumentsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT new com.example.back_end.dto.ProductSearchDocument(p.id, p.name, p.brand, p.model, p.shortDescription, c.name, p.price) " +
+           "FROM Product p LEFT JOIN p.category c WHERE p.id IN :ids AND p.active = true")
+    List<ProductSearchDocument> findSearchDocumentsByIds(@Param("ids") Collection<Long> ids);
+
+    // Facet index feed, same batching scheme as the search index; only active products are browsable
+    @Query("SELECT new com.example.back_end.dto.ProductFacetDocument(p.id, p.brand, p.color, p.material, p.price, c.name) " +
+           "FROM Product p LEFT JOIN p.category c WHERE p.id > :afterId AND p.active = true ORDER BY p.id")
+    List<ProductFacetDocument> findFacetDocumentsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT new com.example.back_end.dto.ProductFacetDocument(p.id, p.brand, p.color, p.material, p.price, c.name) " +
+           "FROM Product p LEFT JOIN p.category c WHERE p.id IN :ids AND p.active = true")
+    List<ProductFacetDocument> findFacetDocumentsByIds(@Param("ids") Collection<Long> ids);
+
+    // Category count snapshot feed: product -> category and active flag only
+    @Query("SELECT p.id AS productId, p.category.id AS categoryId, p.active AS active FROM Product p " +
+           "WHERE p.id > :afterId ORDER BY p.id")
+    List<CategoryMembershipView> findCategoryMembershipsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT p.id AS productId, p.category.id AS categoryId, p.active AS active FROM Product p WHERE p.id IN :ids")
+    List<CategoryMembershipView> findCategoryMembershipsByIds(@Param("ids") Collection<Long> ids);
+
+    // Chỉ giá (tính tổng tiền giỏ hàng mà không nạp entity sản phẩm)
+    @Query("SELECT p.id AS productId, p.price AS price FROM Product p WHERE p.id IN :ids")
+    List<PriceView> findPricesByIds(@Param("ids") Collection<Long> ids);
+
+    // Sản phẩm đang ở chế độ flash sale (nạp lại bộ đếm khi khởi động)
+    @Query("SELECT p.id FROM Product p WHERE p.flashSale = true")
+    List<Long> findFlashSaleProductIds();
+
+    // Tồn kho đã commit, đọc thẳng từ DB (không qua entity đang nằm trong persistence context)
+    @Query("SELECT p.stock FROM Product p WHERE p.id = :id")
+    Integer findStockById(@Param("id") Long id);
+}
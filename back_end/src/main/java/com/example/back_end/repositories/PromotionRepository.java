@@ -0,0 +1,22 @@
+package com.example.back_end.repositories;
+
+import com.example.back_end.entity.Promotion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface PromotionRepository extends JpaRepository<Promotion, Long> {
+
+    // Khuyến mãi đưa vào bảng biên dịch: đang bật và chưa hết hạn (khuyến mãi sắp bắt đầu vẫn được nạp trước)
+    @Query("SELECT p FROM Promotion p WHERE p.active = true AND (p.endsAt IS NULL OR p.endsAt > :now)")
+    List<Promotion> findLive(@Param("now") LocalDateTime now);
+
+    boolean existsByCodeIgnoreCase(String code);
+
+    boolean existsByCodeIgnoreCaseAndIdNot(String code, Long id);
+}
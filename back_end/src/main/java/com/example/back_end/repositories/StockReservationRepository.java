@@ -0,0 +1,31 @@
+package com.example.back_end.repositories;
+
+import com.example.back_end.entity.StockReservation;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface StockReservationRepository extends JpaRepository<StockReservation, Long> {
+
+    // Các bản ghi đã hết hạn, theo thứ tự hết hạn (dùng index status + expires_at)
+    @Query("SELECT r FROM StockReservation r WHERE r.status = :status AND r.expiresAt <= :now ORDER BY r.expiresAt")
+    List<StockReservation> findExpired(@Param("status") StockReservation.Status status,
+                                       @Param("now") LocalDateTime now, Pageable pageable);
+
+    Optional<StockReservation> findByOrderId(Long orderId);
+
+    // Chuyển trạng thái có điều kiện: chỉ một trong "xác nhận thanh toán" và "hết hạn" có thể thắng
+    @Modifying
+    @Query("UPDATE StockReservation r SET r.status = :to WHERE r.orderId = :orderId AND r.status = :from")
+    int transition(@Param("orderId") Long orderId,
+                   @Param("from") StockReservation.Status from,
+                   @Param("to") StockReservation.Status to);
+}
@@ -1,118 +1,326 @@
 package com.example.back_end.service;
 
+import com.example.back_end.dto.CartDeltaDTO;
+import com.example.back_end.dto.CartItemDTO;
+import com.example.back_end.dto.CartPricingDTO;
+import com.example.back_end.dto.request.BulkCartRequest;
+import com.example.back_end.dto.response.BulkCartResponse;
 import com.example.back_end.entity.Cart;
 import com.example.back_end.entity.CartItem;
 import com.example.back_end.entity.Product;
-import com.example.back_end.entity.User;
 import com.example.back_end.exception.AppException;
 import com.example.back_end.exception.ErrorCode;
-import com.example.back_end.repositories.CartRepository;
+import com.example.back_end.mapper.CartMapper;
 import com.example.back_end.repositories.ProductRepository;
+import com.example.back_end.service.cache.CatalogVersions;
+import com.example.back_end.service.cart.CartStore;
+import com.example.back_end.service.promotion.PromotionIndex;
+import com.example.back_end.service.promotion.PromotionService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+// Giỏ hàng được giữ trong CartStore (ghi trễ xuống DB); service chỉ kiểm tra dữ liệu và dựng Cart cho mapper
 @Service
 @RequiredArgsConstructor
 public class CartService {
-    private final CartRepository cartRepository;
+    private final CartStore cartStore;
     private final ProductRepository productRepository;
     private final UserService userService;
+    private final CatalogVersions catalogVersions;
+    private final CartMapper cartMapper;
+    private final PromotionService promotionService;
+
+    @Value("${app.cart.bulk.max-operations:100}")
+    private int maxBulkOperations;
 
     public Cart getCartByUserId(Integer userId) {
-        return cartRepository.findByUserId(userId)
-                .orElseGet(() -> createCart(userId));
+        return toCart(userId, cartStore.get(userId));
     }
 
-    @Transactional
-    public Cart createCart(Integer userId) {
-        User user = userService.findById(userId);
-        Cart cart = Cart.builder()
-                .user(user)
-                .cartItems(new ArrayList<>())
-                .build();
-        return cartRepository.save(cart);
+    // Giỏ trong bộ nhớ, chưa nạp sản phẩm (đủ để kiểm tra ETag)
+    public CartStore.CartView getCartView(Integer userId) {
+        return cartStore.get(userId);
     }
 
-    @Transactional
-    public Cart addToCart(Integer userId, Long productId, Integer quantity) {
+    public String eTag(CartStore.CartView cart) {
+        return catalogVersions.cartETag(cart.version(),
+                cart.lines().stream().map(CartStore.Line::productId).toList());
+    }
+
+    public CartChange addToCart(Integer userId, Long productId, Integer quantity) {
         if (quantity <= 0) {
             throw new AppException(ErrorCode.INVALID_QUANTITY);
         }
-        
-        Cart cart = getCartByUserId(userId);
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new AppException(ErrorCode.PRODUCT_NOT_FOUND));
-
-        CartItem existingItem = cart.getCartItems().stream()
-                .filter(item -> item.getProduct().getId().equals(productId))
-                .findFirst()
-                .orElse(null);
-
-        if (existingItem != null) {
-            existingItem.setQuantity(existingItem.getQuantity() + quantity);
-        } else {
-            CartItem newItem = CartItem.builder()
-                    .cart(cart)
-                    .product(product)
-                    .quantity(quantity)
-                    .build();
-            cart.getCartItems().add(newItem);
+        if (!productRepository.existsById(productId)) {
+            throw new AppException(ErrorCode.PRODUCT_NOT_FOUND);
         }
 
-        return cartRepository.save(cart);
+        CartStore.CartView cart = cartStore.edit(userId, editor -> {
+            CartStore.Line existingItem = editor.find(productId);
+            editor.set(productId, existingItem != null ? existingItem.quantity() + quantity : quantity);
+        });
+        return new CartChange(cart, productId);
     }
 
-    @Transactional
-    public Cart updateCartItemQuantity(Integer userId, Long productId, Integer quantity) {
+    public CartChange updateCartItemQuantity(Integer userId, Long productId, Integer quantity) {
         if (quantity <= 0) {
             throw new AppException(ErrorCode.INVALID_QUANTITY);
         }
-        
-        Cart cart = getCartByUserId(userId);
-        CartItem cartItem = cart.getCartItems().stream()
-                .filter(item -> item.getProduct().getId().equals(productId))
-                .findFirst()
-                .orElseThrow(() -> new AppException(ErrorCode.ITEM_NOT_FOUND));
 
-        cartItem.setQuantity(quantity);
-        return cartRepository.save(cart);
+        CartStore.CartView cart = cartStore.edit(userId, editor -> {
+            if (editor.find(productId) == null) {
+                throw new AppException(ErrorCode.ITEM_NOT_FOUND);
+            }
+            editor.set(productId, quantity);
+        });
+        return new CartChange(cart, productId);
     }
-    
-    @Transactional
-    public Cart updateCartItemQuantityById(Integer userId, Long cartItemId, Integer quantity) {
+
+    public CartChange updateCartItemQuantityById(Integer userId, Long cartItemId, Integer quantity) {
         if (quantity <= 0) {
             throw new AppException(ErrorCode.INVALID_QUANTITY);
         }
-        
-        Cart cart = getCartByUserId(userId);
-        CartItem cartItem = cart.getCartItems().stream()
-                .filter(item -> item.getId().equals(cartItemId))
-                .findFirst()
-                .orElseThrow(() -> new AppException(ErrorCode.ITEM_NOT_FOUND));
 
-        cartItem.setQuantity(quantity);
-        return cartRepository.save(cart);
+        Long[] productId = new Long[1];
+        CartStore.CartView cart = cartStore.edit(userId, editor -> {
+            CartStore.Line cartItem = editor.findByItemId(cartItemId);
+            if (cartItem == null) {
+                throw new AppException(ErrorCode.ITEM_NOT_FOUND);
+            }
+            productId[0] = cartItem.productId();
+            editor.set(cartItem.productId(), quantity);
+        });
+        return new CartChange(cart, productId[0]);
     }
 
-    @Transactional
-    public Cart removeFromCart(Integer userId, Long productId) {
-        Cart cart = getCartByUserId(userId);
-        boolean removed = cart.getCartItems().removeIf(item -> item.getProduct().getId().equals(productId));
-        
-        if (!removed) {
-            throw new AppException(ErrorCode.ITEM_NOT_FOUND);
+    public CartChange removeFromCart(Integer userId, Long productId) {
+        CartStore.CartView cart = cartStore.edit(userId, editor -> {
+            if (editor.find(productId) == null) {
+                throw new AppException(ErrorCode.ITEM_NOT_FOUND);
+            }
+            editor.remove(productId);
+        });
+        return new CartChange(cart, productId);
+    }
+
+    /**
+     * Áp dụng nhiều thao tác trong một lần sửa giỏ: nạp mọi sản phẩm liên quan bằng một truy vấn, kiểm tra
+     * tồn kho theo số lượng sau từng thao tác, và ghi tất cả các thay đổi vào nhật ký bằng một lần ghi.
+     */
+    public BulkCartResponse applyBulk(Integer userId, BulkCartRequest request) {
+        List<BulkCartRequest.CartOperation> operations = request.getOperations();
+        if (operations.size() > maxBulkOperations) {
+            throw new AppException(ErrorCode.TOO_MANY_CART_OPERATIONS);
+        }
+        Map<Long, Product> products = productRepository.findAllById(
+                        operations.stream().map(BulkCartRequest.CartOperation::getProductId).distinct().toList()).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+        List<BulkCartResponse.LineResult> results = new ArrayList<>(operations.size());
+        CartStore.CartView cart;
+        boolean applied = true;
+        try {
+            cart = cartStore.edit(userId, editor -> {
+                results.clear();
+                boolean failed = false;
+                for (int i = 0; i < operations.size(); i++) {
+                    BulkCartRequest.CartOperation operation = operations.get(i);
+                    BulkCartResponse.LineResult result = applyOperation(editor, operation, products.get(operation.getProductId()));
+                    result.setIndex(i);
+                    results.add(result);
+                    failed |= !result.isSuccess();
+                }
+                if (failed && request.isAtomic()) {
+                    throw new BulkRejectedException();
+                }
+            });
+        } catch (BulkRejectedException e) {
+            applied = false;
+            cart = cartStore.get(userId);
+        }
+
+        return BulkCartResponse.builder()
+                .applied(applied)
+                .version(cart.version())
+                .results(results)
+                .cart(cartMapper.toCartDTO(toCart(userId, cart, products)))
+                .build();
+    }
+
+    private BulkCartResponse.LineResult applyOperation(CartStore.Editor editor, BulkCartRequest.CartOperation operation,
+                                                       Product product) {
+        String action = operation.getAction().toLowerCase();
+        Long productId = operation.getProductId();
+        CartStore.Line existing = editor.find(productId);
+        int quantity;
+        switch (action) {
+            case "add", "update" -> {
+                if (operation.getQuantity() == null || operation.getQuantity() <= 0) {
+                    return failure(operation, ErrorCode.INVALID_QUANTITY);
+                }
+                if (action.equals("update") && existing == null) {
+                    return failure(operation, ErrorCode.ITEM_NOT_FOUND);
+                }
+                if (product == null) {
+                    return failure(operation, ErrorCode.PRODUCT_NOT_FOUND);
+                }
+                if (Boolean.FALSE.equals(product.getActive())) {
+                    return failure(operation, ErrorCode.PRODUCT_UNAVAILABLE);
+                }
+                quantity = action.equals("add") && existing != null
+                        ? existing.quantity() + operation.getQuantity()
+                        : operation.getQuantity();
+                if (product.getStock() == null || quantity > product.getStock()) {
+                    return failure(operation, ErrorCode.INSUFFICIENT_STOCK);
+                }
+                editor.set(productId, quantity);
+            }
+            case "remove" -> {
+                if (existing == null) {
+                    return failure(operation, ErrorCode.ITEM_NOT_FOUND);
+                }
+                quantity = 0;
+                editor.remove(productId);
+            }
+            default -> {
+                return failure(operation, ErrorCode.INVALID_CART_OPERATION);
+            }
         }
-        
-        return cartRepository.save(cart);
+        return BulkCartResponse.LineResult.builder()
+                .action(operation.getAction())
+                .productId(productId)
+                .success(true)
+                .quantity(quantity)
+                .build();
+    }
+
+    private static BulkCartResponse.LineResult failure(BulkCartRequest.CartOperation operation, ErrorCode errorCode) {
+        return BulkCartResponse.LineResult.builder()
+                .action(operation.getAction())
+                .productId(operation.getProductId())
+                .success(false)
+                .errorCode(errorCode.getCode())
+                .message(errorCode.getMessage())
+                .build();
+    }
+
+    // Xem trước giá sau khuyến mãi / mã giảm giá, cùng cách tính với lúc đặt hàng
+    public CartPricingDTO getPricing(Integer userId, String couponCode) {
+        List<PromotionIndex.Line> lines = getCartByUserId(userId).getCartItems().stream()
+                .map(item -> PromotionService.line(item.getProduct(), item.getQuantity()))
+                .toList();
+        return promotionService.toPricingDTO(promotionService.quote(lines, couponCode));
     }
 
-    @Transactional
+    // Gọi trong transaction đặt hàng: giỏ chỉ bị xóa khi đơn hàng đã commit
     public void clearCart(Integer userId) {
-        Cart cart = getCartByUserId(userId);
-        cart.getCartItems().clear();
-        cartRepository.save(cart);
+        cartStore.clearAfterCommit(userId);
+    }
+
+    /**
+     * Phản hồi rút gọn: chỉ nạp sản phẩm của dòng vừa đổi; tổng tiền tính từ giá, không nạp entity sản phẩm.
+     */
+    public CartDeltaDTO toDelta(CartChange change) {
+        CartStore.CartView cart = change.cart();
+        CartStore.Line changed = cart.lines().stream()
+                .filter(line -> line.productId().equals(change.productId()))
+                .findFirst()
+                .orElse(null);
+
+        CartItemDTO item = null;
+        if (changed != null) {
+            Product product = productRepository.findById(changed.productId()).orElse(null);
+            if (product != null) {
+                item = cartMapper.toCartItemDTO(CartItem.builder()
+                        .id(changed.itemId())
+                        .product(product)
+                        .quantity(changed.quantity())
+                        .build());
+            }
+        }
+
+        BigDecimal totalPrice = BigDecimal.ZERO;
+        int totalItems = 0;
+        if (!cart.lines().isEmpty()) {
+            Map<Long, BigDecimal> prices = productRepository.findPricesByIds(
+                            cart.lines().stream().map(CartStore.Line::productId).toList()).stream()
+                    .collect(Collectors.toMap(ProductRepository.PriceView::getProductId, ProductRepository.PriceView::getPrice));
+            // Cùng cách tính với CartMapper: dòng của sản phẩm không còn tồn tại bị bỏ qua
+            for (CartStore.Line line : cart.lines()) {
+                BigDecimal price = prices.get(line.productId());
+                if (price != null) {
+                    totalPrice = totalPrice.add(price.multiply(BigDecimal.valueOf(line.quantity())));
+                    totalItems += line.quantity();
+                }
+            }
+        }
+
+        return CartDeltaDTO.builder()
+                .version(cart.version())
+                .productId(change.productId())
+                .item(item)
+                .totalPrice(totalPrice)
+                .totalItems(totalItems)
+                .build();
+    }
+
+    // Dựng Cart (không được quản lý bởi JPA) từ giỏ trong bộ nhớ; sản phẩm được nạp bằng một truy vấn
+    public Cart toCart(Integer userId, CartStore.CartView view) {
+        return toCart(userId, view, Map.of());
+    }
+
+    // loaded: các sản phẩm đã nạp sẵn, chỉ nạp thêm những sản phẩm còn thiếu
+    private Cart toCart(Integer userId, CartStore.CartView view, Map<Long, Product> loaded) {
+        Cart cart = Cart.builder()
+                .id(view.cartId())
+                .user(userService.findById(userId))
+                .cartItems(new ArrayList<>())
+                .build();
+        if (view.lines().isEmpty()) {
+            return cart;
+        }
+
+        Map<Long, Product> products = new HashMap<>(loaded);
+        List<Long> missing = view.lines().stream()
+                .map(CartStore.Line::productId)
+                .filter(productId -> !products.containsKey(productId))
+                .toList();
+        if (!missing.isEmpty()) {
+            productRepository.findAllById(missing).forEach(product -> products.put(product.getId(), product));
+        }
+        for (CartStore.Line line : view.lines()) {
+            Product product = products.get(line.productId());
+            // Sản phẩm đã bị xóa khỏi DB: bỏ qua dòng này
+            if (product == null) {
+                continue;
+            }
+            cart.getCartItems().add(CartItem.builder()
+                    .id(line.itemId())
+                    .cart(cart)
+                    .product(product)
+                    .quantity(line.quantity())
+                    .build());
+        }
+        return cart;
+    }
+
+    // Yêu cầu atomic có thao tác lỗi: hủy lần sửa giỏ (bản sao bị bỏ)
+    private static class BulkRejectedException extends RuntimeException {
+        BulkRejectedException() {
+            super(null, null, false, false);
+        }
+    }
+
+    // Kết quả của một thao tác: giỏ sau khi sửa và sản phẩm bị thay đổi
+    public record CartChange(CartStore.CartView cart, Long productId) {
     }
-} 
\ No newline at end of file
+}
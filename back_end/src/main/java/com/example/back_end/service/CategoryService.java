@@ -0,0 +1,27 @@
+package com.example.back_end.service;
+
+import com.example.back_end.dto.CategoryDTO;
+import com.example.back_end.exception.AppException;
+import com.example.back_end.exception.ErrorCode;
+import com.example.back_end.service.cache.CategoryCountSnapshot;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class CategoryService {
+    private final CategoryCountSnapshot categoryCountSnapshot;
+
+    public List<CategoryDTO> getCategories() {
+        return categoryCountSnapshot.getCategories();
+    }
+
+    public CategoryDTO getCategoryById(Long id) {
+        return categoryCountSnapshot.getCategories().stream()
+                .filter(category -> category.getId().equals(id))
+                .findFirst()
+                .orElseThrow(() -> new AppException(ErrorCode.CATEGORY_NOT_FOUND));
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.back_end.service;
+
+import com.example.back_end.dto.response.GuestCartResponse;
+import com.example.back_end.entity.CartItem;
+import com.example.back_end.entity.Product;
+import com.example.back_end.exception.AppException;
+import com.example.back_end.exception.ErrorCode;
+import com.example.back_end.mapper.CartMapper;
+import com.example.back_end.repositories.ProductRepository;
+import com.example.back_end.service.cart.CartStore;
+import com.example.back_end.service.cart.GuestCartCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Giỏ hàng của khách chưa đăng nhập: nội dung nằm hoàn toàn trong token có chữ ký ({@link GuestCartCodec})
+ * do client giữ và gửi lại, server không ghi gì vào DB. Khi đăng nhập, giỏ khách được gộp vào giỏ của
+ * người dùng trong một lần sửa CartStore.
+ */
+@Service
+public class GuestCartService {
+    private final GuestCartCodec codec;
+    private final ProductRepository productRepository;
+    private final CartStore cartStore;
+    private final CartMapper cartMapper;
+    private final int maxQuantity;
+
+    public GuestCartService(JwtService jwtService,
+                            ProductRepository productRepository,
+                            CartStore cartStore,
+                            CartMapper cartMapper,
+                            @Value("${app.cart.guest.ttl-days:30}") long ttlDays,
+                            @Value("${app.cart.guest.max-lines:50}") int maxLines,
+                            @Value("${app.cart.guest.max-quantity:999}") int maxQuantity) {
+        // Khóa con riêng cho giỏ khách: token giỏ không thể dùng làm JWT đăng nhập
+        this.codec = new GuestCartCodec(jwtService.deriveKey("guest-cart"), Duration.ofDays(ttlDays).toSeconds(), maxLines);
+        this.productRepository = productRepository;
+        this.cartStore = cartStore;
+        this.cartMapper = cartMapper;
+        this.maxQuantity = maxQuantity;
+    }
+
+    public GuestCartResponse getCart(String token) {
+        return toGuestCart(decode(token));
+    }
+
+    public GuestCartResponse addToCart(String token, Long productId, Integer quantity) {
+        if (quantity == null || quantity <= 0) {
+            throw new AppException(ErrorCode.INVALID_QUANTITY);
+        }
+        checkAvailable(productId);
+        LinkedHashMap<Long, Integer> lines = decode(token);
+        if (!lines.containsKey(productId) && lines.size() >= codec.maxLines()) {
+            throw new AppException(ErrorCode.GUEST_CART_FULL);
+        }
+        // So sánh bằng phép trừ để tổng số lượng không bị tràn int
+        int current = lines.getOrDefault(productId, 0);
+        if (quantity > maxQuantity - current) {
+            throw new AppException(ErrorCode.QUANTITY_TOO_LARGE);
+        }
+        lines.put(productId, current + quantity);
+        return toGuestCart(lines);
+    }
+
+    public GuestCartResponse updateCartItem(String token, Long productId, Integer quantity) {
+        if (quantity == null || quantity <= 0) {
+            throw new AppException(ErrorCode.INVALID_QUANTITY);
+        }
+        if (quantity > maxQuantity) {
+            throw new AppException(ErrorCode.QUANTITY_TOO_LARGE);
+        }
+        LinkedHashMap<Long, Integer> lines = decode(token);
+        if (!lines.containsKey(productId)) {
+            throw new AppException(ErrorCode.ITEM_NOT_FOUND);
+        }
+        checkAvailable(productId);
+        lines.put(productId, quantity);
+        return toGuestCart(lines);
+    }
+
+    public GuestCartResponse removeFromCart(String token, Long productId) {
+        LinkedHashMap<Long, Integer> lines = decode(token);
+        if (lines.remove(productId) == null) {
+            throw new AppException(ErrorCode.ITEM_NOT_FOUND);
+        }
+        return toGuestCart(lines);
+    }
+
+    /**
+     * Gộp giỏ khách vào giỏ của người dùng: mỗi sản phẩm lấy số lượng lớn hơn giữa hai giỏ (không cộng dồn),
+     * nên gộp lại cùng một token nhiều lần (đăng nhập lại, gửi lại request) không làm tăng số lượng.
+     * Sản phẩm không còn tồn tại hoặc đã ngừng bán bị bỏ qua.
+     */
+    public CartStore.CartView mergeIntoUserCart(Integer userId, String token) {
+        LinkedHashMap<Long, Integer> lines = decode(token);
+        if (lines.isEmpty()) {
+            return cartStore.get(userId);
+        }
+        Map<Long, Product> products = loadProducts(lines);
+        return cartStore.edit(userId, editor -> lines.forEach((productId, quantity) -> {
+            Product product = products.get(productId);
+            if (product == null || Boolean.FALSE.equals(product.getActive())) {
+                return;
+            }
+            CartStore.Line existing = editor.find(productId);
+            editor.set(productId, existing != null ? Math.max(existing.quantity(), quantity) : quantity);
+        }));
+    }
+
+    private void checkAvailable(Long productId) {
+        Product product = productRepository.findById(productId)
+                .orElseThrow(() -> new AppException(ErrorCode.PRODUCT_NOT_FOUND));
+        if (Boolean.FALSE.equals(product.getActive())) {
+            throw new AppException(ErrorCode.PRODUCT_UNAVAILABLE);
+        }
+    }
+
+    private LinkedHashMap<Long, Integer> decode(String token) {
+        try {
+            return codec.decode(token, Instant.now().getEpochSecond());
+        } catch (IllegalArgumentException e) {
+            throw new AppException(ErrorCode.INVALID_GUEST_CART);
+        }
+    }
+
+    // Token mới (phát hành lại mỗi lần, nên hạn dùng tính từ lần sửa gần nhất) và giỏ để hiển thị
+    private GuestCartResponse toGuestCart(LinkedHashMap<Long, Integer> lines) {
+        String token = codec.encode(lines, Instant.now().getEpochSecond());
+        List<CartItem> items = new ArrayList<>(lines.size());
+        if (!lines.isEmpty()) {
+            Map<Long, Product> products = loadProducts(lines);
+            lines.forEach((productId, quantity) -> {
+                Product product = products.get(productId);
+                if (product != null) {
+                    items.add(CartItem.builder().product(product).quantity(quantity).build());
+                }
+            });
+        }
+        return GuestCartResponse.builder()
+                .token(token)
+                .cart(cartMapper.toGuestCartDTO(items))
+                .build();
+    }
+
+    private Map<Long, Product> loadProducts(Map<Long, Integer> lines) {
+        return productRepository.findAllById(lines.keySet()).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+    }
+}
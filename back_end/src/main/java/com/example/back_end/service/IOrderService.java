@@ -2,6 +2,7 @@ package com.example.back_end.service;
 
 import com.example.back_end.dto.request.CreateDirectOrderRequest;
 import com.example.back_end.dto.request.CreateOrderRequest;
+import com.example.back_end.dto.response.CursorPage;
 import com.example.back_end.entity.Order;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -12,6 +13,8 @@ import java.util.Map;
 public interface IOrderService {
     List<Order> getOrdersByUserId(Integer userId);
     Page<Order> getOrdersByUsername(String username, Pageable pageable);
+    CursorPage<Order> getOrdersByUsername(String username, String sortBy, boolean descending,
+                                          String cursor, int size, boolean withCount);
     List<Order> getOrdersByStatus(String status);
     Order getOrderById(Long id);
     Order getOrderByNumber(String orderNumber);
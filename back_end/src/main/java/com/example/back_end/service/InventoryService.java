@@ -0,0 +1,107 @@
+package com.example.back_end.service;
+
+import com.example.back_end.entity.OrderDetail;
+import com.example.back_end.entity.Product;
+import com.example.back_end.exception.AppException;
+import com.example.back_end.exception.ErrorCode;
+import com.example.back_end.repositories.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Trừ / hoàn tồn kho bằng câu lệnh UPDATE nguyên tử có điều kiện, gửi thành một batch JDBC.
+ * - "stock = stock - ? WHERE stock >= ?" không bao giờ làm tồn kho âm và không mất cập nhật khi nhiều
+ *   đơn hàng cùng đặt một sản phẩm (không còn đọc - trừ trong Java - ghi lại).
+ * - Các dòng luôn được cập nhật theo thứ tự id tăng dần, nên hai đơn nhiều sản phẩm đặt đồng thời
+ *   khóa các dòng theo cùng một thứ tự và không thể deadlock lẫn nhau.
+ * Phải được gọi trong transaction của đơn hàng: nếu một dòng thiếu hàng, toàn bộ transaction bị rollback.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class InventoryService {
+    private static final String DECREMENT_SQL = "UPDATE products SET stock = stock - ? WHERE id = ? AND stock >= ?";
+    private static final String INCREMENT_SQL = "UPDATE products SET stock = stock + ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ProductRepository productRepository;
+
+    /**
+     * @param quantities productId -> số lượng cần trừ
+     * @throws AppException INVALID_QUANTITY nếu có số lượng null hoặc <= 0
+     * @throws RuntimeException nếu có sản phẩm không đủ hàng (hoặc không tồn tại)
+     */
+    @Transactional
+    public void decrementStock(Map<Long, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return;
+        }
+        requirePositive(quantities);
+        List<Map.Entry<Long, Integer>> lines = new ArrayList<>(sorted(quantities).entrySet());
+        List<Object[]> args = new ArrayList<>(lines.size());
+        for (Map.Entry<Long, Integer> line : lines) {
+            args.add(new Object[]{line.getValue(), line.getKey(), line.getValue()});
+        }
+
+        int[] updated = jdbcTemplate.batchUpdate(DECREMENT_SQL, args);
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                Long productId = lines.get(i).getKey();
+                String name = productRepository.findById(productId).map(Product::getName).orElse("#" + productId);
+                log.warn("Stock reservation rejected for product {} (requested {})", productId, lines.get(i).getValue());
+                throw new RuntimeException("Insufficient stock for product: " + name);
+            }
+        }
+    }
+
+    /**
+     * Hoàn lại tồn kho (hủy đơn, hết hạn giữ hàng...).
+     * @throws AppException INVALID_QUANTITY nếu có số lượng null hoặc <= 0
+     */
+    @Transactional
+    public void incrementStock(Map<Long, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return;
+        }
+        requirePositive(quantities);
+        List<Object[]> args = new ArrayList<>(quantities.size());
+        for (Map.Entry<Long, Integer> line : sorted(quantities).entrySet()) {
+            args.add(new Object[]{line.getValue(), line.getKey()});
+        }
+        jdbcTemplate.batchUpdate(INCREMENT_SQL, args);
+    }
+
+    /**
+     * Gộp số lượng theo sản phẩm (một sản phẩm có thể xuất hiện nhiều dòng trong đơn).
+     */
+    public static Map<Long, Integer> quantitiesOf(Collection<OrderDetail> details) {
+        Map<Long, Integer> quantities = new TreeMap<>();
+        for (OrderDetail detail : details) {
+            quantities.merge(detail.getProduct().getId(), detail.getQuantity(), Integer::sum);
+        }
+        return quantities;
+    }
+
+    // Số lượng âm sẽ làm câu UPDATE có điều kiện luôn khớp và cộng thêm hàng thay vì trừ
+    private static void requirePositive(Map<Long, Integer> quantities) {
+        for (Integer quantity : quantities.values()) {
+            if (quantity == null || quantity <= 0) {
+                throw new AppException(ErrorCode.INVALID_QUANTITY);
+            }
+        }
+    }
+
+    private static SortedMap<Long, Integer> sorted(Map<Long, Integer> quantities) {
+        return quantities instanceof SortedMap<Long, Integer> sortedMap ? sortedMap : new TreeMap<>(quantities);
+    }
+}
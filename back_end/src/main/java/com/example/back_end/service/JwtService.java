@@ -10,6 +10,10 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.text.ParseException;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
@@ -168,4 +172,18 @@ public class JwtService {
             throw e;
         }
     }
-} 
\ No newline at end of file
+
+    /**
+     * Khóa con dẫn xuất từ signer key cho một mục đích khác (HMAC-SHA512(signer key, purpose)).
+     * Dữ liệu ký bằng khóa con không bao giờ hợp lệ như một JWT đăng nhập và ngược lại.
+     */
+    public byte[] deriveKey(String purpose) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA512");
+            mac.init(new SecretKeySpec(SIGNER_KEY.getBytes(), "HmacSHA512"));
+            return mac.doFinal(purpose.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot derive key for " + purpose, e);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.back_end.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Điền thông tin sản phẩm (tên, thuộc tính, ảnh chính) cho các dòng order_details tạo trước khi có các cột
+ * chụp lại. Chạy nền sau khi ứng dụng khởi động, theo từng khoảng id để mỗi câu UPDATE chỉ khóa ít dòng;
+ * dòng đã có product_name được bỏ qua nên có thể chạy lại an toàn.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OrderDetailSnapshotBackfill {
+    // Ảnh: ưu tiên ảnh chính, sau đó ảnh đầu tiên, cuối cùng là cột image của sản phẩm (như Product.getPrimaryImageUrl)
+    private static final String BACKFILL_SQL = "UPDATE order_details od JOIN products p ON p.id = od.product_id SET " +
+            "od.product_name = p.name, od.product_brand = p.brand, od.product_model = p.model, " +
+            "od.product_color = p.color, od.product_material = p.material, " +
+            "od.product_image = COALESCE((SELECT pi.image_url FROM product_images pi WHERE pi.product_id = p.id " +
+            "ORDER BY pi.is_primary DESC, pi.id LIMIT 1), p.image) " +
+            "WHERE od.product_name IS NULL AND od.id BETWEEN ? AND ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${app.order-detail-backfill.chunk-size:1000}")
+    private int chunkSize;
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        try {
+            Map<String, Object> range = jdbcTemplate.queryForMap(
+                    "SELECT MIN(id) AS min_id, MAX(id) AS max_id FROM order_details WHERE product_name IS NULL");
+            if (range.get("min_id") == null) {
+                return;
+            }
+            long from = ((Number) range.get("min_id")).longValue();
+            long to = ((Number) range.get("max_id")).longValue();
+            long start = System.currentTimeMillis();
+            int updated = 0;
+            for (long low = from; low <= to; low += chunkSize) {
+                updated += jdbcTemplate.update(BACKFILL_SQL, low, low + chunkSize - 1);
+            }
+            log.info("Backfilled product snapshot on {} order details in {} ms", updated, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("Failed to backfill order detail product snapshots", e);
+        }
+    }
+}
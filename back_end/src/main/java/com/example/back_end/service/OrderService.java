@@ -3,19 +3,33 @@ package com.example.back_end.service;
 import com.example.back_end.constant.OrderStatus;
 import com.example.back_end.dto.request.CreateDirectOrderRequest;
 import com.example.back_end.dto.request.CreateOrderRequest;
+import com.example.back_end.dto.response.CursorPage;
 import com.example.back_end.entity.*;
+import com.example.back_end.event.ProductChangedEvent;
+import com.example.back_end.exception.AppException;
+import com.example.back_end.exception.ErrorCode;
+import com.example.back_end.repositories.KeysetCursor;
 import com.example.back_end.repositories.OrderRepository;
+import com.example.back_end.repositories.ProductImageRepository;
 import com.example.back_end.repositories.ProductRepository;
+import com.example.back_end.service.promotion.PromotionService;
+import com.example.back_end.service.stats.OrderStatisticsRollup;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -23,8 +37,14 @@ import java.util.*;
 public class OrderService implements IOrderService {
     private final OrderRepository orderRepository;
     private final ProductRepository productRepository;
+    private final ProductImageRepository productImageRepository;
     private final CartService cartService;
     private final UserService userService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final InventoryService inventoryService;
+    private final StockReservationService stockReservationService;
+    private final OrderStatisticsRollup orderStatisticsRollup;
+    private final PromotionService promotionService;
 
     @Override
     public List<Order> getOrdersByUserId(Integer userId) {
@@ -32,9 +52,54 @@ public class OrderService implements IOrderService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Page<Order> getOrdersByUsername(String username, Pageable pageable) {
         User user = userService.findByUsername(username);
-        return orderRepository.findByUserId(user.getId(), pageable);
+        // Thêm id vào cuối để thứ tự giữa các trang ổn định khi khóa sắp xếp trùng nhau
+        Pageable idPageable = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(),
+                pageable.getSort().and(Sort.by("id")));
+        Page<Long> ids = orderRepository.findIdsByUserId(user.getId(), idPageable);
+        return new PageImpl<>(loadOrderGraphs(ids.getContent()), pageable, ids.getTotalElements());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<Order> getOrdersByUsername(String username, String sortBy, boolean descending,
+                                                 String cursor, int size, boolean withCount) {
+        size = KeysetCursor.pageSize(size);
+        User user = userService.findByUsername(username);
+        KeysetCursor after = cursor == null || cursor.isBlank()
+                ? null
+                : KeysetCursor.decode(cursor, sortBy, descending);
+
+        // Bước 1: chỉ đọc id (dùng index user_id + khóa sắp xếp), lấy thêm một dòng để biết còn trang sau
+        List<Long> ids = orderRepository.findIdsByUserIdAfter(user.getId(), sortBy, descending, after, size + 1);
+        boolean hasNext = ids.size() > size;
+        if (hasNext) {
+            ids = ids.subList(0, size);
+        }
+
+        // Bước 2: nạp đơn hàng kèm chi tiết/ảnh cho đúng các id đó rồi giữ lại thứ tự của bước 1
+        List<Order> orders = loadOrderGraphs(ids);
+
+        String nextCursor = null;
+        if (hasNext && !orders.isEmpty()) {
+            Order last = orders.get(orders.size() - 1);
+            Object value = switch (sortBy) {
+                case "orderDate" -> last.getOrderDate();
+                case "totalAmount" -> last.getTotalAmount();
+                default -> last.getId();
+            };
+            nextCursor = new KeysetCursor(sortBy, descending, last.getId(), value).encode();
+        }
+
+        return CursorPage.<Order>builder()
+                .content(orders)
+                .size(size)
+                .hasNext(hasNext)
+                .nextCursor(nextCursor)
+                .totalElements(withCount ? orderRepository.countByUserId(user.getId()) : null)
+                .build();
     }
 
     @Override
@@ -73,16 +138,12 @@ public class OrderService implements IOrderService {
                 .phone(phone)
                 .customerName(user.getFullname())
                 .email(user.getEmail())
-                .totalAmount(calculateTotalAmount(cart))
                 .orderDetails(new ArrayList<>())
                 .build();
 
         // Create order details and update product stock
         for (CartItem cartItem : cart.getCartItems()) {
             Product product = cartItem.getProduct();
-            if (product.getStock() < cartItem.getQuantity()) {
-                throw new RuntimeException("Insufficient stock for product: " + product.getName());
-            }
 
             OrderDetail orderDetail = OrderDetail.builder()
                     .order(order)
@@ -93,14 +154,21 @@ public class OrderService implements IOrderService {
                     .build();
 
             order.getOrderDetails().add(orderDetail);
-            product.setStock(product.getStock() - cartItem.getQuantity());
-            productRepository.save(product);
         }
+        // Chỉ khuyến mãi tự động, không có mã giảm giá / phí vận chuyển
+        captureProductSnapshots(order.getOrderDetails());
+        PromotionService.OrderPricing pricing = promotionService.priceOrder(order.getOrderDetails(), null, null);
+        applyPricing(order, pricing);
+        // Trừ tồn kho có điều kiện cho tất cả các dòng trong một batch
+        inventoryService.decrementStock(InventoryService.quantitiesOf(order.getOrderDetails()));
 
         // Clear the cart after order is created
         cartService.clearCart(userId);
 
-        return orderRepository.save(order);
+        Order savedOrder = orderRepository.save(order);
+        promotionService.redeem(savedOrder.getId(), pricing);
+        publishStockChanged(savedOrder);
+        return savedOrder;
     }
 
     @Override
@@ -122,16 +190,12 @@ public class OrderService implements IOrderService {
                 .customerName(user.getFullname())
                 .email(user.getEmail())
                 .paymentMethod(request.getPaymentMethod())
-                .totalAmount(calculateTotalAmount(cart))
                 .orderDetails(new ArrayList<>())
                 .build();
 
         // Create order details and update product stock
         for (CartItem cartItem : cart.getCartItems()) {
             Product product = cartItem.getProduct();
-            if (product.getStock() < cartItem.getQuantity()) {
-                throw new RuntimeException("Insufficient stock for product: " + product.getName());
-            }
 
             OrderDetail orderDetail = OrderDetail.builder()
                     .order(order)
@@ -142,50 +206,70 @@ public class OrderService implements IOrderService {
                     .build();
 
             order.getOrderDetails().add(orderDetail);
-            product.setStock(product.getStock() - cartItem.getQuantity());
-            productRepository.save(product);
         }
+        // Khuyến mãi, mã giảm giá và phí vận chuyển tính ở server; discountAmount / shippingFee của client bị bỏ qua
+        captureProductSnapshots(order.getOrderDetails());
+        PromotionService.OrderPricing pricing = promotionService.priceOrder(order.getOrderDetails(),
+                request.getCouponCode(), promotionService.shippingFee(request.getProvince(),
+                        request.getShippingAddress(), request.getShippingMethod()));
+        applyPricing(order, pricing);
+        // Trừ tồn kho có điều kiện cho tất cả các dòng trong một batch
+        inventoryService.decrementStock(InventoryService.quantitiesOf(order.getOrderDetails()));
 
         // Clear the cart after order is created
         cartService.clearCart(user.getId());
 
-        return orderRepository.save(order);
+        Order savedOrder = orderRepository.save(order);
+        promotionService.redeem(savedOrder.getId(), pricing);
+        publishStockChanged(savedOrder);
+        stockReservationService.holdIfDeferredPayment(savedOrder);
+        return savedOrder;
     }
 
     @Override
     @Transactional
     public Order createDirectOrder(String username, CreateDirectOrderRequest request) {
+        return createDirectOrder(username, request, true);
+    }
+
+    /**
+     * Như createDirectOrder nhưng không trừ tồn kho và không phát sự kiện tồn kho: dùng cho lô flash sale,
+     * nơi người gọi trừ tồn kho của cả lô bằng một lần decrementStock trong cùng transaction.
+     */
+    @Transactional
+    public Order createDirectOrderWithoutStock(String username, CreateDirectOrderRequest request) {
+        return createDirectOrder(username, request, false);
+    }
+
+    private Order createDirectOrder(String username, CreateDirectOrderRequest request, boolean decrementStock) {
         User user = userService.findByUsername(username);
         
         if (request.getItems() == null || request.getItems().isEmpty()) {
             throw new RuntimeException("Order items are required");
         }
-        
-        // Calculate total amount and validate products
-        BigDecimal totalAmount = BigDecimal.ZERO;
-        List<OrderDetail> orderDetails = new ArrayList<>();
-        
+        // Kiểm tra lại ở đây (không chỉ dựa vào @Valid): số lượng âm sẽ tạo đơn có tổng tiền âm và cộng thêm tồn kho
         for (CreateDirectOrderRequest.OrderItemRequest item : request.getItems()) {
-            Product product = productRepository.findById(item.getProductId())
-                    .orElseThrow(() -> new RuntimeException("Product not found with ID: " + item.getProductId()));
-            
-            if (product.getStock() < item.getQuantity()) {
-                throw new RuntimeException("Insufficient stock for product: " + product.getName() + 
-                                         ". Available: " + product.getStock() + ", Requested: " + item.getQuantity());
+            if (item == null || item.getProductId() == null) {
+                throw new RuntimeException("Product ID is required");
+            }
+            if (item.getQuantity() == null || item.getQuantity() <= 0) {
+                throw new AppException(ErrorCode.INVALID_QUANTITY);
             }
-            
-            BigDecimal itemSubtotal = product.getPrice().multiply(BigDecimal.valueOf(item.getQuantity()));
-            totalAmount = totalAmount.add(itemSubtotal);
-        }
-        
-        // Add shipping fee if provided
-        if (request.getShippingFee() != null) {
-            totalAmount = totalAmount.add(request.getShippingFee());
         }
         
-        // Subtract discount if provided
-        if (request.getDiscountAmount() != null) {
-            totalAmount = totalAmount.subtract(request.getDiscountAmount());
+        // Nạp tất cả sản phẩm của đơn bằng một truy vấn, rồi kiểm tra và tính tiền trong bộ nhớ
+        Map<Long, Product> products = loadProducts(request.getItems());
+        Map<Long, Integer> requested = new TreeMap<>();
+
+        for (CreateDirectOrderRequest.OrderItemRequest item : request.getItems()) {
+            Product product = products.get(item.getProductId());
+            int quantity = requested.merge(product.getId(), item.getQuantity(), Integer::sum);
+
+            // Kiểm tra sớm theo tổng số lượng của sản phẩm; UPDATE có điều kiện trong DB vẫn là chốt chặn cuối
+            if (product.getStock() < quantity) {
+                throw new RuntimeException("Insufficient stock for product: " + product.getName() + 
+                                         ". Available: " + product.getStock() + ", Requested: " + quantity);
+            }
         }
         
         Order order = Order.builder()
@@ -198,17 +282,14 @@ public class OrderService implements IOrderService {
                 .customerName(request.getCustomerName())
                 .email(request.getEmail() != null ? request.getEmail() : user.getEmail())
                 .paymentMethod(request.getPaymentMethod())
-                .totalAmount(totalAmount)
-                .shippingFee(request.getShippingFee() != null ? request.getShippingFee() : BigDecimal.ZERO)
-                .discountAmount(request.getDiscountAmount() != null ? request.getDiscountAmount() : BigDecimal.ZERO)
                 .notes(request.getNotes())
                 .orderDetails(new ArrayList<>())
                 .build();
 
         // Create order details and update product stock
         for (CreateDirectOrderRequest.OrderItemRequest item : request.getItems()) {
-            Product product = productRepository.findById(item.getProductId()).get();
-            
+            Product product = products.get(item.getProductId());
+
             OrderDetail orderDetail = OrderDetail.builder()
                     .order(order)
                     .product(product)
@@ -218,13 +299,25 @@ public class OrderService implements IOrderService {
                     .build();
 
             order.getOrderDetails().add(orderDetail);
-            
-            // Update product stock
-            product.setStock(product.getStock() - item.getQuantity());
-            productRepository.save(product);
+        }
+        // Khuyến mãi, mã giảm giá và phí vận chuyển tính ở server; discountAmount / shippingFee của client bị bỏ qua
+        captureProductSnapshots(order.getOrderDetails());
+        PromotionService.OrderPricing pricing = promotionService.priceOrder(order.getOrderDetails(),
+                request.getCouponCode(), promotionService.shippingFee(request.getProvince(),
+                        request.getShippingAddress(), request.getShippingMethod()));
+        applyPricing(order, pricing);
+        if (decrementStock) {
+            // Trừ tồn kho có điều kiện cho tất cả các dòng trong một batch
+            inventoryService.decrementStock(requested);
         }
 
-        return orderRepository.save(order);
+        Order savedOrder = orderRepository.save(order);
+        promotionService.redeem(savedOrder.getId(), pricing);
+        if (decrementStock) {
+            publishStockChanged(savedOrder);
+        }
+        stockReservationService.holdIfDeferredPayment(savedOrder);
+        return savedOrder;
     }
 
     @Override
@@ -253,15 +346,15 @@ public class OrderService implements IOrderService {
             throw new RuntimeException("Order cannot be cancelled in its current status");
         }
         
+        // Đơn VNPay đang giữ hàng: hoàn bản giữ hàng cùng transaction, thanh toán về muộn sẽ không xác nhận được nữa
+        stockReservationService.releaseForCancellation(order.getId());
+
         order.updateStatus(OrderStatus.CANCELLED);
         order.setCancellationReason(reason);
         
         // Return items to inventory
-        for (OrderDetail detail : order.getOrderDetails()) {
-            Product product = detail.getProduct();
-            product.setStock(product.getStock() + detail.getQuantity());
-            productRepository.save(product);
-        }
+        inventoryService.incrementStock(InventoryService.quantitiesOf(order.getOrderDetails()));
+        publishStockChanged(order);
         
         return orderRepository.save(order);
     }
@@ -282,32 +375,65 @@ public class OrderService implements IOrderService {
 
     @Override
     public Map<String, Object> getOrderStatistics() {
-        Map<String, Object> statistics = new HashMap<>();
-        
-        // Count orders by status
-        Map<String, Long> ordersByStatus = new HashMap<>();
-        for (OrderStatus status : OrderStatus.values()) {
-            long count = orderRepository.countByStatus(status);
-            ordersByStatus.put(status.name(), count);
+        // Đọc từ bảng tổng hợp theo ngày / trạng thái thay vì đếm lại trên bảng orders
+        return orderStatisticsRollup.getStatistics();
+    }
+
+    // Chụp lại thông tin sản phẩm cho các dòng đơn; ảnh chính của mọi sản phẩm nạp bằng một truy vấn
+    private void captureProductSnapshots(List<OrderDetail> orderDetails) {
+        Map<Long, Product> products = new HashMap<>();
+        for (OrderDetail orderDetail : orderDetails) {
+            products.putIfAbsent(orderDetail.getProduct().getId(), orderDetail.getProduct());
         }
-        statistics.put("ordersByStatus", ordersByStatus);
-        
-        // Total revenue
-        BigDecimal totalRevenue = orderRepository.findByStatus(OrderStatus.DELIVERED).stream()
-                .map(Order::getTotalAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        statistics.put("totalRevenue", totalRevenue);
-        
-        // Total orders
-        long totalOrders = orderRepository.count();
-        statistics.put("totalOrders", totalOrders);
-        
-        return statistics;
+        Map<Long, String> imageUrls = new HashMap<>();
+        for (ProductImageRepository.ImageUrlView view
+                : productImageRepository.findImageUrlsPrimaryFirstByProductIds(products.keySet())) {
+            imageUrls.putIfAbsent(view.getProductId(), view.getImageUrl());
+        }
+        for (OrderDetail orderDetail : orderDetails) {
+            Product product = orderDetail.getProduct();
+            orderDetail.captureProductSnapshot(imageUrls.getOrDefault(product.getId(), product.getImage()));
+        }
+    }
+
+    // Một truy vấn IN cho mọi sản phẩm của đơn; báo lỗi với id đầu tiên không tồn tại
+    private Map<Long, Product> loadProducts(List<CreateDirectOrderRequest.OrderItemRequest> items) {
+        Set<Long> ids = items.stream()
+                .map(CreateDirectOrderRequest.OrderItemRequest::getProductId)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        Map<Long, Product> products = productRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        for (Long id : ids) {
+            if (!products.containsKey(id)) {
+                throw new RuntimeException("Product not found with ID: " + id);
+            }
+        }
+        return products;
+    }
+
+    // Nạp đơn hàng kèm chi tiết cho đúng các id đã chọn, giữ nguyên thứ tự của danh sách id
+    private List<Order> loadOrderGraphs(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, Order> byId = orderRepository.findAllWithDetailsByIdIn(ids).stream()
+                .collect(Collectors.toMap(Order::getId, order -> order));
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    // Tồn kho của các sản phẩm trong đơn đã thay đổi -> làm mới cache / chỉ mục sản phẩm
+    private void publishStockChanged(Order order) {
+        eventPublisher.publishEvent(ProductChangedEvent.stock(order.getOrderDetails().stream()
+                .map(detail -> detail.getProduct().getId())
+                .collect(Collectors.toList())));
     }
 
-    private BigDecimal calculateTotalAmount(Cart cart) {
-        return cart.getCartItems().stream()
-                .map(item -> item.getProduct().getPrice().multiply(BigDecimal.valueOf(item.getQuantity())))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    private void applyPricing(Order order, PromotionService.OrderPricing pricing) {
+        order.setShippingFee(pricing.shippingFee());
+        order.setDiscountAmount(pricing.discountAmount());
+        order.setTotalAmount(pricing.totalAmount());
     }
 } 
\ No newline at end of file
@@ -13,14 +13,4 @@ public interface OrderStatusService {
      * Kiểm tra xem có thể chuyển từ trạng thái hiện tại sang trạng thái mới không
      */
     boolean canTransitionTo(OrderStatus currentStatus, OrderStatus newStatus);
-    
-    /**
-     * Tự động xác nhận đơn hàng đã thanh toán
-     */
-    void autoConfirmPaidOrders();
-    
-    /**
-     * Tự động chuyển đơn hàng đã xác nhận sang đang xử lý
-     */
-    void autoProcessConfirmedOrders();
 }
\ No newline at end of file
@@ -2,9 +2,11 @@ package com.example.back_end.service;
 
 import com.example.back_end.entity.Product;
 import com.example.back_end.entity.ProductImage;
+import com.example.back_end.event.ProductChangedEvent;
 import com.example.back_end.repositories.ProductRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -18,6 +20,7 @@ public class ProductImageService {
 
     private final FileUploadService fileUploadService;
     private final ProductRepository productRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     public List<String> uploadProductImages(Long productId, List<MultipartFile> files) {
         Product product = productRepository.findById(productId)
@@ -47,6 +50,7 @@ public class ProductImageService {
         }
         
         productRepository.save(product);
+        eventPublisher.publishEvent(ProductChangedEvent.of(productId));
         log.info("Successfully uploaded {} images for product {}", imageUrls.size(), productId);
         
         return imageUrls;
@@ -59,6 +63,7 @@ public class ProductImageService {
         // Remove from database
         product.getProductImages().removeIf(img -> img.getImageUrl().equals(imageUrl));
         productRepository.save(product);
+        eventPublisher.publishEvent(ProductChangedEvent.of(productId));
 
         // Delete from storage
         fileUploadService.deleteImage(imageUrl);
@@ -2,13 +2,27 @@ package com.example.back_end.service;
 
 import com.example.back_end.dto.ProductDTO;
 import com.example.back_end.dto.ProductDetailDTO;
+import com.example.back_end.dto.response.CursorPage;
+import com.example.back_end.dto.response.FacetedProductResponse;
+import com.example.back_end.service.search.SuggestionTrie;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.util.List;
+import java.util.Map;
+
 public interface ProductService {
+    // Giá trị sort mặc định của tìm kiếm: xếp theo độ liên quan của chỉ mục tìm kiếm
+    String RELEVANCE_SORT = "relevance";
+
     Page<ProductDTO> getAllProducts(Pageable pageable);
     ProductDTO getProductById(Long id);
     ProductDetailDTO getProductDetailById(Long id);
     Page<ProductDTO> getProductsByCategory(String categoryName, Pageable pageable);
+    CursorPage<ProductDTO> getProductsByCursor(String categoryName, String sort, boolean descending,
+                                               String cursor, int size, boolean withCount);
     Page<ProductDTO> searchProducts(String keyword, Pageable pageable);
+    List<SuggestionTrie.Suggestion> suggest(String prefix, int limit);
+    FacetedProductResponse browseProducts(Map<String, List<String>> filters, Pageable pageable);
+    Map<String, Integer> getFacetValues(String facet, Map<String, List<String>> filters);
 } 
\ No newline at end of file
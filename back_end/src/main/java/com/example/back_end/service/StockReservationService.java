@@ -0,0 +1,133 @@
+package com.example.back_end.service;
+
+import com.example.back_end.constant.OrderStatus;
+import com.example.back_end.constant.PaymentStatus;
+import com.example.back_end.entity.Order;
+import com.example.back_end.entity.StockReservation;
+import com.example.back_end.event.ProductChangedEvent;
+import com.example.back_end.repositories.OrderRepository;
+import com.example.back_end.repositories.StockReservationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Giữ hàng có thời hạn trong lúc khách thanh toán qua VNPay.
+ * - Tạo đơn VNPay: tồn kho đã bị trừ, ghi thêm một bản giữ hàng HELD hết hạn sau TTL.
+ * - VNPay trả về thành công: HELD -> CONFIRMED, hàng thuộc về đơn.
+ * - VNPay trả về thất bại hoặc quá hạn: HELD -> RELEASED, hủy đơn và hoàn tồn kho.
+ * - Khách / admin hủy đơn đang giữ hàng: HELD -> RELEASED trong transaction hủy đơn (đơn tự hoàn tồn kho).
+ * Hai nhánh dùng cùng một UPDATE có điều kiện trên trạng thái, nên không thể vừa xác nhận vừa hoàn hàng.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class StockReservationService {
+    private static final String DEFERRED_PAYMENT_METHOD = "vnpay";
+    private static final int SWEEP_BATCH_SIZE = 100;
+
+    private final StockReservationRepository reservationRepository;
+    private final OrderRepository orderRepository;
+    private final InventoryService inventoryService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${app.inventory.reservation-ttl-minutes:20}")
+    private long ttlMinutes;
+
+    /**
+     * Ghi bản giữ hàng cho đơn thanh toán qua VNPay (các phương thức khác không cần).
+     * Gọi trong transaction tạo đơn, sau khi tồn kho đã được trừ.
+     */
+    @Transactional
+    public void holdIfDeferredPayment(Order order) {
+        if (order.getPaymentMethod() == null || !DEFERRED_PAYMENT_METHOD.equalsIgnoreCase(order.getPaymentMethod())) {
+            return;
+        }
+        reservationRepository.save(StockReservation.builder()
+                .orderId(order.getId())
+                .expiresAt(LocalDateTime.now().plusMinutes(ttlMinutes))
+                .build());
+    }
+
+    /**
+     * @return false nếu bản giữ hàng đã bị hoàn (thanh toán về quá muộn), true trong các trường hợp còn lại
+     */
+    @Transactional
+    public boolean confirm(Long orderId) {
+        if (reservationRepository.transition(orderId, StockReservation.Status.HELD, StockReservation.Status.CONFIRMED) == 1) {
+            return true;
+        }
+        // Không có bản giữ hàng (đơn không qua VNPay) hoặc đã được xác nhận trước đó (VNPay gọi lại nhiều lần)
+        return reservationRepository.findByOrderId(orderId)
+                .map(reservation -> reservation.getStatus() != StockReservation.Status.RELEASED)
+                .orElse(true);
+    }
+
+    /**
+     * Hoàn hàng của một đơn đang được giữ: hủy đơn nếu vẫn chưa thanh toán và cộng lại tồn kho.
+     * Mỗi lần gọi chạy trong transaction riêng, để bộ quét có thể xử lý từng đơn độc lập.
+     */
+    public boolean release(Long orderId, String reason) {
+        Boolean released = new TransactionTemplate(transactionManager).execute(status -> {
+            if (reservationRepository.transition(orderId, StockReservation.Status.HELD, StockReservation.Status.RELEASED) == 0) {
+                return false; // đã được xác nhận hoặc đã hoàn trước đó
+            }
+            Order order = orderRepository.findById(orderId).orElse(null);
+            // Đơn đã bị hủy tay hoặc đã thanh toán theo đường khác: không hoàn hàng lần nữa
+            if (order == null || order.getStatus() != OrderStatus.PENDING || order.getPaymentStatus() == PaymentStatus.PAID) {
+                return false;
+            }
+            order.updateStatus(OrderStatus.CANCELLED);
+            order.setPaymentStatus(PaymentStatus.CANCELLED);
+            order.setCancellationReason(reason);
+            orderRepository.save(order);
+
+            Map<Long, Integer> quantities = InventoryService.quantitiesOf(order.getOrderDetails());
+            inventoryService.incrementStock(quantities);
+            eventPublisher.publishEvent(ProductChangedEvent.stock(quantities.keySet()));
+            return true;
+        });
+        if (Boolean.TRUE.equals(released)) {
+            log.info("Released stock reservation of order {}: {}", orderId, reason);
+        }
+        return Boolean.TRUE.equals(released);
+    }
+
+    /**
+     * Đánh dấu bản giữ hàng của đơn vừa bị hủy là RELEASED, trong transaction hủy đơn (người gọi tự hoàn tồn kho).
+     * Thanh toán về sau đó sẽ thấy bản giữ hàng đã hoàn, giống trường hợp hết hạn.
+     * Không có bản giữ hàng (đơn không qua VNPay) hoặc đã xác nhận / đã hoàn: không làm gì.
+     */
+    @Transactional
+    public void releaseForCancellation(Long orderId) {
+        if (reservationRepository.transition(orderId, StockReservation.Status.HELD, StockReservation.Status.RELEASED) == 1) {
+            log.info("Released stock reservation of cancelled order {}", orderId);
+        }
+    }
+
+    // Quét các bản giữ hàng đã hết hạn theo thứ tự hết hạn, mỗi lần tối đa một lô
+    @Scheduled(fixedDelayString = "${app.inventory.reservation-sweep-interval-ms:60000}")
+    public void releaseExpired() {
+        List<StockReservation> expired = reservationRepository.findExpired(
+                StockReservation.Status.HELD, LocalDateTime.now(), PageRequest.of(0, SWEEP_BATCH_SIZE));
+        for (StockReservation reservation : expired) {
+            try {
+                release(reservation.getOrderId(), "Hết thời gian thanh toán VNPay");
+            } catch (Exception e) {
+                log.error("Failed to release expired stock reservation of order {}", reservation.getOrderId(), e);
+            }
+        }
+    }
+}
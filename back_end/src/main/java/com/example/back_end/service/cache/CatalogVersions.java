@@ -0,0 +1,78 @@
+package com.example.back_end.service.cache;
+
+import com.example.back_end.event.ProductChangedEvent;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tem phiên bản trong bộ nhớ cho dữ liệu catalog, dùng làm ETag / Last-Modified cho GET có điều kiện.
+ * Kiểm tra một tem chỉ là đọc bộ nhớ, nên phản hồi 304 không cần truy vấn DB.
+ * - Mỗi sản phẩm có tem riêng, tăng khi sản phẩm đó thay đổi (kể cả tồn kho).
+ * - Các trang danh sách dùng tem toàn catalog, tăng khi bất kỳ sản phẩm nào thay đổi, kể cả khi chỉ đổi tồn kho:
+ *   mỗi dòng danh sách có số tồn kho chính xác, nên ETag mạnh phải đổi theo.
+ * Tem gắn với một id khởi động ngẫu nhiên, nên ETag cũ tự mất hiệu lực sau khi ứng dụng khởi động lại.
+ */
+@Component
+public class CatalogVersions {
+    private final String bootId = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+    private final long bootTime = System.currentTimeMillis();
+
+    private final AtomicLong catalogVersion = new AtomicLong();
+    private volatile long catalogModified = bootTime;
+    private final Map<Long, Stamp> products = new ConcurrentHashMap<>();
+
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        long now = System.currentTimeMillis();
+        for (Long productId : event.getProductIds()) {
+            products.merge(productId, new Stamp(1, now), (old, ignored) -> new Stamp(old.version + 1, now));
+        }
+        catalogVersion.incrementAndGet();
+        catalogModified = now;
+    }
+
+    public String productETag(Long productId) {
+        return "\"p" + productId + "-" + bootId + "-" + products.getOrDefault(productId, Stamp.INITIAL).version + "\"";
+    }
+
+    public long productLastModified(Long productId) {
+        Stamp stamp = products.get(productId);
+        return stamp != null ? stamp.modifiedAt : bootTime;
+    }
+
+    /**
+     * @param query chuỗi mô tả truy vấn (endpoint + tham số), để mỗi trang/bộ lọc có ETag riêng
+     */
+    public String listETag(String query) {
+        return "\"l" + Integer.toHexString(query.hashCode()) + "-" + bootId + "-" + catalogVersion.get() + "\"";
+    }
+
+    public long listLastModified() {
+        return catalogModified;
+    }
+
+    /**
+     * ETag của giỏ hàng: đổi khi giỏ đổi hoặc khi một sản phẩm trong giỏ đổi (giá, tên, ảnh...).
+     * Tổng tem của các sản phẩm chỉ tăng, nên cùng một phiên bản giỏ không thể cho lại một ETag cũ.
+     */
+    public String cartETag(long cartVersion, Collection<Long> productIds) {
+        long productVersions = 0;
+        for (Long productId : productIds) {
+            productVersions += products.getOrDefault(productId, Stamp.INITIAL).version;
+        }
+        return "\"c" + Long.toString(cartVersion, 36) + "-" + bootId + "-" + productVersions + "\"";
+    }
+
+    private record Stamp(long version, long modifiedAt) {
+        static final Stamp INITIAL = new Stamp(0, 0);
+    }
+}
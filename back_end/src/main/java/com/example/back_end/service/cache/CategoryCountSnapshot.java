@@ -0,0 +1,142 @@
+package com.example.back_end.service.cache;
+
+import com.example.back_end.dto.CategoryDTO;
+import com.example.back_end.entity.Category;
+import com.example.back_end.event.ProductChangedEvent;
+import com.example.back_end.repositories.CategoryRepository;
+import com.example.back_end.repositories.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Ảnh chụp danh sách danh mục kèm số sản phẩm đang bán, giữ trong bộ nhớ.
+ * Số lượng được cập nhật tăng/giảm theo từng sản phẩm khi danh mục hoặc cờ active của nó thay đổi,
+ * thay vì COUNT theo từng danh mục mỗi request. Luồng đọc chỉ lấy tham chiếu tới danh sách bất biến.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CategoryCountSnapshot {
+    private static final int BATCH_SIZE = 5000;
+
+    private final CategoryRepository categoryRepository;
+    private final ProductRepository productRepository;
+
+    // Các trường dưới đây chỉ được sửa trong các phương thức synchronized
+    private final Map<Long, Category> categories = new HashMap<>();
+    // Sản phẩm đang active -> danh mục của nó (sản phẩm inactive hoặc không có danh mục không có mặt)
+    private final Map<Long, Long> activeProductCategory = new HashMap<>();
+    private final Map<Long, Integer> counts = new HashMap<>();
+
+    private volatile List<CategoryDTO> snapshot = List.of();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        try {
+            categories.clear();
+            activeProductCategory.clear();
+            counts.clear();
+            loadCategories();
+
+            long lastId = 0;
+            List<ProductRepository.CategoryMembershipView> batch;
+            do {
+                batch = productRepository.findCategoryMembershipsAfter(lastId, PageRequest.of(0, BATCH_SIZE));
+                for (ProductRepository.CategoryMembershipView view : batch) {
+                    apply(view.getProductId(), membership(view));
+                    lastId = view.getProductId();
+                }
+            } while (batch.size() == BATCH_SIZE);
+            publish();
+            log.info("Category count snapshot built: {} categories in {} ms", categories.size(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("Failed to build category count snapshot", e);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.isStockOnly()) {
+            return; // tồn kho không ảnh hưởng tới số sản phẩm đang bán
+        }
+        refresh(event.getProductIds());
+    }
+
+    public synchronized void refresh(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        Set<Long> missing = new HashSet<>(productIds);
+        boolean unknownCategory = false;
+        for (ProductRepository.CategoryMembershipView view : productRepository.findCategoryMembershipsByIds(productIds)) {
+            Long categoryId = membership(view);
+            unknownCategory |= categoryId != null && !categories.containsKey(categoryId);
+            apply(view.getProductId(), categoryId);
+            missing.remove(view.getProductId());
+        }
+        for (Long productId : missing) {
+            apply(productId, null); // sản phẩm đã bị xóa
+        }
+        if (unknownCategory) {
+            loadCategories();
+        }
+        publish();
+    }
+
+    public List<CategoryDTO> getCategories() {
+        return snapshot;
+    }
+
+    private static Long membership(ProductRepository.CategoryMembershipView view) {
+        return Boolean.TRUE.equals(view.getActive()) ? view.getCategoryId() : null;
+    }
+
+    // Chuyển một sản phẩm sang danh mục mới (null = không được tính) và điều chỉnh số lượng hai bên
+    private void apply(Long productId, Long categoryId) {
+        Long previous = categoryId == null
+                ? activeProductCategory.remove(productId)
+                : activeProductCategory.put(productId, categoryId);
+        if (previous != null) {
+            counts.merge(previous, -1, Integer::sum);
+        }
+        if (categoryId != null) {
+            counts.merge(categoryId, 1, Integer::sum);
+        }
+    }
+
+    private void loadCategories() {
+        categories.clear();
+        for (Category category : categoryRepository.findAll()) {
+            categories.put(category.getId(), category);
+        }
+    }
+
+    private void publish() {
+        List<CategoryDTO> list = new ArrayList<>(categories.size());
+        for (Category category : categories.values()) {
+            list.add(CategoryDTO.builder()
+                    .id(category.getId())
+                    .name(category.getName())
+                    .description(category.getDescription())
+                    .productCount(counts.getOrDefault(category.getId(), 0))
+                    .build());
+        }
+        list.sort(Comparator.comparing(CategoryDTO::getName));
+        snapshot = List.copyOf(list);
+    }
+}
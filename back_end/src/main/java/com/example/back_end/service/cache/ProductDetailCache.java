@@ -0,0 +1,205 @@
+package com.example.back_end.service.cache;
+
+import com.example.back_end.dto.ProductDetailDTO;
+import com.example.back_end.event.ProductChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Cache chi tiết sản phẩm trong bộ nhớ.
+ * - Giới hạn theo dung lượng ước tính (byte) của các DTO, loại bỏ theo LRU.
+ * - Single-flight: nhiều request cùng lúc cho một sản phẩm chưa có trong cache chỉ gây ra một lần đọc DB.
+ * - Bị vô hiệu hóa qua {@link ProductChangedEvent} sau khi transaction ghi dữ liệu commit.
+ */
+@Component
+@Slf4j
+public class ProductDetailCache {
+
+    private final long maxWeightBytes;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    // access-order = true => thứ tự LRU
+    private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long totalWeight;
+
+    private final Map<Long, CompletableFuture<ProductDetailDTO>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public ProductDetailCache(@Value("${app.cache.product-detail.max-weight-bytes:33554432}") long maxWeightBytes) {
+        this.maxWeightBytes = maxWeightBytes;
+    }
+
+    public ProductDetailDTO get(Long productId, Function<Long, ProductDetailDTO> loader) {
+        ProductDetailDTO cached = lookup(productId);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+
+        CompletableFuture<ProductDetailDTO> future = new CompletableFuture<>();
+        CompletableFuture<ProductDetailDTO> existing = inFlight.putIfAbsent(productId, future);
+        if (existing != null) {
+            // Một request khác đang nạp sản phẩm này, chờ kết quả của nó
+            return await(existing);
+        }
+
+        try {
+            ProductDetailDTO loaded = loader.apply(productId);
+            // Chỉ lưu nếu không có invalidate nào xảy ra trong lúc đang nạp
+            if (inFlight.remove(productId, future)) {
+                store(productId, loaded);
+            }
+            future.complete(loaded);
+            return loaded;
+        } catch (RuntimeException e) {
+            inFlight.remove(productId, future);
+            future.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    public void invalidate(Long productId) {
+        inFlight.remove(productId);
+        lock.lock();
+        try {
+            Entry removed = entries.remove(productId);
+            if (removed != null) {
+                totalWeight -= removed.weight;
+                invalidations.increment();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Chạy trước CatalogVersions: tem phiên bản chỉ tăng sau khi dữ liệu cũ đã bị loại khỏi cache
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        event.getProductIds().forEach(this::invalidate);
+    }
+
+    public Map<String, Object> getStats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long requests = hitCount + missCount;
+        int size;
+        long weight;
+        lock.lock();
+        try {
+            size = entries.size();
+            weight = totalWeight;
+        } finally {
+            lock.unlock();
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("entries", size);
+        stats.put("weightBytes", weight);
+        stats.put("maxWeightBytes", maxWeightBytes);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRatio", requests == 0 ? 0.0 : (double) hitCount / requests);
+        stats.put("evictions", evictions.sum());
+        stats.put("invalidations", invalidations.sum());
+        return stats;
+    }
+
+    private ProductDetailDTO lookup(Long productId) {
+        lock.lock();
+        try {
+            Entry entry = entries.get(productId);
+            return entry != null ? entry.value : null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void store(Long productId, ProductDetailDTO value) {
+        long weight = estimateWeight(value);
+        if (weight > maxWeightBytes) {
+            log.debug("Product {} detail ({} bytes) exceeds cache capacity, not cached", productId, weight);
+            return;
+        }
+        lock.lock();
+        try {
+            Entry previous = entries.put(productId, new Entry(value, weight));
+            if (previous != null) {
+                totalWeight -= previous.weight;
+            }
+            totalWeight += weight;
+
+            Iterator<Map.Entry<Long, Entry>> it = entries.entrySet().iterator();
+            while (totalWeight > maxWeightBytes && it.hasNext()) {
+                Map.Entry<Long, Entry> eldest = it.next();
+                if (eldest.getKey().equals(productId)) {
+                    continue;
+                }
+                totalWeight -= eldest.getValue().weight;
+                it.remove();
+                evictions.increment();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static ProductDetailDTO await(CompletableFuture<ProductDetailDTO> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    // Ước lượng kích thước: các trường chuỗi (2 byte/ký tự) + chi phí cố định cho object và các trường số
+    private static long estimateWeight(ProductDetailDTO dto) {
+        long weight = 256;
+        weight += chars(dto.getName()) + chars(dto.getDescription()) + chars(dto.getShortDescription())
+                + chars(dto.getBrand()) + chars(dto.getModel()) + chars(dto.getDimensions())
+                + chars(dto.getColor()) + chars(dto.getMaterial()) + chars(dto.getSpecifications())
+                + chars(dto.getFeatures()) + chars(dto.getCategoryName()) + chars(dto.getMainImage());
+        weight += chars(dto.getImageUrls()) + chars(dto.getAdditionalImages());
+        return weight;
+    }
+
+    private static long chars(String value) {
+        return value == null ? 0 : 40L + 2L * value.length();
+    }
+
+    private static long chars(List<String> values) {
+        if (values == null) {
+            return 0;
+        }
+        long total = 16L * values.size();
+        for (String value : values) {
+            total += chars(value);
+        }
+        return total;
+    }
+
+    private record Entry(ProductDetailDTO value, long weight) {
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.back_end.service.cart;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Nhật ký ghi nối (append-only) các thay đổi giỏ hàng chưa được ghi xuống DB.
+ * - Mỗi thay đổi là một dòng văn bản ghi bằng một lần write, nên vẫn còn khi tiến trình bị dừng đột ngột;
+ *   bật fsync để chịu được cả mất điện (đổi lại mỗi thay đổi chờ một lần ghi đĩa).
+ * - Nhật ký chia thành các đoạn (segment). Trước mỗi lần ghi xuống DB, đoạn hiện tại được đóng lại và
+ *   các thay đổi mới đi vào đoạn kế tiếp; các đoạn đã đóng chỉ bị xóa khi lần ghi DB thành công.
+ * - Mỗi dòng ghi giá trị tuyệt đối (số lượng mới, không phải phần chênh lệch), nên đọc lại nhiều lần
+ *   hoặc đọc lại thay đổi đã có trong DB đều cho cùng kết quả.
+ */
+public class CartAppendLog {
+    private static final Pattern SEGMENT_NAME = Pattern.compile("cart-(\\d+)\\.log");
+
+    private final Path directory;
+    private final boolean fsync;
+
+    private FileChannel channel;
+    private long segment;
+
+    public CartAppendLog(Path directory, boolean fsync) {
+        this.directory = directory;
+        this.fsync = fsync;
+        try {
+            Files.createDirectories(directory);
+            this.segment = segments().stream().mapToLong(CartAppendLog::segmentNumber).max().orElse(0);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open cart log directory " + directory, e);
+        }
+    }
+
+    /**
+     * Đọc lại tất cả các đoạn còn trên đĩa theo thứ tự ghi.
+     */
+    public synchronized void replay(Consumer<Entry> consumer) throws IOException {
+        for (Path file : segments()) {
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    Entry entry = Entry.parse(line);
+                    // Dòng bị cắt dở khi tiến trình dừng giữa lúc ghi: bỏ qua
+                    if (entry != null) {
+                        consumer.accept(entry);
+                    }
+                }
+            }
+        }
+    }
+
+    public synchronized void append(List<Entry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        StringBuilder text = new StringBuilder();
+        for (Entry entry : entries) {
+            text.append(entry.format()).append('\n');
+        }
+        try {
+            if (channel == null) {
+                segment++;
+                channel = FileChannel.open(segmentPath(segment),
+                        StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(text.toString().getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (fsync) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot append to cart log", e);
+        }
+    }
+
+    /**
+     * Đóng đoạn hiện tại; các thay đổi sau lời gọi này đi vào đoạn mới.
+     * @return số của đoạn cuối cùng đã đóng (dùng cho {@link #deleteUpTo(long)})
+     */
+    public synchronized long seal() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+        return segment;
+    }
+
+    // Xóa các đoạn đã đóng có số <= lastSegment (mọi thay đổi trong đó đã nằm trong DB)
+    public synchronized void deleteUpTo(long lastSegment) throws IOException {
+        for (Path file : segments()) {
+            long number = segmentNumber(file);
+            if (number <= lastSegment && !(channel != null && number == segment)) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    public synchronized void close() throws IOException {
+        seal();
+    }
+
+    private Path segmentPath(long number) {
+        return directory.resolve("cart-" + number + ".log");
+    }
+
+    private List<Path> segments() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> stream = Files.list(directory)) {
+            stream.filter(file -> SEGMENT_NAME.matcher(file.getFileName().toString()).matches()).forEach(files::add);
+        }
+        files.sort(Comparator.comparingLong(CartAppendLog::segmentNumber));
+        return files;
+    }
+
+    private static long segmentNumber(Path file) {
+        Matcher matcher = SEGMENT_NAME.matcher(file.getFileName().toString());
+        return matcher.matches() ? Long.parseLong(matcher.group(1)) : -1;
+    }
+
+    /**
+     * Một thay đổi: đặt số lượng của một sản phẩm (quantity = 0 là xóa dòng) hoặc xóa cả giỏ (productId = null).
+     */
+    public record Entry(Integer userId, Long productId, Long itemId, int quantity) {
+        public static Entry set(Integer userId, Long productId, Long itemId, int quantity) {
+            return new Entry(userId, productId, itemId, quantity);
+        }
+
+        public static Entry clear(Integer userId) {
+            return new Entry(userId, null, null, 0);
+        }
+
+        public boolean isClear() {
+            return productId == null;
+        }
+
+        String format() {
+            // Dấu ';' cuối dòng cho biết dòng được ghi trọn vẹn
+            return (isClear() ? "C " + userId : "S " + userId + " " + productId + " " + itemId + " " + quantity) + ";";
+        }
+
+        static Entry parse(String line) {
+            if (!line.endsWith(";")) {
+                return null;
+            }
+            String[] parts = line.substring(0, line.length() - 1).split(" ");
+            try {
+                if (parts.length == 2 && parts[0].equals("C")) {
+                    return clear(Integer.valueOf(parts[1]));
+                }
+                if (parts.length == 5 && parts[0].equals("S")) {
+                    return set(Integer.valueOf(parts[1]), Long.valueOf(parts[2]), Long.valueOf(parts[3]),
+                            Integer.parseInt(parts[4]));
+                }
+            } catch (NumberFormatException e) {
+                // dòng hỏng
+            }
+            return null;
+        }
+    }
+}
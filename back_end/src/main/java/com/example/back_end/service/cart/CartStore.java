@@ -0,0 +1,592 @@
+package com.example.back_end.service.cart;
+
+import com.example.back_end.exception.AppException;
+import com.example.back_end.exception.ErrorCode;
+import com.example.back_end.service.id.TableIdAllocator;
+import com.example.back_end.service.metrics.LatencyRecorder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Kho giỏ hàng trong bộ nhớ, ghi trễ (write-behind) xuống carts / cart_items.
+ * - Giỏ đang hoạt động nằm trong một map có giới hạn (LRU). Mỗi thay đổi chỉ sửa bộ nhớ và ghi một dòng vào
+ *   {@link CartAppendLog}; bản thân giỏ không được ghi xuống DB trên đường đi của request. (Nơi gọi vẫn có thể
+ *   đọc DB, ví dụ CartService kiểm tra sản phẩm và nạp thông tin sản phẩm để dựng giỏ.)
+ * - Định kỳ, các giỏ đã đổi được ghi xuống DB trong một transaction bằng batch: chỉ ghi phần khác với lần
+ *   ghi trước, nên nhiều lần sửa cùng một dòng giữa hai lần ghi chỉ tạo ra một câu UPDATE.
+ * - Giỏ cũng được ghi ngay khi thanh toán (sau khi đơn hàng commit) và trước khi bị loại khỏi bộ nhớ.
+ * - Khởi động lại sau khi dừng đột ngột: đọc lại nhật ký lên trên dữ liệu trong DB rồi ghi xuống.
+ * - Một giỏ ghi lỗi liên tiếp {@value #MAX_WRITE_ATTEMPTS} lần bị bỏ ra khỏi bộ nhớ (nội dung được ghi vào log lỗi)
+ *   để không giữ lại các đoạn nhật ký mãi mãi; lần truy cập sau nạp lại giỏ từ DB.
+ * Kho giả định mỗi giỏ chỉ được sửa trên một node (chạy một node, hoặc sticky session theo người dùng).
+ */
+@Component
+@Slf4j
+public class CartStore implements SmartInitializingSingleton {
+    // Sản phẩm đã bị xóa khỏi DB: câu INSERT ... SELECT không tạo dòng (thay vì lỗi khóa ngoại làm hỏng cả lô)
+    private static final String UPSERT_ITEM_SQL = "INSERT INTO cart_items (id, cart_id, product_id, quantity) " +
+            "SELECT ?, ?, p.id, ? FROM products p WHERE p.id = ? ON DUPLICATE KEY UPDATE quantity = ?";
+    private static final String DELETE_ITEM_SQL = "DELETE FROM cart_items WHERE id = ?";
+    // Số giỏ tối đa trong một transaction ghi
+    private static final int FLUSH_BATCH_CARTS = 500;
+    // Số lần ghi lỗi liên tiếp trước khi bỏ một giỏ
+    private static final int MAX_WRITE_ATTEMPTS = 5;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate writeTransaction;
+    private final TableIdAllocator itemIds;
+    private final CartAppendLog appendLog;
+    private final int maxCarts;
+    private final long idleMillis;
+
+    // access-order = true => thứ tự LRU; cả hai map được bảo vệ bởi khóa trên carts
+    private final LinkedHashMap<Integer, CartState> carts = new LinkedHashMap<>(256, 0.75f, true);
+    // Giỏ bị loại khỏi carts khi còn thay đổi chưa ghi: giữ lại tới lần ghi kế tiếp
+    private final Map<Integer, CartState> evicting = new HashMap<>();
+    private final Set<CartState> dirty = ConcurrentHashMap.newKeySet();
+    private final Object flushLock = new Object();
+    // Phiên bản giỏ lấy từ một bộ đếm chung khởi đầu theo thời gian: vẫn tăng khi giỏ được nạp lại
+    // (sau khi bị loại khỏi bộ nhớ hoặc khởi động lại), nên không bao giờ trùng với một phiên bản cũ
+    private final AtomicLong versionClock = new AtomicLong(System.currentTimeMillis() << 10);
+
+    private final LongAdder mutations = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder rowsWritten = new LongAdder();
+    private final LongAdder failedFlushes = new LongAdder();
+    private final LongAdder discardedCarts = new LongAdder();
+    private final LatencyRecorder flushLatency = new LatencyRecorder();
+
+    public CartStore(JdbcTemplate jdbcTemplate,
+                     PlatformTransactionManager transactionManager,
+                     @Value("${app.cart.store.log-dir:data/cart-store}") String logDir,
+                     @Value("${app.cart.store.fsync:false}") boolean fsync,
+                     @Value("${app.cart.store.max-carts:10000}") int maxCarts,
+                     @Value("${app.cart.store.idle-minutes:30}") long idleMinutes) {
+        this.jdbcTemplate = jdbcTemplate;
+        // Ghi trong transaction riêng: có thể được gọi từ afterCommit của transaction đặt hàng
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.writeTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.itemIds = new TableIdAllocator(jdbcTemplate, transactionManager, "cart_items", 50);
+        this.appendLog = new CartAppendLog(Path.of(logDir), fsync);
+        this.maxCarts = maxCarts;
+        this.idleMillis = idleMinutes * 60_000;
+    }
+
+    // Đọc lại nhật ký còn lại từ lần chạy trước (trước khi nhận request) và ghi xuống DB
+    @Override
+    public void afterSingletonsInstantiated() {
+        long[] replayed = new long[1];
+        try {
+            appendLog.replay(entry -> {
+                try {
+                    apply(entry);
+                    replayed[0]++;
+                } catch (AppException e) {
+                    if (e.getErrorCode() != ErrorCode.USER_NOT_EXISTED) {
+                        throw e;
+                    }
+                    // Người dùng đã bị xóa kể từ khi ghi nhật ký: không còn giỏ để khôi phục
+                    log.warn("Skipping cart log entry of missing user {}", entry.userId());
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot replay cart log", e);
+        }
+        if (replayed[0] > 0) {
+            log.info("Replayed {} cart changes from the cart log", replayed[0]);
+            flush();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException {
+        flush();
+        appendLog.close();
+    }
+
+    public CartView get(Integer userId) {
+        while (true) {
+            CartState state = acquire(userId);
+            synchronized (state) {
+                if (!state.evicted) {
+                    state.lastAccess = System.currentTimeMillis();
+                    return state.view();
+                }
+            }
+        }
+    }
+
+    /**
+     * Sửa giỏ hàng: thao tác trên một bản sao, nếu edit ném exception thì giỏ không đổi.
+     */
+    public CartView edit(Integer userId, Consumer<Editor> edit) {
+        while (true) {
+            CartState state = acquire(userId);
+            synchronized (state) {
+                if (state.evicted) {
+                    continue;
+                }
+                Editor editor = new Editor(userId, new LinkedHashMap<>(state.lines));
+                edit.accept(editor);
+                if (!editor.entries.isEmpty()) {
+                    // Đánh dấu trước khi ghi nhật ký: nếu flush đóng đoạn chứa các dòng này, giỏ chắc chắn nằm trong
+                    // tập dirty mà flush chụp sau đó (bản chụp chờ khóa của state nên thấy nội dung mới)
+                    markDirty(state);
+                    appendLog.append(editor.entries);
+                    state.lines.clear();
+                    state.lines.putAll(editor.lines);
+                    state.version = versionClock.incrementAndGet();
+                    mutations.add(editor.entries.size());
+                }
+                state.lastAccess = System.currentTimeMillis();
+                return state.view();
+            }
+        }
+    }
+
+    /**
+     * Xóa giỏ sau khi đặt hàng: chỉ khi transaction hiện tại commit (đơn hàng đã được lưu),
+     * rồi ghi ngay giỏ đó xuống DB.
+     */
+    public void clearAfterCommit(Integer userId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            clearAndFlush(userId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                try {
+                    clearAndFlush(userId);
+                } catch (Exception e) {
+                    log.error("Failed to clear cart of user {} after checkout", userId, e);
+                }
+            }
+        });
+    }
+
+    private void clearAndFlush(Integer userId) {
+        edit(userId, Editor::clear);
+        synchronized (flushLock) {
+            CartState state;
+            synchronized (carts) {
+                state = carts.containsKey(userId) ? carts.get(userId) : evicting.get(userId);
+            }
+            if (state != null) {
+                Pending pending = snapshot(state);
+                if (pending != null) {
+                    write(List.of(pending));
+                }
+            }
+        }
+    }
+
+    /**
+     * Ghi các giỏ đã thay đổi xuống DB. Các đoạn nhật ký chỉ bị xóa khi mọi giỏ được ghi thành công
+     * (hoặc bị bỏ sau quá nhiều lần ghi lỗi).
+     */
+    @Scheduled(fixedDelayString = "${app.cart.store.flush-interval-ms:5000}")
+    public void flush() {
+        synchronized (flushLock) {
+            long start = System.nanoTime();
+            long sealed;
+            try {
+                sealed = appendLog.seal();
+            } catch (IOException e) {
+                log.error("Cannot seal cart log segment", e);
+                return;
+            }
+            // Đóng đoạn nhật ký trước rồi mới chụp trạng thái: mọi thay đổi trong các đoạn đã đóng đều có trong bản chụp
+            List<Pending> batch = new ArrayList<>();
+            for (CartState state : new ArrayList<>(dirty)) {
+                Pending pending = snapshot(state);
+                if (pending != null) {
+                    batch.add(pending);
+                }
+            }
+            boolean complete = true;
+            for (int from = 0; from < batch.size(); from += FLUSH_BATCH_CARTS) {
+                complete &= write(batch.subList(from, Math.min(batch.size(), from + FLUSH_BATCH_CARTS)));
+            }
+            if (complete) {
+                try {
+                    appendLog.deleteUpTo(sealed);
+                } catch (IOException e) {
+                    log.warn("Cannot delete flushed cart log segments", e);
+                }
+            }
+            evictIdle();
+            if (!batch.isEmpty()) {
+                flushes.increment();
+                flushLatency.record(System.nanoTime() - start);
+            }
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (carts) {
+            stats.put("carts", carts.size());
+            stats.put("evictingDirty", evicting.size());
+        }
+        stats.put("dirty", dirty.size());
+        stats.put("mutations", mutations.sum());
+        stats.put("loads", loads.sum());
+        stats.put("flushes", flushes.sum());
+        stats.put("rowsWritten", rowsWritten.sum());
+        stats.put("failedFlushes", failedFlushes.sum());
+        stats.put("discardedCarts", discardedCarts.sum());
+        stats.put("flushLatency", flushLatency.getStats());
+        return stats;
+    }
+
+    private CartState acquire(Integer userId) {
+        synchronized (carts) {
+            CartState state = lookup(userId);
+            if (state != null) {
+                return state;
+            }
+        }
+        CartState loaded = load(userId);
+        synchronized (carts) {
+            CartState state = lookup(userId);
+            if (state != null) {
+                return state;
+            }
+            carts.put(userId, loaded);
+            evictOverflow();
+            return loaded;
+        }
+    }
+
+    // Gọi khi đang giữ khóa carts
+    private CartState lookup(Integer userId) {
+        CartState state = carts.get(userId);
+        if (state == null) {
+            state = evicting.remove(userId);
+            if (state != null) {
+                carts.put(userId, state);
+            }
+        }
+        return state;
+    }
+
+    private CartState load(Integer userId) {
+        loads.increment();
+        Long cartId = findCartId(userId);
+        if (cartId == null) {
+            jdbcTemplate.update("INSERT IGNORE INTO carts (user_id) VALUES (?)", userId);
+            cartId = findCartId(userId);
+            if (cartId == null) {
+                throw new AppException(ErrorCode.USER_NOT_EXISTED);
+            }
+        }
+        CartState state = new CartState(userId, cartId);
+        jdbcTemplate.query("SELECT id, product_id, quantity FROM cart_items WHERE cart_id = ? ORDER BY id", rs -> {
+            long itemId = rs.getLong(1);
+            long productId = rs.getLong(2);
+            int quantity = rs.getInt(3);
+            state.persisted.put(itemId, quantity);
+            // Dữ liệu cũ có thể có nhiều dòng cho cùng sản phẩm: gộp vào dòng đầu, lần ghi sau xóa các dòng thừa
+            Line existing = state.lines.get(productId);
+            if (existing != null) {
+                state.lines.put(productId, new Line(existing.itemId(), productId, existing.quantity() + quantity));
+                markDirty(state);
+            } else {
+                state.lines.put(productId, new Line(itemId, productId, quantity));
+            }
+        }, cartId);
+        state.version = versionClock.incrementAndGet();
+        state.lastAccess = System.currentTimeMillis();
+        return state;
+    }
+
+    private Long findCartId(Integer userId) {
+        List<Long> ids = jdbcTemplate.queryForList("SELECT id FROM carts WHERE user_id = ?", Long.class, userId);
+        return ids.isEmpty() ? null : ids.get(0);
+    }
+
+    private void apply(CartAppendLog.Entry entry) {
+        CartState state = acquire(entry.userId());
+        synchronized (state) {
+            if (entry.isClear()) {
+                state.lines.clear();
+            } else if (entry.quantity() <= 0) {
+                state.lines.remove(entry.productId());
+            } else {
+                state.lines.put(entry.productId(), new Line(entry.itemId(), entry.productId(), entry.quantity()));
+            }
+            state.version = versionClock.incrementAndGet();
+            markDirty(state);
+        }
+    }
+
+    // Gọi khi đang giữ khóa của state
+    private void markDirty(CartState state) {
+        state.dirty = true;
+        dirty.add(state);
+    }
+
+    // Chụp phần khác nhau giữa bộ nhớ và DB của một giỏ; null nếu không có gì để ghi
+    private Pending snapshot(CartState state) {
+        synchronized (state) {
+            if (!state.dirty) {
+                return null;
+            }
+            state.dirty = false;
+            dirty.remove(state);
+            Map<Long, Integer> target = new HashMap<>();
+            List<Object[]> upserts = new ArrayList<>();
+            for (Line line : state.lines.values()) {
+                target.put(line.itemId(), line.quantity());
+                if (!Integer.valueOf(line.quantity()).equals(state.persisted.get(line.itemId()))) {
+                    upserts.add(new Object[]{line.itemId(), state.cartId, line.quantity(), line.productId(), line.quantity()});
+                }
+            }
+            List<Object[]> deletes = new ArrayList<>();
+            for (Long itemId : state.persisted.keySet()) {
+                if (!target.containsKey(itemId)) {
+                    deletes.add(new Object[]{itemId});
+                }
+            }
+            return new Pending(state, upserts, deletes, target);
+        }
+    }
+
+    // Ghi cả lô trong một transaction; lỗi thì ghi lại từng giỏ để một giỏ hỏng không chặn các giỏ khác.
+    // true nếu không còn giỏ nào của lô chờ ghi lại
+    private boolean write(List<Pending> batch) {
+        try {
+            writeTransaction.executeWithoutResult(status -> batch.forEach(this::writeRows));
+            batch.forEach(this::persisted);
+            return true;
+        } catch (RuntimeException batchError) {
+            if (batch.size() == 1) {
+                return !failed(batch.get(0), batchError);
+            }
+            boolean complete = true;
+            for (Pending pending : batch) {
+                try {
+                    writeTransaction.executeWithoutResult(status -> writeRows(pending));
+                    persisted(pending);
+                } catch (RuntimeException e) {
+                    complete &= !failed(pending, e);
+                }
+            }
+            return complete;
+        }
+    }
+
+    private void writeRows(Pending pending) {
+        if (!pending.upserts().isEmpty()) {
+            jdbcTemplate.batchUpdate(UPSERT_ITEM_SQL, pending.upserts());
+        }
+        if (!pending.deletes().isEmpty()) {
+            jdbcTemplate.batchUpdate(DELETE_ITEM_SQL, pending.deletes());
+        }
+    }
+
+    private void persisted(Pending pending) {
+        CartState state = pending.state();
+        synchronized (state) {
+            state.persisted = pending.target();
+            state.failedWrites = 0;
+        }
+        rowsWritten.add(pending.upserts().size() + pending.deletes().size());
+        synchronized (carts) {
+            synchronized (state) {
+                if (!state.dirty && evicting.get(state.userId) == state) {
+                    evicting.remove(state.userId);
+                }
+            }
+        }
+    }
+
+    // true nếu giỏ sẽ được ghi lại ở lần flush sau; false nếu giỏ bị bỏ
+    private boolean failed(Pending pending, RuntimeException e) {
+        failedFlushes.increment();
+        CartState state = pending.state();
+        synchronized (state) {
+            if (++state.failedWrites < MAX_WRITE_ATTEMPTS) {
+                log.error("Failed to write cart {} of user {}, retrying on the next flush",
+                        state.cartId, state.userId, e);
+                markDirty(state);
+                return true;
+            }
+        }
+        discard(state, e);
+        return false;
+    }
+
+    // Bỏ giỏ không ghi được khỏi bộ nhớ; nội dung chưa ghi nằm trong log lỗi để khôi phục bằng tay
+    private void discard(CartState state, RuntimeException e) {
+        synchronized (carts) {
+            synchronized (state) {
+                log.error("Giving up on cart {} of user {} after {} failed writes, unsaved lines: {}",
+                        state.cartId, state.userId, state.failedWrites, state.lines.values(), e);
+                discardedCarts.increment();
+                state.evicted = true;
+                state.dirty = false;
+                dirty.remove(state);
+                if (carts.get(state.userId) == state) {
+                    carts.remove(state.userId);
+                }
+                if (evicting.get(state.userId) == state) {
+                    evicting.remove(state.userId);
+                }
+            }
+        }
+    }
+
+    // Gọi khi đang giữ khóa carts
+    private void evictOverflow() {
+        Iterator<CartState> iterator = carts.values().iterator();
+        while (carts.size() > maxCarts && iterator.hasNext()) {
+            CartState eldest = iterator.next();
+            iterator.remove();
+            synchronized (eldest) {
+                if (eldest.dirty) {
+                    evicting.put(eldest.userId, eldest);
+                } else {
+                    eldest.evicted = true;
+                }
+            }
+        }
+    }
+
+    private void evictIdle() {
+        long cutoff = System.currentTimeMillis() - idleMillis;
+        synchronized (carts) {
+            Iterator<CartState> iterator = carts.values().iterator();
+            while (iterator.hasNext()) {
+                CartState state = iterator.next();
+                synchronized (state) {
+                    if (!state.dirty && state.lastAccess < cutoff) {
+                        state.evicted = true;
+                        iterator.remove();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Các thao tác trên bản sao của giỏ; mỗi thay đổi được ghi lại thành một dòng nhật ký.
+     */
+    public final class Editor {
+        private final Integer userId;
+        private final LinkedHashMap<Long, Line> lines;
+        private final List<CartAppendLog.Entry> entries = new ArrayList<>();
+
+        private Editor(Integer userId, LinkedHashMap<Long, Line> lines) {
+            this.userId = userId;
+            this.lines = lines;
+        }
+
+        public Collection<Line> lines() {
+            return Collections.unmodifiableCollection(lines.values());
+        }
+
+        public Line find(Long productId) {
+            return lines.get(productId);
+        }
+
+        public Line findByItemId(Long itemId) {
+            for (Line line : lines.values()) {
+                if (line.itemId().equals(itemId)) {
+                    return line;
+                }
+            }
+            return null;
+        }
+
+        // quantity <= 0: xóa dòng
+        public void set(Long productId, int quantity) {
+            Line existing = lines.get(productId);
+            if (quantity <= 0) {
+                remove(productId);
+                return;
+            }
+            if (existing != null && existing.quantity() == quantity) {
+                return;
+            }
+            Long itemId = existing != null ? existing.itemId() : itemIds.nextId();
+            lines.put(productId, new Line(itemId, productId, quantity));
+            entries.add(CartAppendLog.Entry.set(userId, productId, itemId, quantity));
+        }
+
+        public void remove(Long productId) {
+            Line removed = lines.remove(productId);
+            if (removed != null) {
+                entries.add(CartAppendLog.Entry.set(userId, productId, removed.itemId(), 0));
+            }
+        }
+
+        public void clear() {
+            if (!lines.isEmpty()) {
+                lines.clear();
+                entries.add(CartAppendLog.Entry.clear(userId));
+            }
+        }
+    }
+
+    public record Line(Long itemId, Long productId, int quantity) {
+    }
+
+    public record CartView(Long cartId, long version, List<Line> lines) {
+    }
+
+    private static final class CartState {
+        private final Integer userId;
+        private final Long cartId;
+        // productId -> dòng, theo thứ tự thêm vào giỏ
+        private final LinkedHashMap<Long, Line> lines = new LinkedHashMap<>();
+        // itemId -> số lượng đang nằm trong DB
+        private Map<Long, Integer> persisted = new HashMap<>();
+        private long version;
+        private boolean dirty;
+        private boolean evicted;
+        private long lastAccess;
+        private int failedWrites;
+
+        private CartState(Integer userId, Long cartId) {
+            this.userId = userId;
+            this.cartId = cartId;
+        }
+
+        private CartView view() {
+            return new CartView(cartId, version, List.copyOf(lines.values()));
+        }
+    }
+
+    private record Pending(CartState state, List<Object[]> upserts, List<Object[]> deletes, Map<Long, Integer> target) {
+    }
+}
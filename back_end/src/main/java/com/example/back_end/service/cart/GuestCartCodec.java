@@ -0,0 +1,143 @@
+package com.example.back_end.service.cart;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayOutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Mã hóa giỏ hàng của khách (chưa đăng nhập) thành một chuỗi ngắn có chữ ký, giữ ở phía client.
+ * Định dạng: base64url( phiên bản | thời điểm phát hành | số dòng | (productId, số lượng)... | tag ),
+ * các số được ghi dạng varint; tag là 16 byte đầu của HMAC-SHA256 trên phần trước nó.
+ * Server không lưu gì: mọi thông tin nằm trong chuỗi, chữ ký ngăn client sửa nội dung.
+ */
+public class GuestCartCodec {
+    private static final int VERSION = 1;
+    private static final int TAG_LENGTH = 16;
+
+    private final SecretKeySpec key;
+    private final long ttlSeconds;
+    private final int maxLines;
+
+    public GuestCartCodec(byte[] keyMaterial, long ttlSeconds, int maxLines) {
+        this.key = new SecretKeySpec(Arrays.copyOf(keyMaterial, 32), "HmacSHA256");
+        this.ttlSeconds = ttlSeconds;
+        this.maxLines = maxLines;
+    }
+
+    public int maxLines() {
+        return maxLines;
+    }
+
+    /**
+     * @param lines productId -> số lượng, theo thứ tự thêm vào giỏ
+     */
+    public String encode(Map<Long, Integer> lines, long nowSeconds) {
+        if (lines.size() > maxLines) {
+            throw new IllegalArgumentException("Guest cart has too many lines");
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 + lines.size() * 6);
+        writeVarint(out, VERSION);
+        writeVarint(out, nowSeconds);
+        writeVarint(out, lines.size());
+        lines.forEach((productId, quantity) -> {
+            writeVarint(out, productId);
+            writeVarint(out, quantity);
+        });
+        byte[] body = out.toByteArray();
+        byte[] token = Arrays.copyOf(body, body.length + TAG_LENGTH);
+        System.arraycopy(tag(body), 0, token, body.length, TAG_LENGTH);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token);
+    }
+
+    /**
+     * Giải mã và kiểm tra chữ ký, hạn dùng. Chuỗi rỗng là giỏ trống.
+     * @throws IllegalArgumentException nếu chuỗi bị sửa, hỏng hoặc đã hết hạn
+     */
+    public LinkedHashMap<Long, Integer> decode(String token, long nowSeconds) {
+        LinkedHashMap<Long, Integer> lines = new LinkedHashMap<>();
+        if (token == null || token.isBlank()) {
+            return lines;
+        }
+        byte[] raw;
+        try {
+            raw = Base64.getUrlDecoder().decode(token.trim());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Malformed guest cart token");
+        }
+        if (raw.length <= TAG_LENGTH) {
+            throw new IllegalArgumentException("Malformed guest cart token");
+        }
+        byte[] body = Arrays.copyOf(raw, raw.length - TAG_LENGTH);
+        byte[] expected = Arrays.copyOf(tag(body), TAG_LENGTH);
+        if (!MessageDigest.isEqual(expected, Arrays.copyOfRange(raw, body.length, raw.length))) {
+            throw new IllegalArgumentException("Invalid guest cart signature");
+        }
+
+        ByteBuffer in = ByteBuffer.wrap(body);
+        try {
+            if (readVarint(in) != VERSION) {
+                throw new IllegalArgumentException("Unsupported guest cart version");
+            }
+            long issuedAt = readVarint(in);
+            if (issuedAt + ttlSeconds < nowSeconds) {
+                throw new IllegalArgumentException("Guest cart token has expired");
+            }
+            long count = readVarint(in);
+            if (count > maxLines) {
+                throw new IllegalArgumentException("Guest cart has too many lines");
+            }
+            for (long i = 0; i < count; i++) {
+                long productId = readVarint(in);
+                long quantity = readVarint(in);
+                if (quantity <= 0 || quantity > Integer.MAX_VALUE) {
+                    throw new IllegalArgumentException("Invalid guest cart quantity");
+                }
+                lines.put(productId, (int) quantity);
+            }
+            if (in.hasRemaining()) {
+                throw new IllegalArgumentException("Malformed guest cart token");
+            }
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Malformed guest cart token");
+        }
+        return lines;
+    }
+
+    private byte[] tag(byte[] body) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(key);
+            return mac.doFinal(body);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarint(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed guest cart token");
+    }
+}
@@ -0,0 +1,234 @@
+package com.example.back_end.service.facet;
+
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Chỉ mục facet trong bộ nhớ: mỗi giá trị thuộc tính (brand=Apple, color=Đen...) giữ một RoaringBitmap
+ * các id tài liệu. Lọc = AND giữa các facet, OR giữa các giá trị trong cùng facet;
+ * đếm facet = lực lượng của phép giao bitmap, không cần GROUP BY.
+ * An toàn đa luồng: truy vấn dùng read lock, cập nhật tài liệu dùng write lock.
+ */
+public class FacetIndex {
+    private final List<String> facets;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // facet -> (giá trị -> bitmap id tài liệu)
+    private final Map<String, Map<String, RoaringBitmap>> bitmaps = new HashMap<>();
+    private final Map<Integer, Document> documents = new HashMap<>();
+    private final RoaringBitmap all = new RoaringBitmap();
+
+    public FacetIndex(List<String> facets) {
+        this.facets = List.copyOf(facets);
+        for (String facet : this.facets) {
+            bitmaps.put(facet, new HashMap<>());
+        }
+    }
+
+    /**
+     * @param values   facet -> giá trị (null hoặc rỗng = không có giá trị cho facet đó)
+     * @param sortKey  khóa sắp xếp phụ (ví dụ giá), dùng khi truy vấn sắp xếp theo khóa thay vì id
+     */
+    public void put(int docId, Map<String, String> values, long sortKey) {
+        String[] docValues = new String[facets.size()];
+        for (int i = 0; i < facets.size(); i++) {
+            String value = values.get(facets.get(i));
+            docValues[i] = value == null || value.isBlank() ? null : value.trim();
+        }
+
+        lock.writeLock().lock();
+        try {
+            removeInternal(docId);
+            for (int i = 0; i < facets.size(); i++) {
+                if (docValues[i] != null) {
+                    bitmaps.get(facets.get(i)).computeIfAbsent(docValues[i], v -> new RoaringBitmap()).add(docId);
+                }
+            }
+            all.add(docId);
+            documents.put(docId, new Document(docValues, sortKey));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int docId) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(docId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            bitmaps.values().forEach(Map::clear);
+            documents.clear();
+            all.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Lọc theo các giá trị đã chọn và đếm số tài liệu cho từng giá trị của mọi facet.
+     * Số đếm của một facet được tính với bộ lọc của các facet KHÁC (disjunctive faceting),
+     * để người dùng vẫn thấy các lựa chọn thay thế trong facet đang chọn.
+     *
+     * @param filters    facet -> các giá trị được chọn (OR); facet vắng mặt hoặc rỗng = không lọc
+     * @param bySortKey  true = sắp xếp theo sortKey rồi id, false = theo id
+     */
+    public Result query(Map<String, ? extends Collection<String>> filters, boolean bySortKey, boolean descending,
+                        int offset, int limit) {
+        lock.readLock().lock();
+        try {
+            Map<String, RoaringBitmap> selected = new LinkedHashMap<>();
+            for (String facet : facets) {
+                Collection<String> values = filters.get(facet);
+                if (values != null && !values.isEmpty()) {
+                    selected.put(facet, union(facet, values));
+                }
+            }
+
+            RoaringBitmap matches = intersect(selected, null);
+            Map<String, Map<String, Integer>> counts = new LinkedHashMap<>();
+            for (String facet : facets) {
+                counts.put(facet, countValues(facet, intersect(selected, facet)));
+            }
+
+            int total = matches.getCardinality();
+            List<Integer> page = bySortKey
+                    ? pageBySortKey(matches, descending, offset, limit)
+                    : pageById(matches, total, descending, offset, limit);
+            return new Result(page, total, counts);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private RoaringBitmap union(String facet, Collection<String> values) {
+        Map<String, RoaringBitmap> byValue = bitmaps.get(facet);
+        RoaringBitmap result = new RoaringBitmap();
+        for (String value : values) {
+            RoaringBitmap bitmap = byValue.get(value);
+            if (bitmap != null) {
+                result.or(bitmap);
+            }
+        }
+        return result;
+    }
+
+    // Giao của tất cả bộ lọc, bỏ qua facet {@code excluded} (null = không bỏ qua facet nào)
+    private RoaringBitmap intersect(Map<String, RoaringBitmap> selected, String excluded) {
+        RoaringBitmap result = null;
+        for (Map.Entry<String, RoaringBitmap> entry : selected.entrySet()) {
+            if (entry.getKey().equals(excluded)) {
+                continue;
+            }
+            result = result == null ? RoaringBitmap.and(all, entry.getValue()) : RoaringBitmap.and(result, entry.getValue());
+        }
+        return result == null ? all : result;
+    }
+
+    private Map<String, Integer> countValues(String facet, RoaringBitmap base) {
+        List<Map.Entry<String, Integer>> entries = new ArrayList<>();
+        for (Map.Entry<String, RoaringBitmap> value : bitmaps.get(facet).entrySet()) {
+            int count = base == all
+                    ? value.getValue().getCardinality()
+                    : RoaringBitmap.andCardinality(base, value.getValue());
+            if (count > 0) {
+                entries.add(Map.entry(value.getKey(), count));
+            }
+        }
+        entries.sort(Map.Entry.<String, Integer>comparingByValue().reversed().thenComparing(Map.Entry.<String, Integer>comparingByKey()));
+        Map<String, Integer> result = new LinkedHashMap<>();
+        entries.forEach(entry -> result.put(entry.getKey(), entry.getValue()));
+        return result;
+    }
+
+    // Bitmap đã được sắp theo id: lấy phần tử thứ k bằng select() mà không cần duyệt toàn bộ
+    private static List<Integer> pageById(RoaringBitmap matches, int total, boolean descending, int offset, int limit) {
+        int end = Math.min(total, offset + limit);
+        List<Integer> page = new ArrayList<>(Math.max(0, end - offset));
+        for (int rank = offset; rank < end; rank++) {
+            page.add(matches.select(descending ? total - 1 - rank : rank));
+        }
+        return page;
+    }
+
+    // Top-k theo sortKey bằng heap kích thước offset + limit: O(n log k) thay vì sắp xếp toàn bộ kết quả
+    private List<Integer> pageBySortKey(RoaringBitmap matches, boolean descending, int offset, int limit) {
+        int k = offset + limit;
+        if (k <= 0) {
+            return List.of();
+        }
+        Comparator<Integer> order = Comparator.<Integer>comparingLong(id -> documents.get(id).sortKey)
+                .thenComparingInt(id -> id);
+        if (descending) {
+            order = order.reversed();
+        }
+        // Heap giữ k phần tử "tốt nhất"; phần tử ở đỉnh là phần tử kém nhất trong số đó
+        PriorityQueue<Integer> heap = new PriorityQueue<>(k, order.reversed());
+        for (int id : matches) {
+            heap.offer(id);
+            if (heap.size() > k) {
+                heap.poll();
+            }
+        }
+        List<Integer> top = new ArrayList<>(heap);
+        top.sort(order);
+        return offset >= top.size() ? List.of() : top.subList(offset, top.size());
+    }
+
+    private void removeInternal(int docId) {
+        Document existing = documents.remove(docId);
+        if (existing == null) {
+            return;
+        }
+        all.remove(docId);
+        for (int i = 0; i < facets.size(); i++) {
+            String value = existing.values[i];
+            if (value == null) {
+                continue;
+            }
+            Map<String, RoaringBitmap> byValue = bitmaps.get(facets.get(i));
+            RoaringBitmap bitmap = byValue.get(value);
+            if (bitmap != null) {
+                bitmap.remove(docId);
+                if (bitmap.isEmpty()) {
+                    byValue.remove(value);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param ids    id tài liệu của trang được yêu cầu, đúng thứ tự
+     * @param total  tổng số tài liệu khớp bộ lọc
+     * @param counts facet -> (giá trị -> số tài liệu), giảm dần theo số lượng
+     */
+    public record Result(List<Integer> ids, int total, Map<String, Map<String, Integer>> counts) {
+    }
+
+    private record Document(String[] values, long sortKey) {
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.back_end.service.facet;
+
+import com.example.back_end.dto.ProductFacetDocument;
+import com.example.back_end.event.ProductChangedEvent;
+import com.example.back_end.repositories.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Chỉ mục facet của sản phẩm (danh mục, thương hiệu, màu, chất liệu, khoảng giá), chỉ gồm sản phẩm đang bán
+ * (active = true, như các endpoint danh sách). Được xây dựng khi ứng dụng khởi động và cập nhật từng sản phẩm qua {@link ProductChangedEvent}.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductFacetIndex {
+    public static final String CATEGORY = "category";
+    public static final String BRAND = "brand";
+    public static final String COLOR = "color";
+    public static final String MATERIAL = "material";
+    public static final String PRICE_BAND = "priceBand";
+    public static final List<String> FACETS = List.of(CATEGORY, BRAND, COLOR, MATERIAL, PRICE_BAND);
+
+    private static final int BATCH_SIZE = 2000;
+    // Ranh giới các khoảng giá (VND), khoảng cuối cùng không có cận trên
+    private static final long[] PRICE_BAND_BOUNDS = {2_000_000L, 5_000_000L, 10_000_000L, 20_000_000L};
+    private static final List<String> PRICE_BANDS = priceBandLabels();
+
+    private final ProductRepository productRepository;
+    private final FacetIndex index = new FacetIndex(FACETS);
+    private volatile boolean ready;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        try {
+            index.clear();
+            long lastId = 0;
+            List<ProductFacetDocument> batch;
+            do {
+                batch = productRepository.findFacetDocumentsAfter(lastId, PageRequest.of(0, BATCH_SIZE));
+                for (ProductFacetDocument document : batch) {
+                    put(document);
+                    lastId = document.getId();
+                }
+            } while (batch.size() == BATCH_SIZE);
+            ready = true;
+            log.info("Product facet index built: {} products in {} ms", index.size(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            // Không chặn ứng dụng khởi động; endpoint lọc facet sẽ báo lỗi cho đến khi chỉ mục sẵn sàng
+            log.error("Failed to build product facet index", e);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.isStockOnly()) {
+            return; // tồn kho không phải là facet
+        }
+        refresh(event.getProductIds());
+    }
+
+    public void refresh(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        Set<Long> missing = new HashSet<>(productIds);
+        for (ProductFacetDocument document : productRepository.findFacetDocumentsByIds(productIds)) {
+            put(document);
+            missing.remove(document.getId());
+        }
+        // Sản phẩm đã xóa hoặc ngừng bán bị gỡ khỏi chỉ mục
+        for (Long id : missing) {
+            if (id <= Integer.MAX_VALUE) {
+                index.remove(id.intValue());
+            }
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * @param filters   facet -> các giá trị được chọn
+     * @param byPrice   true = sắp xếp theo giá, false = theo id
+     */
+    public FacetIndex.Result query(Map<String, ? extends Collection<String>> filters, boolean byPrice, boolean descending,
+                                   int offset, int limit) {
+        FacetIndex.Result result = index.query(filters, byPrice, descending, offset, limit);
+        // Khoảng giá hiển thị theo thứ tự tăng dần thay vì theo số lượng
+        Map<String, Integer> bandCounts = result.counts().get(PRICE_BAND);
+        Map<String, Integer> ordered = new LinkedHashMap<>();
+        for (String band : PRICE_BANDS) {
+            if (bandCounts.containsKey(band)) {
+                ordered.put(band, bandCounts.get(band));
+            }
+        }
+        result.counts().put(PRICE_BAND, ordered);
+        return result;
+    }
+
+    private void put(ProductFacetDocument document) {
+        if (document.getId() > Integer.MAX_VALUE) {
+            log.warn("Product {} id exceeds bitmap range, skipped in facet index", document.getId());
+            return;
+        }
+        Map<String, String> values = new LinkedHashMap<>();
+        values.put(CATEGORY, document.getCategoryName());
+        values.put(BRAND, document.getBrand());
+        values.put(COLOR, document.getColor());
+        values.put(MATERIAL, document.getMaterial());
+        values.put(PRICE_BAND, priceBand(document.getPrice()));
+        long priceKey = document.getPrice() == null ? 0 : document.getPrice().movePointRight(2).longValue();
+        index.put(document.getId().intValue(), values, priceKey);
+    }
+
+    static String priceBand(BigDecimal price) {
+        if (price == null) {
+            return null;
+        }
+        long value = price.longValue();
+        for (int i = 0; i < PRICE_BAND_BOUNDS.length; i++) {
+            if (value < PRICE_BAND_BOUNDS[i]) {
+                return PRICE_BANDS.get(i);
+            }
+        }
+        return PRICE_BANDS.get(PRICE_BANDS.size() - 1);
+    }
+
+    // "0-2000000", "2000000-5000000", ..., "20000000+"
+    private static List<String> priceBandLabels() {
+        List<String> labels = new ArrayList<>();
+        long lower = 0;
+        for (long upper : PRICE_BAND_BOUNDS) {
+            labels.add(lower + "-" + upper);
+            lower = upper;
+        }
+        labels.add(lower + "+");
+        return List.copyOf(labels);
+    }
+}
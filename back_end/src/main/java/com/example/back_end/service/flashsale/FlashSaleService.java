@@ -0,0 +1,426 @@
+package com.example.back_end.service.flashsale;
+
+import com.example.back_end.dto.request.CreateDirectOrderRequest;
+import com.example.back_end.entity.Order;
+import com.example.back_end.entity.Product;
+import com.example.back_end.event.ProductChangedEvent;
+import com.example.back_end.exception.AppException;
+import com.example.back_end.exception.ErrorCode;
+import com.example.back_end.repositories.ProductRepository;
+import com.example.back_end.service.InventoryService;
+import com.example.back_end.service.OrderService;
+import com.example.back_end.service.metrics.LatencyRecorder;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Chế độ flash sale cho các sản phẩm được đánh dấu (products.flash_sale).
+ * - Cấp hàng bằng bộ đếm phân stripe trong bộ nhớ: yêu cầu hết hàng bị từ chối ngay, không mở transaction.
+ * - Đơn đã được cấp hàng xếp hàng đợi; một luồng ghi gom nhiều đơn vào một transaction và trừ tồn kho của
+ *   cả lô bằng một câu UPDATE có điều kiện cho mỗi sản phẩm, nên dòng products đang "nóng" chỉ bị khóa
+ *   một lần cho cả lô.
+ * - Tồn kho trong DB chỉ bị trừ khi lô được commit (cùng transaction với đơn), nên DB luôn là nguồn đúng.
+ *   Bộ đếm = stock đã commit - số hàng đã cấp nhưng chưa commit; được đối chiếu lại khi khởi động và sau mỗi
+ *   thay đổi tồn kho không do flash sale ghi (đặt từ giỏ, hủy đơn, hết hạn giữ hàng, nhập hàng).
+ * - Khách chỉ nhận kết quả chắc chắn: đơn đã commit, hoặc lỗi. Đơn chờ quá hạn mà luồng ghi chưa lấy thì bị
+ *   hủy và trả hàng; đơn đã nằm trong lô đang ghi thì chờ lô kết thúc. Khi ứng dụng dừng đột ngột, đơn chưa
+ *   commit không trừ kho và chưa từng được báo thành công. UPDATE có điều kiện vẫn là chốt chặn cuối cùng.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class FlashSaleService {
+    private static final int QUEUED = 0;
+    private static final int WRITING = 1;
+    private static final int CANCELLED = 2;
+
+    private final ProductRepository productRepository;
+    private final OrderService orderService;
+    private final InventoryService inventoryService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${app.flash-sale.stripes:0}")
+    private int stripes;
+
+    @Value("${app.flash-sale.batch-size:200}")
+    private int batchSize;
+
+    @Value("${app.flash-sale.order-timeout-ms:5000}")
+    private long orderTimeoutMs;
+
+    private final Map<Long, Sale> sales = new ConcurrentHashMap<>();
+    private final LinkedBlockingQueue<PendingOrder> queue = new LinkedBlockingQueue<>();
+    // Đối chiếu bộ đếm và commit của một lô không chạy xen nhau: đối chiếu luôn thấy stock và pendingUnits
+    // cùng trước hoặc cùng sau commit
+    private final ReentrantLock reconcileLock = new ReentrantLock();
+
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder reconciled = new LongAdder();
+    private final LatencyRecorder batchLatency = new LatencyRecorder();
+
+    private volatile boolean running;
+    private volatile Thread writer;
+
+    // Đối chiếu khi khởi động: nạp bộ đếm từ tồn kho đã commit trong DB rồi mới nhận đơn
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        for (Long productId : productRepository.findFlashSaleProductIds()) {
+            load(productId);
+        }
+        running = true;
+        writer = new Thread(this::writeLoop, "flash-sale-writer");
+        writer.setDaemon(true);
+        writer.start();
+        log.info("Flash sale mode ready for {} products", sales.size());
+    }
+
+    // Dừng nhận đơn và ghi nốt các đơn còn trong hàng đợi
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (writer != null) {
+            writer.interrupt();
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+
+    public boolean handles(CreateDirectOrderRequest request) {
+        if (sales.isEmpty() || request.getItems() == null) {
+            return false;
+        }
+        return request.getItems().stream().anyMatch(item -> sales.containsKey(item.getProductId()));
+    }
+
+    /**
+     * Đặt mua trực tiếp một sản phẩm flash sale. Chờ lô chứa đơn được commit rồi trả về đơn đã lưu.
+     */
+    public Order createDirectOrder(String username, CreateDirectOrderRequest request) {
+        if (request.getItems().size() != 1) {
+            throw new RuntimeException("Flash sale products must be ordered separately");
+        }
+        CreateDirectOrderRequest.OrderItemRequest item = request.getItems().get(0);
+        Sale sale = sales.get(item.getProductId());
+        if (sale == null || !running) {
+            return orderService.createDirectOrder(username, request);
+        }
+
+        if (item.getQuantity() == null || item.getQuantity() <= 0) {
+            throw new AppException(ErrorCode.INVALID_QUANTITY);
+        }
+        int quantity = item.getQuantity();
+        // Tính vào phần đang chờ trước khi lấy hàng: đối chiếu chạy chen giữa chỉ có thể đếm thiếu, không đếm thừa
+        sale.pendingUnits.addAndGet(quantity);
+        if (!sale.counter.tryAcquire(quantity)) {
+            sale.pendingUnits.addAndGet(-quantity);
+            rejected.increment();
+            throw new RuntimeException("Insufficient stock for product: " + sale.name);
+        }
+        admitted.increment();
+
+        PendingOrder pending = new PendingOrder(username, request, sale, quantity,
+                new AtomicInteger(QUEUED), new CompletableFuture<>());
+        queue.add(pending);
+        return await(pending);
+    }
+
+    /**
+     * Bật flash sale cho sản phẩm: đánh dấu trong DB và nạp bộ đếm từ tồn kho hiện tại.
+     */
+    public void enable(Long productId) {
+        setFlag(productId, true);
+        load(productId);
+    }
+
+    /**
+     * Tắt flash sale: đơn mới đi theo luồng thường, các đơn đã được cấp hàng vẫn được ghi bình thường.
+     */
+    public void disable(Long productId) {
+        setFlag(productId, false);
+        sales.remove(productId);
+    }
+
+    /**
+     * Sản phẩm bị sửa (ẩn sản phẩm, đổi tên...): nạp lại cả thông tin. Tồn kho đổi ngoài flash sale (đặt từ giỏ,
+     * hủy đơn, hết hạn giữ hàng...): đối chiếu bộ đếm với DB. Lô của chính luồng ghi đã được trừ khỏi bộ đếm
+     * từ lúc cấp hàng nên bỏ qua.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        boolean stockOnly = event.isStockOnly();
+        if (stockOnly && Thread.currentThread() == writer) {
+            return;
+        }
+        for (Long productId : event.getProductIds()) {
+            if (!sales.containsKey(productId)) {
+                continue;
+            }
+            if (stockOnly) {
+                reconcile(productId);
+            } else {
+                load(productId);
+            }
+        }
+    }
+
+    public List<Map<String, Object>> getSales() {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (Sale sale : sales.values()) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("productId", sale.productId);
+            entry.put("name", sale.name);
+            entry.put("available", sale.counter.available());
+            entry.put("pendingUnits", sale.pendingUnits.get());
+            result.add(entry);
+        }
+        return result;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("activeProducts", sales.size());
+        stats.put("admitted", admitted.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("cancelled", cancelled.sum());
+        stats.put("failed", failed.sum());
+        stats.put("queued", queue.size());
+        stats.put("batches", batches.sum());
+        stats.put("reconciled", reconciled.sum());
+        stats.put("batchLatency", batchLatency.getStats());
+        return stats;
+    }
+
+    private Order await(PendingOrder pending) {
+        try {
+            try {
+                return pending.result.get(orderTimeoutMs, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (pending.state.compareAndSet(QUEUED, CANCELLED)) {
+                    // Luồng ghi chưa lấy đơn: hủy và trả hàng, khách nhận lỗi rõ ràng thay vì đơn "đang xử lý"
+                    giveBack(pending);
+                    cancelled.increment();
+                    throw new RuntimeException("Flash sale is busy, please try again");
+                }
+                // Đơn đã nằm trong lô đang ghi: chờ transaction của lô kết thúc để trả kết quả chắc chắn
+                return pending.result.get();
+            }
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException runtime ? runtime : new RuntimeException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (pending.state.compareAndSet(QUEUED, CANCELLED)) {
+                giveBack(pending);
+                cancelled.increment();
+            }
+            throw new RuntimeException("Order was interrupted, please check your orders");
+        }
+    }
+
+    private void load(Long productId) {
+        Product product = productRepository.findById(productId).orElse(null);
+        if (product == null || !Boolean.TRUE.equals(product.getFlashSale()) || !Boolean.TRUE.equals(product.getActive())) {
+            sales.remove(productId);
+            return;
+        }
+        reconcileLock.lock();
+        try {
+            // Giữ nguyên bộ đếm và phần đang chờ của sản phẩm đang bán, chỉ chỉnh số hàng còn lại
+            Sale existing = sales.get(productId);
+            Sale sale = existing != null
+                    ? new Sale(productId, product.getName(), existing.counter, existing.pendingUnits)
+                    : new Sale(productId, product.getName(), new StripedStockCounter(0, stripeCount()), new AtomicInteger());
+            sales.put(productId, sale);
+            reconcile(sale);
+        } finally {
+            reconcileLock.unlock();
+        }
+    }
+
+    private void reconcile(Long productId) {
+        reconcileLock.lock();
+        try {
+            Sale sale = sales.get(productId);
+            if (sale != null) {
+                reconcile(sale);
+            }
+        } finally {
+            reconcileLock.unlock();
+        }
+    }
+
+    // Gọi khi đang giữ reconcileLock
+    private void reconcile(Sale sale) {
+        Integer stock = productRepository.findStockById(sale.productId);
+        if (stock == null) {
+            sales.remove(sale.productId);
+            return;
+        }
+        sale.counter.reset(stock - sale.pendingUnits.get());
+        reconciled.increment();
+    }
+
+    private int stripeCount() {
+        return stripes > 0 ? stripes : Runtime.getRuntime().availableProcessors();
+    }
+
+    private void setFlag(Long productId, boolean flashSale) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Product product = productRepository.findById(productId)
+                    .orElseThrow(() -> new RuntimeException("Product not found with ID: " + productId));
+            product.setFlashSale(flashSale);
+            productRepository.save(product);
+        });
+    }
+
+    private void writeLoop() {
+        List<PendingOrder> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingOrder first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                // Đơn đã bị hủy do khách chờ quá hạn thì bỏ qua
+                batch.removeIf(pending -> !pending.state.compareAndSet(QUEUED, WRITING));
+                if (!batch.isEmpty()) {
+                    flush(batch);
+                }
+            } catch (InterruptedException e) {
+                // stop(): vòng lặp tiếp tục cho tới khi hàng đợi rỗng
+            } catch (Exception e) {
+                log.error("Flash sale writer failed", e);
+                // Không để khách chờ mãi: đơn chưa có kết quả được báo lỗi và trả hàng
+                for (PendingOrder pending : batch) {
+                    if (pending.result.completeExceptionally(e)) {
+                        giveBack(pending);
+                        failed.increment();
+                    }
+                }
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<PendingOrder> batch) {
+        long start = System.nanoTime();
+        List<Order> orders;
+        try {
+            orders = write(batch);
+        } catch (RuntimeException batchError) {
+            // Một đơn lỗi làm rollback cả lô: ghi lại từng đơn trong transaction riêng
+            orders = new ArrayList<>(batch.size());
+            for (PendingOrder pending : batch) {
+                try {
+                    orders.add(write(List.of(pending)).get(0));
+                } catch (RuntimeException e) {
+                    orders.add(null);
+                    giveBack(pending);
+                    pending.result.completeExceptionally(e);
+                    failed.increment();
+                }
+            }
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            if (orders.get(i) != null) {
+                batch.get(i).result.complete(orders.get(i));
+            }
+        }
+        batches.increment();
+        batchLatency.record(System.nanoTime() - start);
+    }
+
+    private List<Order> write(List<PendingOrder> batch) {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            TransactionSynchronizationManager.registerSynchronization(new BatchCommit(batch));
+            List<Order> orders = new ArrayList<>(batch.size());
+            Map<Long, Integer> units = new TreeMap<>();
+            for (PendingOrder pending : batch) {
+                // Chi tiết đơn mang sẵn thông tin sản phẩm lúc mua, nên có thể trả về sau khi transaction đã đóng
+                orders.add(orderService.createDirectOrderWithoutStock(pending.username, pending.request));
+                units.merge(pending.sale.productId, pending.quantity, Integer::sum);
+            }
+            // Trừ tồn kho của cả lô một lần (một UPDATE có điều kiện cho mỗi sản phẩm), ngay trước commit
+            inventoryService.decrementStock(units);
+            eventPublisher.publishEvent(ProductChangedEvent.stock(units.keySet()));
+            return orders;
+        });
+    }
+
+    // Trả hàng của đơn không được ghi về bộ đếm
+    private static void giveBack(PendingOrder pending) {
+        pending.sale.counter.release(pending.quantity);
+        pending.sale.pendingUnits.addAndGet(-pending.quantity);
+    }
+
+    /**
+     * Giữ reconcileLock từ trước commit đến sau khi phần đang chờ của lô được trừ, nên không lần đối chiếu nào
+     * thấy tồn kho đã trừ mà phần đang chờ chưa trừ (hoặc ngược lại).
+     */
+    private final class BatchCommit implements TransactionSynchronization {
+        private final List<PendingOrder> batch;
+
+        BatchCommit(List<PendingOrder> batch) {
+            this.batch = List.copyOf(batch);
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            reconcileLock.lock();
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            try {
+                if (status == STATUS_COMMITTED) {
+                    for (PendingOrder pending : batch) {
+                        pending.sale.pendingUnits.addAndGet(-pending.quantity);
+                    }
+                }
+            } finally {
+                if (reconcileLock.isHeldByCurrentThread()) {
+                    reconcileLock.unlock();
+                }
+            }
+        }
+    }
+
+    private record Sale(Long productId, String name, StripedStockCounter counter, AtomicInteger pendingUnits) {
+    }
+
+    private record PendingOrder(String username, CreateDirectOrderRequest request, Sale sale, int quantity,
+                                AtomicInteger state, CompletableFuture<Order> result) {
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.back_end.service.flashsale;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bộ đếm tồn kho chia thành nhiều stripe độc lập, mỗi stripe giữ một phần số hàng còn lại.
+ * Mỗi luồng trừ trên một stripe ngẫu nhiên bằng CAS, nên nhiều lõi có thể cấp hàng cùng lúc mà không
+ * tranh nhau một biến duy nhất. Khi stripe của mình cạn, luồng lấy tiếp từ các stripe khác.
+ * Không bao giờ cấp quá tổng số hàng; ở cuối đợt bán, một yêu cầu có thể bị từ chối trong lúc yêu cầu
+ * khác đang tạm giữ rồi trả lại vài đơn vị (từ chối nhầm, không bán quá).
+ */
+public class StripedStockCounter {
+    // Mỗi stripe nằm trên một cache line riêng (8 long = 64 byte) để tránh false sharing
+    private static final int PADDING = 8;
+
+    private final int stripes;
+    private final AtomicLongArray cells;
+
+    public StripedStockCounter(long initial, int stripes) {
+        this.stripes = Math.max(1, stripes);
+        this.cells = new AtomicLongArray(this.stripes * PADDING);
+        long share = Math.max(0, initial) / this.stripes;
+        long rest = Math.max(0, initial) % this.stripes;
+        for (int i = 0; i < this.stripes; i++) {
+            cells.set(i * PADDING, share + (i < rest ? 1 : 0));
+        }
+    }
+
+    /**
+     * @return true nếu đã giữ được đủ quantity đơn vị; false (không giữ gì) nếu không còn đủ hàng
+     *         hoặc quantity không dương
+     */
+    public boolean tryAcquire(int quantity) {
+        if (quantity <= 0) {
+            return false;
+        }
+        int home = ThreadLocalRandom.current().nextInt(stripes);
+        long first = take(home, quantity);
+        if (first == quantity) {
+            return true;
+        }
+
+        // Stripe của mình không đủ: gom từ các stripe còn lại, trả hết nếu vẫn thiếu
+        long[] taken = new long[stripes];
+        taken[home] = first;
+        long remaining = quantity - first;
+        for (int n = 1; n < stripes && remaining > 0; n++) {
+            int stripe = (home + n) % stripes;
+            long got = take(stripe, remaining);
+            taken[stripe] = got;
+            remaining -= got;
+        }
+        if (remaining == 0) {
+            return true;
+        }
+        for (int i = 0; i < stripes; i++) {
+            if (taken[i] > 0) {
+                cells.addAndGet(i * PADDING, taken[i]);
+            }
+        }
+        return false;
+    }
+
+    public void release(int quantity) {
+        if (quantity > 0) {
+            cells.addAndGet(ThreadLocalRandom.current().nextInt(stripes) * PADDING, quantity);
+        }
+    }
+
+    /**
+     * Đưa tổng số hàng còn lại về target (đối chiếu với DB) mà không thay bộ đếm: phần thiếu được cộng vào
+     * một stripe, phần thừa được trừ dần từ các stripe. Yêu cầu chạy song song vẫn lấy / trả hàng bình thường,
+     * không stripe nào bị âm.
+     */
+    public void reset(long target) {
+        long delta = Math.max(0, target) - available();
+        if (delta > 0) {
+            cells.addAndGet(ThreadLocalRandom.current().nextInt(stripes) * PADDING, delta);
+            return;
+        }
+        long excess = -delta;
+        for (int i = 0; i < stripes && excess > 0; i++) {
+            excess -= take(i, excess);
+        }
+    }
+
+    public long available() {
+        long sum = 0;
+        for (int i = 0; i < stripes; i++) {
+            sum += cells.get(i * PADDING);
+        }
+        return sum;
+    }
+
+    // Trừ tối đa max đơn vị trên một stripe, trả về số đã trừ được
+    private long take(int stripe, long max) {
+        int index = stripe * PADDING;
+        while (true) {
+            long available = cells.get(index);
+            if (available <= 0) {
+                return 0;
+            }
+            long take = Math.min(available, max);
+            if (cells.compareAndSet(index, available, available - take)) {
+                return take;
+            }
+        }
+    }
+}
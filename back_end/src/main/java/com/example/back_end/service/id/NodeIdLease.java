@@ -0,0 +1,114 @@
+package com.example.back_end.service.id;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongSupplier;
+
+/**
+ * Thuê một node id Snowflake (0..MAX_NODE_ID) từ bảng node_id_leases, để hai instance đang chạy
+ * không bao giờ dùng chung node id khi không cấu hình app.id.node-id.
+ * - Mỗi node id là một dòng; dòng có expires_at đã qua coi như trống và có thể bị instance khác lấy lại.
+ * - Thời hạn thuê tính theo đồng hồ của DB (NOW(3)), nên không phụ thuộc đồng hồ của từng máy.
+ * - Phía instance tự rào: nếu không gia hạn được trước khi hết hạn (tính từ lúc bắt đầu lần gia hạn cuối,
+ *   theo đồng hồ đơn điệu), isValid() trả về false và không được cấp mã nữa.
+ */
+public class NodeIdLease {
+    private static final String CLAIM_SQL =
+            "INSERT INTO node_id_leases (node_id, owner, expires_at) VALUES (?, ?, NOW(3) + INTERVAL ? SECOND) "
+                    + "ON DUPLICATE KEY UPDATE "
+                    // MySQL gán từ trái sang phải: expires_at bên dưới thấy owner vừa được gán
+                    + "owner = IF(expires_at < NOW(3), VALUES(owner), owner), "
+                    + "expires_at = IF(owner = VALUES(owner), VALUES(expires_at), expires_at)";
+    private static final String RENEW_SQL =
+            "UPDATE node_id_leases SET expires_at = NOW(3) + INTERVAL ? SECOND WHERE node_id = ? AND owner = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String owner;
+    private final int ttlSeconds;
+    private final LongSupplier nanoClock;
+
+    private volatile int nodeId = -1;
+    private volatile long validUntilNanos;
+
+    public NodeIdLease(JdbcTemplate jdbcTemplate, String owner, int ttlSeconds) {
+        this(jdbcTemplate, owner, ttlSeconds, System::nanoTime);
+    }
+
+    NodeIdLease(JdbcTemplate jdbcTemplate, String owner, int ttlSeconds, LongSupplier nanoClock) {
+        if (ttlSeconds <= 0) {
+            throw new IllegalArgumentException("Lease TTL must be positive: " + ttlSeconds);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.owner = owner;
+        this.ttlSeconds = ttlSeconds;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Lấy một node id đang trống (chưa có dòng hoặc đã hết hạn), bắt đầu dò từ vị trí ngẫu nhiên.
+     * @throws IllegalStateException nếu tất cả node id đều đang được thuê
+     */
+    public synchronized int acquire() {
+        long started = nanoClock.getAsLong();
+        Set<Integer> taken = new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT node_id FROM node_id_leases WHERE expires_at >= NOW(3)", Integer.class));
+        int slots = SnowflakeIdGenerator.MAX_NODE_ID + 1;
+        int start = ThreadLocalRandom.current().nextInt(slots);
+        for (int i = 0; i < slots; i++) {
+            int candidate = (start + i) % slots;
+            if (taken.contains(candidate)) {
+                continue;
+            }
+            jdbcTemplate.update(CLAIM_SQL, candidate, owner, ttlSeconds);
+            // Instance khác có thể vừa lấy cùng node id: chỉ dòng mang owner của mình mới là của mình
+            if (ownedBy(candidate)) {
+                nodeId = candidate;
+                validUntilNanos = started + ttlSeconds * 1_000_000_000L;
+                return candidate;
+            }
+        }
+        throw new IllegalStateException("No free order-number node id, all " + slots + " are leased");
+    }
+
+    /**
+     * Gia hạn node id đang giữ.
+     * @return false nếu dòng đã bị instance khác lấy (lease đã hết hạn), khi đó phải acquire() lại
+     */
+    public synchronized boolean renew() {
+        if (nodeId < 0) {
+            return false;
+        }
+        long started = nanoClock.getAsLong();
+        if (jdbcTemplate.update(RENEW_SQL, ttlSeconds, nodeId, owner) == 0) {
+            nodeId = -1;
+            return false;
+        }
+        validUntilNanos = started + ttlSeconds * 1_000_000_000L;
+        return true;
+    }
+
+    public synchronized void release() {
+        if (nodeId >= 0) {
+            jdbcTemplate.update("DELETE FROM node_id_leases WHERE node_id = ? AND owner = ?", nodeId, owner);
+            nodeId = -1;
+        }
+    }
+
+    public boolean isValid() {
+        return nodeId >= 0 && nanoClock.getAsLong() - validUntilNanos < 0;
+    }
+
+    public int nodeId() {
+        return nodeId;
+    }
+
+    private boolean ownedBy(int candidate) {
+        List<String> owners = jdbcTemplate.queryForList(
+                "SELECT owner FROM node_id_leases WHERE node_id = ?", String.class, candidate);
+        return !owners.isEmpty() && owner.equals(owners.get(0));
+    }
+}
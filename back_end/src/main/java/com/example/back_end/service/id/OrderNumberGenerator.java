@@ -0,0 +1,157 @@
+package com.example.back_end.service.id;
+
+import com.example.back_end.entity.Order;
+import com.example.back_end.repositories.OrderRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.PrePersist;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.util.UUID;
+
+/**
+ * Mã đơn hàng ngắn, tăng theo thời gian: "ORD-" + 13 ký tự base32 (Crockford) của một id Snowflake 64 bit.
+ * Chuỗi có độ dài cố định và bảng chữ cái theo thứ tự ASCII, nên thứ tự chuỗi trùng thứ tự thời gian
+ * và các lần insert vào idx_order_number luôn nằm ở cuối B-tree.
+ * Được đăng ký làm entity listener của Order: gán mã trước khi insert nếu đơn chưa có mã.
+ * Node id lấy từ app.id.node-id nếu có; nếu không thì thuê từ bảng node_id_leases khi khởi động
+ * (khởi động thất bại nếu không thuê được) và gia hạn định kỳ, để hai instance không bao giờ trùng node id.
+ */
+@Component
+@Slf4j
+public class OrderNumberGenerator implements SmartInitializingSingleton {
+    public static final String PREFIX = "ORD-";
+    private static final int LENGTH = 13;
+    private static final String ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ";
+
+    private final ObjectProvider<OrderRepository> orderRepository;
+    private final ObjectProvider<JdbcTemplate> jdbcTemplate;
+    private final int leaseTtlSeconds;
+
+    // null cho tới khi có node id (thuê xong); được thay khi lease bị mất và phải thuê node id khác
+    private volatile SnowflakeIdGenerator generator;
+    // null khi node id được cấu hình cố định
+    private volatile NodeIdLease lease;
+
+    public OrderNumberGenerator(@Value("${app.id.node-id:-1}") int nodeId,
+                                @Value("${app.id.node-lease-ttl-seconds:60}") int leaseTtlSeconds,
+                                ObjectProvider<OrderRepository> orderRepository,
+                                ObjectProvider<JdbcTemplate> jdbcTemplate) {
+        this.orderRepository = orderRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.leaseTtlSeconds = leaseTtlSeconds;
+        if (nodeId >= 0) {
+            this.generator = new SnowflakeIdGenerator(nodeId);
+        }
+    }
+
+    @PrePersist
+    public void assign(Order order) {
+        if (order.getOrderNumber() == null) {
+            order.setOrderNumber(next());
+        }
+    }
+
+    public String next() {
+        SnowflakeIdGenerator current = generator;
+        NodeIdLease currentLease = lease;
+        // Lease quá hạn mà chưa gia hạn được: instance khác có thể đã lấy node id này
+        if (current == null || (currentLease != null && !currentLease.isValid())) {
+            throw new IllegalStateException("Order-number node id is not leased");
+        }
+        return PREFIX + encode(current.nextId());
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (generator == null) {
+            NodeIdLease newLease = new NodeIdLease(jdbcTemplate.getObject(), ownerName(), leaseTtlSeconds);
+            int nodeId = newLease.acquire();
+            log.info("Leased order-number node id {}", nodeId);
+            lease = newLease;
+            generator = advancePastLatest(new SnowflakeIdGenerator(nodeId));
+        } else {
+            advancePastLatest(generator);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.id.node-lease-renew-interval-ms:15000}")
+    public void renewLease() {
+        NodeIdLease currentLease = lease;
+        if (currentLease == null) {
+            return;
+        }
+        try {
+            if (!currentLease.renew()) {
+                int nodeId = currentLease.acquire();
+                log.warn("Order-number node id lease was lost, leased node id {} instead", nodeId);
+                generator = advancePastLatest(new SnowflakeIdGenerator(nodeId));
+            }
+        } catch (Exception e) {
+            log.warn("Could not renew order-number node id lease", e);
+        }
+    }
+
+    @PreDestroy
+    public void releaseLease() {
+        NodeIdLease currentLease = lease;
+        if (currentLease != null) {
+            try {
+                currentLease.release();
+            } catch (Exception e) {
+                log.warn("Could not release order-number node id lease", e);
+            }
+        }
+    }
+
+    // Khởi động lại (hoặc nhận lại node id) khi đồng hồ đang chậm hơn mã mới nhất: không cấp lại các mã đã dùng
+    private SnowflakeIdGenerator advancePastLatest(SnowflakeIdGenerator target) {
+        try {
+            String latest = orderRepository.getObject().findMaxOrderNumberOfLength(PREFIX.length() + LENGTH);
+            if (latest != null) {
+                target.advancePast(SnowflakeIdGenerator.timestampOf(decode(latest.substring(PREFIX.length()))));
+            }
+        } catch (Exception e) {
+            log.warn("Could not read latest order number, relying on the system clock", e);
+        }
+        return target;
+    }
+
+    static String encode(long id) {
+        char[] chars = new char[LENGTH];
+        for (int i = LENGTH - 1; i >= 0; i--) {
+            chars[i] = ALPHABET.charAt((int) (id & 31));
+            id >>>= 5;
+        }
+        return new String(chars);
+    }
+
+    static long decode(String text) {
+        long id = 0;
+        for (int i = 0; i < text.length(); i++) {
+            int digit = ALPHABET.indexOf(Character.toUpperCase(text.charAt(i)));
+            if (digit < 0) {
+                throw new IllegalArgumentException("Invalid order number: " + text);
+            }
+            id = (id << 5) | digit;
+        }
+        return id;
+    }
+
+    // Tên chủ lease: duy nhất cho mỗi lần chạy, kể cả hai tiến trình cùng máy
+    private static String ownerName() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "localhost";
+        }
+        return host + "/" + ProcessHandle.current().pid() + "/" + UUID.randomUUID();
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.back_end.service.id;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Sinh id 64 bit kiểu Snowflake, không khóa: 41 bit thời gian (ms từ EPOCH) | 10 bit node | 12 bit thứ tự.
+ * - Id của cùng một node tăng dần nghiêm ngặt; id của các node khác nhau không thể trùng nhau.
+ * - Đồng hồ lùi (NTP chỉnh giờ...) không làm id lùi theo: bộ sinh tiếp tục từ mốc thời gian cuối cùng đã cấp,
+ *   và hết 4096 số trong một ms thì "mượn" ms kế tiếp thay vì chờ.
+ */
+public class SnowflakeIdGenerator {
+    public static final long EPOCH = 1704067200000L; // 2024-01-01T00:00:00Z
+
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    public static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+
+    private final long nodeId;
+    private final LongSupplier clock;
+    // (thời gian << SEQUENCE_BITS) | thứ tự của id cấp gần nhất
+    private final AtomicLong last = new AtomicLong();
+
+    public SnowflakeIdGenerator(int nodeId) {
+        this(nodeId, System::currentTimeMillis);
+    }
+
+    public SnowflakeIdGenerator(int nodeId, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE_ID + ": " + nodeId);
+        }
+        this.nodeId = nodeId;
+        this.clock = clock;
+    }
+
+    public long nextId() {
+        while (true) {
+            long previous = last.get();
+            long now = clock.getAsLong() - EPOCH;
+            long next = now > (previous >>> SEQUENCE_BITS) ? now << SEQUENCE_BITS : previous + 1;
+            if (last.compareAndSet(previous, next)) {
+                long timestamp = next >>> SEQUENCE_BITS;
+                return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    /**
+     * Đảm bảo các id cấp sau đều muộn hơn mốc thời gian đã biết (vd. id lớn nhất đã lưu trước khi khởi động lại).
+     */
+    public void advancePast(long timestampMillis) {
+        long floor = ((timestampMillis - EPOCH) << SEQUENCE_BITS) | SEQUENCE_MASK;
+        last.accumulateAndGet(floor, Math::max);
+    }
+
+    public static long timestampOf(long id) {
+        return (id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH;
+    }
+}
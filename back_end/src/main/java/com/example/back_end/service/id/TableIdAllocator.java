@@ -0,0 +1,55 @@
+package com.example.back_end.service.id;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Cấp id theo khối từ bảng id_generators, cùng cách với @TableGenerator của Hibernate (optimizer pooled-lo):
+ * đọc next_val = v, ghi lại v + blockSize, dùng các id trong [v, v + blockSize).
+ * Dùng khi dòng được ghi bằng JDBC nhưng id phải có trước khi ghi (ví dụ cart_items ghi trễ),
+ * và vẫn không trùng với các id Hibernate cấp cho cùng bảng.
+ */
+public class TableIdAllocator {
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final String sequenceName;
+    private final int blockSize;
+
+    private long next;
+    private long limit;
+
+    public TableIdAllocator(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                            String sequenceName, int blockSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.sequenceName = sequenceName;
+        this.blockSize = blockSize;
+    }
+
+    public synchronized long nextId() {
+        if (next >= limit) {
+            Long low = transactionTemplate.execute(status -> reserveBlock());
+            next = low;
+            limit = low + blockSize;
+        }
+        return next++;
+    }
+
+    private long reserveBlock() {
+        List<Long> current = jdbcTemplate.queryForList(
+                "SELECT next_val FROM id_generators WHERE sequence_name = ? FOR UPDATE", Long.class, sequenceName);
+        if (current.isEmpty()) {
+            // Chưa có dòng cho bảng này: bắt đầu từ 1, giống giá trị khởi tạo của Hibernate
+            jdbcTemplate.update("INSERT INTO id_generators (sequence_name, next_val) VALUES (?, ?)", sequenceName, 1 + blockSize);
+            return 1;
+        }
+        long low = current.get(0);
+        jdbcTemplate.update("UPDATE id_generators SET next_val = ? WHERE sequence_name = ?", low + blockSize, sequenceName);
+        return low;
+    }
+}
@@ -1,20 +1,14 @@
 package com.example.back_end.service.impl;
 
 import com.example.back_end.constant.OrderStatus;
-import com.example.back_end.constant.PaymentStatus;
 import com.example.back_end.entity.Order;
 import com.example.back_end.repositories.OrderRepository;
 import com.example.back_end.service.OrderStatusService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Async;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.time.LocalDateTime;
-import java.util.List;
-
 @Service
 @RequiredArgsConstructor
 @Slf4j
@@ -96,45 +90,6 @@ public class OrderStatusServiceImpl implements OrderStatusService {
         }
     }
 
-    @Override
-    @Scheduled(fixedRate = 300000) // Chạy mỗi 5 phút
-    @Async
-    public void autoConfirmPaidOrders() {
-        try {
-            List<Order> paidOrders = orderRepository.findByStatusAndPaymentStatus(
-                OrderStatus.PAID, PaymentStatus.PAID);
-            
-            for (Order order : paidOrders) {
-                // Tự động xác nhận đơn hàng đã thanh toán sau 10 phút
-                if (order.getUpdatedAt().isBefore(LocalDateTime.now().minusMinutes(10))) {
-                    processOrderStatusTransition(order, OrderStatus.CONFIRMED);
-                    log.info("Auto-confirmed paid order: {}", order.getOrderNumber());
-                }
-            }
-        } catch (Exception e) {
-            log.error("Error in auto-confirming paid orders", e);
-        }
-    }
-
-    @Override
-    @Scheduled(fixedRate = 600000) // Chạy mỗi 10 phút
-    @Async
-    public void autoProcessConfirmedOrders() {
-        try {
-            List<Order> confirmedOrders = orderRepository.findByStatus(OrderStatus.CONFIRMED);
-            
-            for (Order order : confirmedOrders) {
-                // Tự động chuyển sang xử lý sau 30 phút
-                if (order.getUpdatedAt().isBefore(LocalDateTime.now().minusMinutes(30))) {
-                    processOrderStatusTransition(order, OrderStatus.PROCESSING);
-                    log.info("Auto-processing confirmed order: {}", order.getOrderNumber());
-                }
-            }
-        } catch (Exception e) {
-            log.error("Error in auto-processing confirmed orders", e);
-        }
-    }
-
     private void handlePaidStatus(Order order) {
         log.info("Order {} has been paid successfully", order.getOrderNumber());
         // Có thể gửi email thông báo thanh toán thành công
@@ -13,6 +13,7 @@ import com.example.back_end.repositories.PaymentRepository;
 import com.example.back_end.service.IOrderService;
 import com.example.back_end.service.OrderStatusService;
 import com.example.back_end.service.PaymentService;
+import com.example.back_end.service.StockReservationService;
 import com.example.back_end.service.UserService;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
@@ -36,6 +37,7 @@ public class PaymentServiceImpl implements PaymentService {
     private final IOrderService orderService;
     private final OrderStatusService orderStatusService;
     private final UserService userService;
+    private final StockReservationService stockReservationService;
 
     @Override
     public PaymentResponse createPayment(PaymentRequest request, HttpServletRequest httpRequest) {
@@ -148,7 +150,11 @@ public class PaymentServiceImpl implements PaymentService {
             
             // Xử lý đơn hàng khi thanh toán thành công
             try {
-                if (payment.getOrderId() != null) {
+                if (payment.getOrderId() != null && !stockReservationService.confirm(payment.getOrderId())) {
+                    // Thanh toán về sau khi bản giữ hàng đã hoàn (hết hạn hoặc đơn bị hủy): hàng đã được hoàn kho
+                    log.warn("Payment {} succeeded after stock reservation of order {} was released - manual refund required",
+                            payment.getTxnRef(), payment.getOrderId());
+                } else if (payment.getOrderId() != null) {
                     // Nếu đã có orderId, cập nhật trạng thái đơn hàng và thanh toán
                     Order existingOrder = orderService.getOrderById(payment.getOrderId());
                     existingOrder.setPaymentStatus(PaymentStatus.PAID);
@@ -180,6 +186,8 @@ public class PaymentServiceImpl implements PaymentService {
                     while (order == null && retryCount < maxRetries) {
                         try {
                             order = orderService.createOrderFromCart(user.getUsername(), orderRequest);
+                            // Tiền đã về: xác nhận ngay bản giữ hàng vừa tạo cùng đơn
+                            stockReservationService.confirm(order.getId());
                             // Cập nhật trạng thái đơn hàng ngay sau khi tạo
                             order.setPaymentStatus(PaymentStatus.PAID);
                             
@@ -218,6 +226,10 @@ public class PaymentServiceImpl implements PaymentService {
             }
         } else {
             payment.setStatus(Payment.PaymentStatus.FAILED);
+            if (payment.getOrderId() != null) {
+                // Thanh toán thất bại: trả hàng về kho ngay, không chờ hết hạn giữ hàng
+                stockReservationService.release(payment.getOrderId(), "Thanh toán VNPay thất bại");
+            }
         }
 
         return paymentRepository.save(payment);
@@ -2,71 +2,245 @@ package com.example.back_end.service.impl;
 
 import com.example.back_end.dto.ProductDTO;
 import com.example.back_end.dto.ProductDetailDTO;
+import com.example.back_end.dto.ProductSummary;
+import com.example.back_end.dto.response.CursorPage;
+import com.example.back_end.dto.response.FacetedProductResponse;
 import com.example.back_end.entity.Product;
 import com.example.back_end.entity.ProductImage;
+import com.example.back_end.exception.AppException;
+import com.example.back_end.exception.ErrorCode;
+import com.example.back_end.repositories.KeysetCursor;
+import com.example.back_end.repositories.ProductImageRepository;
 import com.example.back_end.repositories.ProductRepository;
 import com.example.back_end.service.ProductService;
+import com.example.back_end.service.cache.ProductDetailCache;
+import com.example.back_end.service.facet.FacetIndex;
+import com.example.back_end.service.facet.ProductFacetIndex;
+import com.example.back_end.service.search.ProductSearchIndex;
+import com.example.back_end.service.search.ProductSuggestIndex;
+import com.example.back_end.service.search.SuggestionTrie;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class ProductServiceImpl implements ProductService {
     private final ProductRepository productRepository;
+    private final ProductImageRepository productImageRepository;
+    private final ProductDetailCache productDetailCache;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductFacetIndex productFacetIndex;
+    private final ProductSuggestIndex productSuggestIndex;
 
     @Override
     public Page<ProductDTO> getAllProducts(Pageable pageable) {
-        return productRepository.findAll(pageable)
-                .map(this::convertToDTO);
+        return toDTOPage(productRepository.findSummaries(pageable));
     }
 
     @Override
     public ProductDTO getProductById(Long id) {
-        return productRepository.findById(id)
-                .map(this::convertToDTO)
-                .orElseThrow(() -> new RuntimeException("Product not found"));
+        // Dùng projection như trang danh sách: nội dung LONGTEXT chỉ có ở /{id}/detail
+        List<ProductSummary> summaries = productRepository.findSummariesByIds(List.of(id));
+        if (summaries.isEmpty()) {
+            throw new RuntimeException("Product not found");
+        }
+        return toDTOList(summaries).get(0);
     }
 
     @Override
     public ProductDetailDTO getProductDetailById(Long id) {
-        return productRepository.findById(id)
+        return productDetailCache.get(id, productId -> productRepository.findById(productId)
                 .map(this::convertToDetailDTO)
-                .orElseThrow(() -> new RuntimeException("Product not found"));
+                .orElseThrow(() -> new RuntimeException("Product not found")));
     }
 
     @Override
     public Page<ProductDTO> getProductsByCategory(String categoryName, Pageable pageable) {
-        return productRepository.findByCategory_Name(categoryName, pageable)
-                .map(this::convertToDTO);
+        return toDTOPage(productRepository.findSummariesByCategoryName(categoryName, pageable));
+    }
+
+    @Override
+    public CursorPage<ProductDTO> getProductsByCursor(String categoryName, String sort, boolean descending,
+                                                      String cursor, int size, boolean withCount) {
+        size = KeysetCursor.pageSize(size);
+        KeysetCursor after = cursor == null || cursor.isBlank()
+                ? null
+                : KeysetCursor.decode(cursor, sort, descending);
+
+        // Đọc thêm một dòng để biết còn trang sau hay không, không cần COUNT(*)
+        List<ProductSummary> rows = productRepository.findSummariesAfter(categoryName, sort, descending, after, size + 1);
+        boolean hasNext = rows.size() > size;
+        if (hasNext) {
+            rows = rows.subList(0, size);
+        }
+
+        String nextCursor = null;
+        if (hasNext) {
+            ProductSummary last = rows.get(rows.size() - 1);
+            nextCursor = new KeysetCursor(sort, descending, last.getId(), sortValue(last, sort)).encode();
+        }
+
+        Long total = null;
+        if (withCount) {
+            total = categoryName == null
+                    ? productRepository.count()
+                    : productRepository.countByCategory_Name(categoryName);
+        }
+
+        return CursorPage.<ProductDTO>builder()
+                .content(toDTOList(rows))
+                .size(size)
+                .hasNext(hasNext)
+                .nextCursor(nextCursor)
+                .totalElements(total)
+                .build();
+    }
+
+    private static Object sortValue(ProductSummary summary, String sort) {
+        return switch (sort) {
+            case "name" -> summary.getName();
+            case "price" -> summary.getPrice();
+            default -> summary.getId();
+        };
     }
 
     @Override
     public Page<ProductDTO> searchProducts(String keyword, Pageable pageable) {
-        return productRepository.findByNameContainingIgnoreCase(keyword, pageable)
-                .map(this::convertToDTO);
+        if (!productSearchIndex.isReady()) {
+            Pageable dbPageable = isRelevanceSort(pageable)
+                    ? PageRequest.of(pageable.getPageNumber(), pageable.getPageSize())
+                    : pageable;
+            return toDTOPage(productRepository.searchSummariesByName(keyword, dbPageable));
+        }
+
+        List<Long> rankedIds = productSearchIndex.search(keyword);
+        if (rankedIds.isEmpty()) {
+            return Page.empty(pageable);
+        }
+        if (!isRelevanceSort(pageable)) {
+            // Sắp xếp theo id / tên / giá ngay trong chỉ mục, DB chỉ nạp id của trang cần hiển thị
+            Sort.Order order = pageable.getSort().iterator().next();
+            if (!ProductSearchIndex.SORT_FIELDS.contains(order.getProperty())) {
+                throw new AppException(ErrorCode.INVALID_SORT_FIELD);
+            }
+            rankedIds = productSearchIndex.sort(rankedIds, order.getProperty(), order.isDescending());
+        }
+
+        int from = (int) Math.min(pageable.getOffset(), rankedIds.size());
+        int to = Math.min(from + pageable.getPageSize(), rankedIds.size());
+        return toDTOPage(new PageImpl<>(loadSummariesInOrder(rankedIds.subList(from, to)), pageable, rankedIds.size()));
     }
 
-    private ProductDTO convertToDTO(Product product) {
-        List<String> imageUrls = product.getProductImages().stream()
-                .map(ProductImage::getImageUrl)
+    @Override
+    public List<SuggestionTrie.Suggestion> suggest(String prefix, int limit) {
+        return productSuggestIndex.complete(prefix, limit);
+    }
+
+    @Override
+    public FacetedProductResponse browseProducts(Map<String, List<String>> filters, Pageable pageable) {
+        if (!productFacetIndex.isReady()) {
+            throw new AppException(ErrorCode.INDEX_NOT_READY);
+        }
+        Sort.Order order = pageable.getSort().stream().findFirst().orElse(Sort.Order.asc("id"));
+        if (!"id".equals(order.getProperty()) && !"price".equals(order.getProperty())) {
+            throw new AppException(ErrorCode.INVALID_SORT_FIELD);
+        }
+
+        FacetIndex.Result result = productFacetIndex.query(filters, "price".equals(order.getProperty()),
+                order.isDescending(), (int) pageable.getOffset(), pageable.getPageSize());
+        List<Long> ids = result.ids().stream().map(Integer::longValue).collect(Collectors.toList());
+
+        return FacetedProductResponse.builder()
+                .products(toDTOPage(new PageImpl<>(loadSummariesInOrder(ids), pageable, result.total())))
+                .facets(result.counts())
+                .build();
+    }
+
+    @Override
+    public Map<String, Integer> getFacetValues(String facet, Map<String, List<String>> filters) {
+        if (!productFacetIndex.isReady()) {
+            throw new AppException(ErrorCode.INDEX_NOT_READY);
+        }
+        return productFacetIndex.query(filters, false, false, 0, 0).counts().get(facet);
+    }
+
+    private boolean isRelevanceSort(Pageable pageable) {
+        return pageable.getSort().isUnsorted() || pageable.getSort().getOrderFor(RELEVANCE_SORT) != null;
+    }
+
+    // Một truy vấn IN cho cả trang, sau đó giữ nguyên thứ tự của danh sách id đầu vào
+    private List<ProductSummary> loadSummariesInOrder(List<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, ProductSummary> byId = new HashMap<>();
+        for (ProductSummary summary : productRepository.findSummariesByIds(productIds)) {
+            byId.put(summary.getId(), summary);
+        }
+        List<ProductSummary> ordered = new ArrayList<>(productIds.size());
+        for (Long id : productIds) {
+            ProductSummary summary = byId.get(id);
+            if (summary != null) {
+                ordered.add(summary);
+            }
+        }
+        return ordered;
+    }
+
+    /**
+     * Dựng trang ProductDTO từ projection: ảnh của cả trang được nạp bằng một truy vấn IN,
+     * nên số truy vấn mỗi trang không phụ thuộc vào kích thước trang.
+     */
+    private Page<ProductDTO> toDTOPage(Page<ProductSummary> summaries) {
+        Map<Long, List<String>> imageUrlsByProduct = loadImageUrls(summaries.getContent());
+        return summaries.map(summary -> toDTO(summary, imageUrlsByProduct));
+    }
+
+    private List<ProductDTO> toDTOList(List<ProductSummary> summaries) {
+        Map<Long, List<String>> imageUrlsByProduct = loadImageUrls(summaries);
+        return summaries.stream()
+                .map(summary -> toDTO(summary, imageUrlsByProduct))
                 .collect(Collectors.toList());
+    }
 
+    private ProductDTO toDTO(ProductSummary summary, Map<Long, List<String>> imageUrlsByProduct) {
         return ProductDTO.builder()
-                .id(product.getId())
-                .name(product.getName())
-                .description(product.getDescription())
-                .price(product.getPrice())
-                .stock(product.getStock())
-                .categoryName(product.getCategory().getName())
-                .imageUrls(imageUrls)
+                .id(summary.getId())
+                .name(summary.getName())
+                .shortDescription(summary.getShortDescription())
+                .price(summary.getPrice())
+                .stock(summary.getStock())
+                .categoryName(summary.getCategoryName())
+                .imageUrls(imageUrlsByProduct.getOrDefault(summary.getId(), List.of()))
                 .build();
     }
 
+    private Map<Long, List<String>> loadImageUrls(List<ProductSummary> summaries) {
+        Map<Long, List<String>> imageUrlsByProduct = new HashMap<>();
+        if (summaries.isEmpty()) {
+            return imageUrlsByProduct;
+        }
+        List<Long> productIds = summaries.stream()
+                .map(ProductSummary::getId)
+                .collect(Collectors.toList());
+        for (ProductImageRepository.ImageUrlView view : productImageRepository.findImageUrlsByProductIds(productIds)) {
+            imageUrlsByProduct.computeIfAbsent(view.getProductId(), id -> new ArrayList<>())
+                    .add(view.getImageUrl());
+        }
+        return imageUrlsByProduct;
+    }
+
     private ProductDetailDTO convertToDetailDTO(Product product) {
         List<String> allImages = product.getProductImages().stream()
                 .sorted((img1, img2) -> {
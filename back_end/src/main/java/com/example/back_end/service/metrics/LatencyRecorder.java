@@ -0,0 +1,62 @@
+package com.example.back_end.service.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bộ đo độ trễ nhẹ, không khóa: đếm theo các bucket lũy thừa 2 (micro giây) để ước lượng p50/p95/p99.
+ * Giá trị phân vị trả về là cận trên của bucket chứa phân vị đó.
+ */
+public class LatencyRecorder {
+    // Bucket i chứa các mẫu trong khoảng [2^(i-1), 2^i) micro giây; bucket cuối gom phần còn lại
+    private static final int BUCKETS = 32;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalMicros = new LongAdder();
+    private final LongAccumulator maxMicros = new LongAccumulator(Math::max, 0);
+
+    public LatencyRecorder() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(long nanos) {
+        long micros = Math.max(0, nanos / 1000);
+        int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+        buckets[bucket].increment();
+        count.increment();
+        totalMicros.add(micros);
+        maxMicros.accumulate(micros);
+    }
+
+    public Map<String, Object> getStats() {
+        long samples = count.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("count", samples);
+        stats.put("avgMicros", samples == 0 ? 0 : totalMicros.sum() / samples);
+        stats.put("p50Micros", percentile(samples, 0.50));
+        stats.put("p95Micros", percentile(samples, 0.95));
+        stats.put("p99Micros", percentile(samples, 0.99));
+        stats.put("maxMicros", maxMicros.get());
+        return stats;
+    }
+
+    private long percentile(long samples, double quantile) {
+        if (samples == 0) {
+            return 0;
+        }
+        long target = (long) Math.ceil(samples * quantile);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets[i].sum();
+            if (seen >= target) {
+                return i == 0 ? 0 : 1L << i;
+            }
+        }
+        return maxMicros.get();
+    }
+}
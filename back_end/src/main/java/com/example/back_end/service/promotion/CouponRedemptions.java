@@ -0,0 +1,231 @@
+package com.example.back_end.service.promotion;
+
+import com.example.back_end.constant.OrderStatus;
+import com.example.back_end.entity.Order;
+import com.example.back_end.exception.AppException;
+import com.example.back_end.exception.ErrorCode;
+import com.example.back_end.service.flashsale.StripedStockCounter;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Lượt dùng của các khuyến mãi trong một đơn hàng (promotion_redemptions) và bộ đếm lượt còn lại của mã
+ * giảm giá có giới hạn.
+ * - Mỗi lần dùng chỉ INSERT một dòng mới, không cập nhật một dòng đếm chung, nên các đơn dùng cùng một mã
+ *   không tranh khóa trong DB.
+ * - Giới hạn lượt dùng được giữ bằng bộ đếm phân stripe trong bộ nhớ (như flash sale): lấy một lượt bằng CAS,
+ *   trả lại khi transaction đặt hàng rollback hoặc khi đơn bị hủy. Bộ đếm được nạp từ số dòng đã commit.
+ * - Khi nạp lại, lượt đang giữ (chưa commit) và lượt đang trả (đơn hủy chưa commit) được đọc trước khi đếm
+ *   trong DB, và không lượt nào được lấy / trả trong lúc nạp: một giao dịch commit xen giữa chỉ có thể bị tính
+ *   hai lần (bộ đếm thấp hơn thực tế), không bao giờ bị bỏ sót (cấp quá giới hạn).
+ * Được đăng ký làm entity listener của Order (trả lượt khi đơn chuyển sang CANCELLED).
+ */
+@Component
+public class CouponRedemptions {
+    private static final String INSERT_SQL = "INSERT INTO promotion_redemptions (promotion_id, order_id, discount_amount, created_at) " +
+            "VALUES (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int stripes;
+
+    private final Map<Long, Coupon> coupons = new ConcurrentHashMap<>();
+    // Đọc: lấy / trả một lượt (ngắn, không giữ tới khi commit). Ghi: sync đọc các bộ đếm, đếm DB và thay bộ đếm
+    private final ReadWriteLock syncLock = new ReentrantReadWriteLock();
+    private final LongAdder redeemed = new LongAdder();
+    private final LongAdder exhausted = new LongAdder();
+    private final LongAdder released = new LongAdder();
+
+    public CouponRedemptions(JdbcTemplate jdbcTemplate,
+                             @Value("${app.promotion.counter-stripes:0}") int stripes) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.stripes = stripes > 0 ? stripes : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Đồng bộ bộ đếm với danh sách mã có giới hạn (promotionId -> usageLimit) sau mỗi lần dựng lại bảng
+     * khuyến mãi. Chỉ mã mới hoặc đổi giới hạn mới phải đếm lại trong DB (một truy vấn GROUP BY).
+     */
+    public void sync(Map<Long, Integer> limits) {
+        syncLock.writeLock().lock();
+        try {
+            coupons.keySet().retainAll(limits.keySet());
+            List<Long> changed = new ArrayList<>();
+            limits.forEach((promotionId, limit) -> {
+                Coupon existing = coupons.get(promotionId);
+                if (existing == null || existing.limit != limit) {
+                    changed.add(promotionId);
+                }
+            });
+            if (changed.isEmpty()) {
+                return;
+            }
+            // Đọc lượt đang giữ / đang trả TRƯỚC khi đếm: lượt commit sau lúc đọc đã nằm trong số này
+            Map<Long, Integer> pending = new HashMap<>();
+            for (Long promotionId : changed) {
+                Coupon existing = coupons.get(promotionId);
+                if (existing != null) {
+                    pending.put(promotionId, existing.inFlight.get() + existing.releasing.get());
+                }
+            }
+            Map<Long, Long> used = countRedemptions(changed);
+            for (Long promotionId : changed) {
+                Coupon existing = coupons.get(promotionId);
+                int limit = limits.get(promotionId);
+                long remaining = limit - used.getOrDefault(promotionId, 0L) - pending.getOrDefault(promotionId, 0);
+                coupons.put(promotionId, existing != null
+                        ? new Coupon(limit, new StripedStockCounter(remaining, stripes), existing.inFlight, existing.releasing)
+                        : new Coupon(limit, new StripedStockCounter(remaining, stripes), new AtomicInteger(), new AtomicInteger()));
+            }
+        } finally {
+            syncLock.writeLock().unlock();
+        }
+    }
+
+    // Mã còn lượt dùng không (dùng khi xem trước giá, không giữ lượt)
+    public boolean hasRemaining(Long promotionId) {
+        Coupon coupon = coupons.get(promotionId);
+        return coupon == null || coupon.counter.available() > 0;
+    }
+
+    /**
+     * Ghi lượt dùng của các khuyến mãi đã áp dụng cho đơn, trong transaction đặt hàng. Mã có giới hạn phải lấy
+     * được một lượt trước, nếu hết thì ném COUPON_EXHAUSTED (cả đơn rollback).
+     */
+    public void redeem(Long orderId, List<PromotionIndex.Applied> applied) {
+        if (applied.isEmpty()) {
+            return;
+        }
+        for (PromotionIndex.Applied entry : applied) {
+            Long promotionId = entry.rule().id();
+            syncLock.readLock().lock();
+            try {
+                Coupon coupon = coupons.get(promotionId);
+                if (coupon == null) {
+                    continue;
+                }
+                if (!coupon.counter.tryAcquire(1)) {
+                    exhausted.increment();
+                    throw new AppException(ErrorCode.COUPON_EXHAUSTED);
+                }
+                coupon.inFlight.incrementAndGet();
+            } finally {
+                syncLock.readLock().unlock();
+            }
+            afterCompletion(committed -> withCurrent(promotionId, coupon -> {
+                coupon.inFlight.decrementAndGet();
+                if (!committed) {
+                    coupon.counter.release(1);
+                }
+            }));
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_SQL, applied.stream()
+                .map(entry -> new Object[]{entry.rule().id(), orderId, entry.amount(), now})
+                .toList());
+        redeemed.add(applied.size());
+    }
+
+    // Đơn bị hủy: xóa lượt dùng và trả lượt cho mã có giới hạn khi transaction commit
+    @PostUpdate
+    public void onOrderUpdated(Order order) {
+        if (order.getStatus() != OrderStatus.CANCELLED || order.getPersistedStatus() == OrderStatus.CANCELLED
+                || order.getDiscountAmount() == null || order.getDiscountAmount().signum() <= 0) {
+            return;
+        }
+        List<Long> promotionIds = jdbcTemplate.queryForList(
+                "SELECT promotion_id FROM promotion_redemptions WHERE order_id = ?", Long.class, order.getId());
+        if (promotionIds.isEmpty()) {
+            return;
+        }
+        for (Long promotionId : promotionIds) {
+            withCurrent(promotionId, coupon -> coupon.releasing.incrementAndGet());
+        }
+        jdbcTemplate.update("DELETE FROM promotion_redemptions WHERE order_id = ?", order.getId());
+        afterCompletion(committed -> {
+            for (Long promotionId : promotionIds) {
+                withCurrent(promotionId, coupon -> {
+                    coupon.releasing.decrementAndGet();
+                    if (committed) {
+                        coupon.counter.release(1);
+                        released.increment();
+                    }
+                });
+            }
+        });
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("limitedCoupons", coupons.size());
+        stats.put("redeemed", redeemed.sum());
+        stats.put("exhausted", exhausted.sum());
+        stats.put("released", released.sum());
+        return stats;
+    }
+
+    private Map<Long, Long> countRedemptions(List<Long> promotionIds) {
+        Map<Long, Long> used = new HashMap<>();
+        String placeholders = String.join(",", Collections.nCopies(promotionIds.size(), "?"));
+        jdbcTemplate.query("SELECT promotion_id, COUNT(*) FROM promotion_redemptions WHERE promotion_id IN (" +
+                        placeholders + ") GROUP BY promotion_id",
+                rs -> {
+                    used.put(rs.getLong(1), rs.getLong(2));
+                },
+                promotionIds.toArray());
+        return used;
+    }
+
+    // Cập nhật bộ đếm hiện tại của mã (có thể đã được thay bởi sync từ lúc lấy lượt), không chạy xen với sync
+    private void withCurrent(Long promotionId, Consumer<Coupon> action) {
+        syncLock.readLock().lock();
+        try {
+            Coupon coupon = coupons.get(promotionId);
+            if (coupon != null) {
+                action.accept(coupon);
+            }
+        } finally {
+            syncLock.readLock().unlock();
+        }
+    }
+
+    private static void afterCompletion(CompletionCallback callback) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            callback.completed(true);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                callback.completed(status == STATUS_COMMITTED);
+            }
+        });
+    }
+
+    private interface CompletionCallback {
+        void completed(boolean committed);
+    }
+
+    // inFlight: lượt đã lấy, transaction đặt hàng chưa kết thúc; releasing: lượt của đơn hủy chưa commit
+    private record Coupon(int limit, StripedStockCounter counter, AtomicInteger inFlight, AtomicInteger releasing) {
+    }
+}
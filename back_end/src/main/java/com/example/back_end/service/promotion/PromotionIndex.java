@@ -0,0 +1,245 @@
+package com.example.back_end.service.promotion;
+
+import com.example.back_end.constant.DiscountType;
+import com.example.back_end.constant.PromotionScope;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Bảng khuyến mãi đã biên dịch, chỉ đọc: dựng một lần khi danh sách khuyến mãi thay đổi rồi dùng chung
+ * cho mọi lần tính giá (thay cả bảng bằng một tham chiếu mới, không khóa).
+ * - Khuyến mãi tự động được đặt vào đúng một chỉ mục theo phạm vi: sản phẩm, danh mục, thương hiệu, hoặc
+ *   danh sách áp dụng cho cả đơn. Mỗi dòng giỏ chỉ tra ba khóa của nó, nên chi phí tính giá tỉ lệ với số dòng
+ *   và số khuyến mãi thực sự liên quan, không phụ thuộc tổng số khuyến mãi đang chạy.
+ * - Mã giảm giá chỉ được tra theo mã khách nhập.
+ * Quy tắc cộng dồn: chọn một khuyến mãi tự động có mức giảm lớn nhất, cộng thêm tối đa một mã giảm giá;
+ * tổng mức giảm không vượt quá tiền hàng.
+ */
+public final class PromotionIndex {
+    public enum CouponStatus {
+        NONE,
+        APPLIED,
+        INVALID,
+        NOT_APPLICABLE
+    }
+
+    public record Rule(long id, String name, String code, PromotionScope scope, Long targetId, String brand,
+                       DiscountType discountType, BigDecimal value, BigDecimal minSubtotal, BigDecimal maxDiscount,
+                       LocalDateTime startsAt, LocalDateTime endsAt) {
+
+        boolean activeAt(LocalDateTime now) {
+            return (startsAt == null || !now.isBefore(startsAt)) && (endsAt == null || now.isBefore(endsAt));
+        }
+
+        boolean matches(Line line) {
+            return switch (scope) {
+                case ORDER -> true;
+                case CATEGORY -> targetId != null && targetId.equals(line.categoryId());
+                case BRAND -> brand != null && line.brand() != null && brand.equalsIgnoreCase(line.brand());
+                case PRODUCT -> targetId != null && targetId == line.productId();
+            };
+        }
+
+        // Mức giảm trên phần tiền hàng thuộc phạm vi; 0 nếu chưa đạt ngưỡng
+        BigDecimal discountFor(BigDecimal eligible) {
+            if (eligible.signum() <= 0 || (minSubtotal != null && eligible.compareTo(minSubtotal) < 0)) {
+                return BigDecimal.ZERO;
+            }
+            BigDecimal discount = discountType == DiscountType.PERCENTAGE
+                    ? eligible.multiply(value).divide(BigDecimal.valueOf(100), 2, RoundingMode.DOWN)
+                    : value;
+            if (maxDiscount != null) {
+                discount = discount.min(maxDiscount);
+            }
+            return discount.min(eligible).max(BigDecimal.ZERO);
+        }
+    }
+
+    public record Line(long productId, Long categoryId, String brand, BigDecimal unitPrice, int quantity) {
+        BigDecimal total() {
+            return unitPrice.multiply(BigDecimal.valueOf(quantity));
+        }
+    }
+
+    public record Applied(Rule rule, BigDecimal amount) {
+    }
+
+    /**
+     * @param automatic khuyến mãi tự động được chọn, null nếu không có
+     * @param coupon    mã giảm giá đã áp dụng, null nếu không có hoặc không hợp lệ
+     */
+    public record Evaluation(BigDecimal subtotal, Applied automatic, Applied coupon, CouponStatus couponStatus,
+                             BigDecimal discount) {
+        public List<Applied> applied() {
+            List<Applied> applied = new ArrayList<>(2);
+            if (automatic != null) {
+                applied.add(automatic);
+            }
+            if (coupon != null) {
+                applied.add(coupon);
+            }
+            return applied;
+        }
+    }
+
+    private static final Rule[] NO_RULES = new Rule[0];
+    public static final PromotionIndex EMPTY = compile(List.of());
+
+    private final Map<Long, Rule[]> byProduct;
+    private final Map<Long, Rule[]> byCategory;
+    private final Map<String, Rule[]> byBrand;
+    private final Rule[] orderWide;
+    private final Map<String, Rule> byCode;
+    private final int size;
+
+    private PromotionIndex(Map<Long, Rule[]> byProduct, Map<Long, Rule[]> byCategory, Map<String, Rule[]> byBrand,
+                           Rule[] orderWide, Map<String, Rule> byCode, int size) {
+        this.byProduct = byProduct;
+        this.byCategory = byCategory;
+        this.byBrand = byBrand;
+        this.orderWide = orderWide;
+        this.byCode = byCode;
+        this.size = size;
+    }
+
+    public static PromotionIndex compile(Collection<Rule> rules) {
+        Map<Long, List<Rule>> byProduct = new HashMap<>();
+        Map<Long, List<Rule>> byCategory = new HashMap<>();
+        Map<String, List<Rule>> byBrand = new HashMap<>();
+        List<Rule> orderWide = new ArrayList<>();
+        Map<String, Rule> byCode = new HashMap<>();
+
+        for (Rule rule : rules) {
+            if (rule.code() != null) {
+                byCode.put(codeKey(rule.code()), rule);
+                continue;
+            }
+            switch (rule.scope()) {
+                case ORDER -> orderWide.add(rule);
+                case CATEGORY -> byCategory.computeIfAbsent(rule.targetId(), k -> new ArrayList<>()).add(rule);
+                case BRAND -> byBrand.computeIfAbsent(brandKey(rule.brand()), k -> new ArrayList<>()).add(rule);
+                case PRODUCT -> byProduct.computeIfAbsent(rule.targetId(), k -> new ArrayList<>()).add(rule);
+            }
+        }
+        return new PromotionIndex(toArrays(byProduct), toArrays(byCategory), toArrays(byBrand),
+                orderWide.toArray(NO_RULES), byCode, rules.size());
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Rule findByCode(String code) {
+        return code == null || code.isBlank() ? null : byCode.get(codeKey(code));
+    }
+
+    public Evaluation evaluate(List<Line> lines, String couponCode, LocalDateTime now) {
+        BigDecimal subtotal = BigDecimal.ZERO;
+        // Phần tiền hàng thuộc phạm vi của từng khuyến mãi được chạm tới (mỗi khuyến mãi nằm dưới đúng một khóa)
+        Map<Rule, BigDecimal> eligible = new IdentityHashMap<>();
+        for (Line line : lines) {
+            BigDecimal total = line.total();
+            subtotal = subtotal.add(total);
+            accumulate(eligible, byProduct.get(line.productId()), total);
+            if (line.categoryId() != null) {
+                accumulate(eligible, byCategory.get(line.categoryId()), total);
+            }
+            if (line.brand() != null) {
+                accumulate(eligible, byBrand.get(brandKey(line.brand())), total);
+            }
+        }
+
+        Applied automatic = null;
+        for (Map.Entry<Rule, BigDecimal> entry : eligible.entrySet()) {
+            automatic = better(automatic, entry.getKey(), entry.getValue(), now);
+        }
+        for (Rule rule : orderWide) {
+            automatic = better(automatic, rule, subtotal, now);
+        }
+
+        Applied coupon = null;
+        CouponStatus couponStatus = CouponStatus.NONE;
+        if (couponCode != null && !couponCode.isBlank()) {
+            Rule rule = byCode.get(codeKey(couponCode));
+            if (rule == null || !rule.activeAt(now)) {
+                couponStatus = CouponStatus.INVALID;
+            } else {
+                BigDecimal amount = rule.discountFor(couponEligible(rule, lines, subtotal));
+                // Khuyến mãi tự động được trừ trước; mã giảm giá chỉ giảm phần còn lại
+                BigDecimal remaining = automatic != null ? subtotal.subtract(automatic.amount()) : subtotal;
+                amount = amount.min(remaining);
+                if (amount.signum() > 0) {
+                    coupon = new Applied(rule, amount);
+                    couponStatus = CouponStatus.APPLIED;
+                } else {
+                    couponStatus = CouponStatus.NOT_APPLICABLE;
+                }
+            }
+        }
+
+        BigDecimal discount = BigDecimal.ZERO;
+        if (automatic != null) {
+            discount = discount.add(automatic.amount());
+        }
+        if (coupon != null) {
+            discount = discount.add(coupon.amount());
+        }
+        return new Evaluation(subtotal, automatic, coupon, couponStatus, discount);
+    }
+
+    private static BigDecimal couponEligible(Rule rule, List<Line> lines, BigDecimal subtotal) {
+        if (rule.scope() == PromotionScope.ORDER) {
+            return subtotal;
+        }
+        BigDecimal eligible = BigDecimal.ZERO;
+        for (Line line : lines) {
+            if (rule.matches(line)) {
+                eligible = eligible.add(line.total());
+            }
+        }
+        return eligible;
+    }
+
+    private static void accumulate(Map<Rule, BigDecimal> eligible, Rule[] rules, BigDecimal amount) {
+        if (rules == null) {
+            return;
+        }
+        for (Rule rule : rules) {
+            eligible.merge(rule, amount, BigDecimal::add);
+        }
+    }
+
+    private static Applied better(Applied best, Rule rule, BigDecimal eligible, LocalDateTime now) {
+        if (!rule.activeAt(now)) {
+            return best;
+        }
+        BigDecimal amount = rule.discountFor(eligible);
+        if (amount.signum() <= 0 || (best != null && amount.compareTo(best.amount()) <= 0)) {
+            return best;
+        }
+        return new Applied(rule, amount);
+    }
+
+    private static <K> Map<K, Rule[]> toArrays(Map<K, List<Rule>> lists) {
+        Map<K, Rule[]> arrays = new HashMap<>(Math.max(16, lists.size() * 2));
+        lists.forEach((key, list) -> arrays.put(key, list.toArray(NO_RULES)));
+        return arrays;
+    }
+
+    private static String codeKey(String code) {
+        return code.trim().toUpperCase(Locale.ROOT);
+    }
+
+    private static String brandKey(String brand) {
+        return brand.trim().toLowerCase(Locale.ROOT);
+    }
+}
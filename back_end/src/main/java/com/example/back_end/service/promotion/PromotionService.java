@@ -0,0 +1,287 @@
+package com.example.back_end.service.promotion;
+
+import com.example.back_end.constant.DiscountType;
+import com.example.back_end.constant.PromotionScope;
+import com.example.back_end.dto.CartPricingDTO;
+import com.example.back_end.dto.request.PromotionRequest;
+import com.example.back_end.entity.OrderDetail;
+import com.example.back_end.entity.Product;
+import com.example.back_end.entity.Promotion;
+import com.example.back_end.exception.AppException;
+import com.example.back_end.exception.ErrorCode;
+import com.example.back_end.repositories.CategoryRepository;
+import com.example.back_end.repositories.ProductRepository;
+import com.example.back_end.repositories.PromotionRepository;
+import com.example.back_end.service.shipping.ShippingFees;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Tính khuyến mãi ở server cho giỏ hàng và đơn hàng; số tiền giảm do client gửi lên không còn được dùng.
+ * - Khuyến mãi đang chạy được biên dịch thành {@link PromotionIndex} (dựng lại khi admin sửa và định kỳ),
+ *   mỗi lần tính giá chỉ đọc tham chiếu hiện tại, không truy vấn DB.
+ * - Lượt dùng được ghi trong transaction đặt hàng qua {@link CouponRedemptions}.
+ */
+@Service
+@Slf4j
+public class PromotionService {
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    private final PromotionRepository promotionRepository;
+    private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+    private final CouponRedemptions couponRedemptions;
+
+    private volatile PromotionIndex index = PromotionIndex.EMPTY;
+    private volatile LocalDateTime lastRefresh;
+
+    public PromotionService(PromotionRepository promotionRepository,
+                            ProductRepository productRepository,
+                            CategoryRepository categoryRepository,
+                            CouponRedemptions couponRedemptions) {
+        this.promotionRepository = promotionRepository;
+        this.productRepository = productRepository;
+        this.categoryRepository = categoryRepository;
+        this.couponRedemptions = couponRedemptions;
+    }
+
+    // Biên dịch lại từ DB: khi khởi động, sau mỗi lần admin sửa và định kỳ (khuyến mãi hết hạn rời khỏi bảng)
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.promotion.refresh-interval-ms:60000}")
+    public synchronized void refresh() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Promotion> promotions = promotionRepository.findLive(now);
+        List<PromotionIndex.Rule> rules = new ArrayList<>(promotions.size());
+        Map<Long, Integer> limits = new HashMap<>();
+        for (Promotion promotion : promotions) {
+            rules.add(toRule(promotion));
+            if (promotion.getCode() != null && promotion.getUsageLimit() != null) {
+                limits.put(promotion.getId(), promotion.getUsageLimit());
+            }
+        }
+        couponRedemptions.sync(limits);
+        index = PromotionIndex.compile(rules);
+        lastRefresh = now;
+        log.debug("Promotion index rebuilt with {} rules", rules.size());
+    }
+
+    /**
+     * Tính khuyến mãi cho các dòng hàng. Mã giảm giá không hợp lệ, không áp dụng được hoặc đã hết lượt
+     * được báo lỗi thay vì bị bỏ qua, để khách biết vì sao không được giảm.
+     */
+    public PromotionIndex.Evaluation quote(List<PromotionIndex.Line> lines, String couponCode) {
+        PromotionIndex.Evaluation evaluation = index.evaluate(lines, couponCode, LocalDateTime.now());
+        switch (evaluation.couponStatus()) {
+            case INVALID -> throw new AppException(ErrorCode.INVALID_COUPON);
+            case NOT_APPLICABLE -> throw new AppException(ErrorCode.COUPON_NOT_APPLICABLE);
+            case APPLIED -> {
+                if (!couponRedemptions.hasRemaining(evaluation.coupon().rule().id())) {
+                    throw new AppException(ErrorCode.COUPON_EXHAUSTED);
+                }
+            }
+            default -> {
+            }
+        }
+        return evaluation;
+    }
+
+    /**
+     * Giá của đơn hàng: tiền hàng theo giá hiện tại, khuyến mãi tính lại ở server.
+     * @param shippingFee phí vận chuyển đã tính ở server ({@link #shippingFee}); null là không tính phí
+     */
+    public OrderPricing priceOrder(List<OrderDetail> details, String couponCode, BigDecimal shippingFee) {
+        List<PromotionIndex.Line> lines = new ArrayList<>(details.size());
+        for (OrderDetail detail : details) {
+            lines.add(line(detail.getProduct(), detail.getQuantity()));
+        }
+        PromotionIndex.Evaluation evaluation = quote(lines, couponCode);
+
+        if (shippingFee == null) {
+            shippingFee = BigDecimal.ZERO;
+        }
+        BigDecimal totalAmount = evaluation.subtotal().subtract(evaluation.discount()).add(shippingFee);
+        return new OrderPricing(evaluation.subtotal(), evaluation.discount(), shippingFee, totalAmount, evaluation);
+    }
+
+    /**
+     * Phí vận chuyển theo tỉnh và phương thức giao hàng ({@link ShippingFees}); phí client gửi lên bị bỏ qua.
+     * @param province có thể null: khi đó tỉnh được lấy từ cuối địa chỉ giao hàng
+     */
+    public BigDecimal shippingFee(String province, String shippingAddress, String shippingMethod) {
+        try {
+            return ShippingFees.forOrder(province, shippingAddress, shippingMethod);
+        } catch (IllegalArgumentException e) {
+            throw new AppException(ErrorCode.INVALID_SHIPPING_METHOD);
+        }
+    }
+
+    // Gọi trong transaction đặt hàng, sau khi đơn đã có id
+    public void redeem(Long orderId, OrderPricing pricing) {
+        couponRedemptions.redeem(orderId, pricing.evaluation().applied());
+    }
+
+    public CartPricingDTO toPricingDTO(PromotionIndex.Evaluation evaluation) {
+        List<CartPricingDTO.AppliedPromotion> promotions = evaluation.applied().stream()
+                .map(applied -> CartPricingDTO.AppliedPromotion.builder()
+                        .promotionId(applied.rule().id())
+                        .name(applied.rule().name())
+                        .code(applied.rule().code())
+                        .amount(applied.amount())
+                        .build())
+                .toList();
+        return CartPricingDTO.builder()
+                .subtotal(evaluation.subtotal())
+                .discountAmount(evaluation.discount())
+                .totalAmount(evaluation.subtotal().subtract(evaluation.discount()))
+                .couponCode(evaluation.coupon() != null ? evaluation.coupon().rule().code() : null)
+                .promotions(promotions)
+                .build();
+    }
+
+    public static PromotionIndex.Line line(Product product, int quantity) {
+        // category là proxy LAZY: lấy id không cần nạp danh mục
+        Long categoryId = product.getCategory() != null ? product.getCategory().getId() : null;
+        return new PromotionIndex.Line(product.getId(), categoryId, product.getBrand(), product.getPrice(), quantity);
+    }
+
+    public List<Promotion> getPromotions() {
+        return promotionRepository.findAll(Sort.by(Sort.Direction.DESC, "id"));
+    }
+
+    public Promotion createPromotion(PromotionRequest request) {
+        Promotion promotion = new Promotion();
+        apply(promotion, request);
+        Promotion saved = promotionRepository.save(promotion);
+        refresh();
+        return saved;
+    }
+
+    public Promotion updatePromotion(Long id, PromotionRequest request) {
+        Promotion promotion = promotionRepository.findById(id)
+                .orElseThrow(() -> new AppException(ErrorCode.PROMOTION_NOT_FOUND));
+        apply(promotion, request);
+        Promotion saved = promotionRepository.save(promotion);
+        refresh();
+        return saved;
+    }
+
+    // Tắt thay vì xóa: các lượt dùng đã ghi vẫn trỏ tới khuyến mãi
+    public void deactivatePromotion(Long id) {
+        Promotion promotion = promotionRepository.findById(id)
+                .orElseThrow(() -> new AppException(ErrorCode.PROMOTION_NOT_FOUND));
+        promotion.setActive(false);
+        promotionRepository.save(promotion);
+        refresh();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("compiledRules", index.size());
+        stats.put("lastRefresh", lastRefresh);
+        stats.put("coupons", couponRedemptions.getStats());
+        return stats;
+    }
+
+    private void apply(Promotion promotion, PromotionRequest request) {
+        PromotionScope scope;
+        DiscountType discountType;
+        try {
+            scope = PromotionScope.fromString(request.getScope());
+            discountType = DiscountType.fromString(request.getDiscountType());
+        } catch (IllegalArgumentException e) {
+            throw new AppException(ErrorCode.INVALID_PROMOTION);
+        }
+
+        String code = request.getCode() == null || request.getCode().isBlank()
+                ? null
+                : request.getCode().trim().toUpperCase(Locale.ROOT);
+        if (code != null && (promotion.getId() == null
+                ? promotionRepository.existsByCodeIgnoreCase(code)
+                : promotionRepository.existsByCodeIgnoreCaseAndIdNot(code, promotion.getId()))) {
+            throw new AppException(ErrorCode.PROMOTION_CODE_EXISTS);
+        }
+        // Giới hạn lượt dùng chỉ áp dụng cho mã giảm giá
+        if (request.getUsageLimit() != null && code == null) {
+            throw new AppException(ErrorCode.INVALID_PROMOTION);
+        }
+        if (discountType == DiscountType.PERCENTAGE && request.getDiscountValue().compareTo(HUNDRED) > 0) {
+            throw new AppException(ErrorCode.INVALID_PROMOTION);
+        }
+        if (request.getStartsAt() != null && request.getEndsAt() != null
+                && !request.getEndsAt().isAfter(request.getStartsAt())) {
+            throw new AppException(ErrorCode.INVALID_PROMOTION);
+        }
+
+        Long targetId = null;
+        String targetBrand = null;
+        switch (scope) {
+            case CATEGORY -> {
+                if (request.getTargetId() == null) {
+                    throw new AppException(ErrorCode.INVALID_PROMOTION);
+                }
+                if (!categoryRepository.existsById(request.getTargetId())) {
+                    throw new AppException(ErrorCode.CATEGORY_NOT_FOUND);
+                }
+                targetId = request.getTargetId();
+            }
+            case PRODUCT -> {
+                if (request.getTargetId() == null) {
+                    throw new AppException(ErrorCode.INVALID_PROMOTION);
+                }
+                if (!productRepository.existsById(request.getTargetId())) {
+                    throw new AppException(ErrorCode.PRODUCT_NOT_FOUND);
+                }
+                targetId = request.getTargetId();
+            }
+            case BRAND -> {
+                if (request.getTargetBrand() == null || request.getTargetBrand().isBlank()) {
+                    throw new AppException(ErrorCode.INVALID_PROMOTION);
+                }
+                targetBrand = request.getTargetBrand().trim();
+            }
+            default -> {
+            }
+        }
+
+        promotion.setName(request.getName());
+        promotion.setCode(code);
+        promotion.setScope(scope);
+        promotion.setTargetId(targetId);
+        promotion.setTargetBrand(targetBrand);
+        promotion.setDiscountType(discountType);
+        promotion.setDiscountValue(request.getDiscountValue());
+        promotion.setMinSubtotal(request.getMinSubtotal());
+        promotion.setMaxDiscount(request.getMaxDiscount());
+        promotion.setUsageLimit(request.getUsageLimit());
+        promotion.setStartsAt(request.getStartsAt());
+        promotion.setEndsAt(request.getEndsAt());
+        promotion.setActive(request.getActive() == null || request.getActive());
+    }
+
+    private static PromotionIndex.Rule toRule(Promotion promotion) {
+        return new PromotionIndex.Rule(promotion.getId(), promotion.getName(), promotion.getCode(),
+                promotion.getScope(), promotion.getTargetId(), promotion.getTargetBrand(),
+                promotion.getDiscountType(), promotion.getDiscountValue(), promotion.getMinSubtotal(),
+                promotion.getMaxDiscount(), promotion.getStartsAt(), promotion.getEndsAt());
+    }
+
+    /**
+     * @param evaluation khuyến mãi đã áp dụng, dùng để ghi lượt dùng sau khi đơn được lưu
+     */
+    public record OrderPricing(BigDecimal subtotal, BigDecimal discountAmount, BigDecimal shippingFee,
+                               BigDecimal totalAmount, PromotionIndex.Evaluation evaluation) {
+    }
+}
@@ -0,0 +1,334 @@
+package com.example.back_end.service.search;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Chỉ mục đảo ngược trong bộ nhớ với xếp hạng BM25 theo trường có trọng số.
+ * An toàn đa luồng: tìm kiếm dùng read lock, cập nhật tài liệu dùng write lock.
+ */
+public class InvertedIndex {
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    // Số term tối đa khi mở rộng tiền tố cho từ cuối của truy vấn
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+    // Số term gần đúng tối đa cho mỗi từ khi tìm kiếm mờ
+    private static final int MAX_FUZZY_EXPANSIONS = 16;
+    // Hệ số điểm theo số lỗi chỉnh sửa: khớp gần đúng luôn xếp sau khớp chính xác tương đương
+    private static final double[] FUZZY_PENALTY = {1.0, 0.6, 0.35};
+
+    private final Map<String, Float> fieldWeights;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // term -> (docId -> tần suất có trọng số)
+    private final TreeMap<String, Map<Long, Float>> postings = new TreeMap<>();
+    private final Map<Long, Document> documents = new HashMap<>();
+    // bigram -> các term chứa bigram đó: chỉ mục ứng viên cho tìm kiếm mờ trên tập từ vựng
+    private final Map<String, Set<String>> termsByGram = new HashMap<>();
+    private double totalLength;
+
+    public InvertedIndex(Map<String, Float> fieldWeights) {
+        this.fieldWeights = Map.copyOf(fieldWeights);
+    }
+
+    public void put(long docId, Map<String, String> fields) {
+        Map<String, Float> termFrequencies = new HashMap<>();
+        float length = 0;
+        for (Map.Entry<String, String> field : fields.entrySet()) {
+            float weight = fieldWeights.getOrDefault(field.getKey(), 1.0f);
+            for (String term : TextNormalizer.tokenize(field.getValue())) {
+                termFrequencies.merge(term, weight, Float::sum);
+                length += weight;
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            removeInternal(docId);
+            for (Map.Entry<String, Float> entry : termFrequencies.entrySet()) {
+                postings.computeIfAbsent(entry.getKey(), this::addTerm).put(docId, entry.getValue());
+            }
+            documents.put(docId, new Document(termFrequencies.keySet().toArray(new String[0]), length));
+            totalLength += length;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long docId) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(docId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+            termsByGram.clear();
+            totalLength = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Tìm kiếm và trả về danh sách docId theo điểm giảm dần.
+     * Ưu tiên tài liệu chứa tất cả các từ (AND); nếu không có, trả về tài liệu chứa bất kỳ từ nào (OR).
+     * Từ cuối cùng được so khớp theo tiền tố để hỗ trợ từ gõ dở ("iph" -> "iphone").
+     */
+    public List<Long> search(String query) {
+        return search(query, false);
+    }
+
+    /**
+     * @param fuzzy true = mỗi từ còn khớp với các term cách nó 1-2 lỗi chỉnh sửa (Levenshtein),
+     *              ứng viên lấy từ chỉ mục bigram của từ vựng thay vì so sánh với toàn bộ từ vựng
+     */
+    public List<Long> search(String query, boolean fuzzy) {
+        List<String> tokens = TextNormalizer.tokenize(query);
+        if (tokens.isEmpty()) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            int docCount = documents.size();
+            if (docCount == 0) {
+                return List.of();
+            }
+            double avgLength = totalLength / docCount;
+
+            Map<Long, double[]> scores = new HashMap<>(); // [điểm, số từ khớp]
+            for (int i = 0; i < tokens.size(); i++) {
+                String token = tokens.get(i);
+                boolean prefix = i == tokens.size() - 1;
+                Map<Long, Double> tokenScores = new HashMap<>();
+                List<Map.Entry<String, Map<Long, Float>>> matched = matchingPostings(token, prefix);
+                // Term đã khớp trực tiếp (kể cả qua mở rộng tiền tố) giữ trọng số đầy đủ, không bị tính lại như lỗi gõ
+                Map<String, Integer> edits = fuzzy ? fuzzyTerms(token, termsOf(matched)) : Map.of();
+                for (Map.Entry<String, Integer> term : edits.entrySet()) {
+                    matched.add(Map.entry(term.getKey(), postings.get(term.getKey())));
+                }
+                for (Map.Entry<String, Map<Long, Float>> posting : matched) {
+                    Map<Long, Float> docs = posting.getValue();
+                    double idf = Math.log(1 + (docCount - docs.size() + 0.5) / (docs.size() + 0.5));
+                    double penalty = FUZZY_PENALTY[edits.getOrDefault(posting.getKey(), 0)];
+                    for (Map.Entry<Long, Float> doc : docs.entrySet()) {
+                        double tf = doc.getValue();
+                        double norm = K1 * (1 - B + B * documents.get(doc.getKey()).length / avgLength);
+                        double score = penalty * idf * (tf * (K1 + 1)) / (tf + norm);
+                        // Một từ trong truy vấn chỉ tính term khớp tốt nhất (tránh cộng dồn khi mở rộng tiền tố)
+                        tokenScores.merge(doc.getKey(), score, Math::max);
+                    }
+                }
+                for (Map.Entry<Long, Double> entry : tokenScores.entrySet()) {
+                    double[] acc = scores.computeIfAbsent(entry.getKey(), id -> new double[2]);
+                    acc[0] += entry.getValue();
+                    acc[1] += 1;
+                }
+            }
+
+            List<Map.Entry<Long, double[]>> ranked = new ArrayList<>();
+            for (Map.Entry<Long, double[]> entry : scores.entrySet()) {
+                if (entry.getValue()[1] == tokens.size()) {
+                    ranked.add(entry);
+                }
+            }
+            if (ranked.isEmpty()) {
+                ranked.addAll(scores.entrySet());
+            }
+            ranked.sort((a, b) -> {
+                int cmp = Double.compare(b.getValue()[0], a.getValue()[0]);
+                return cmp != 0 ? cmp : Long.compare(a.getKey(), b.getKey());
+            });
+
+            List<Long> ids = new ArrayList<>(ranked.size());
+            for (Map.Entry<Long, double[]> entry : ranked) {
+                ids.add(entry.getKey());
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<Map.Entry<String, Map<Long, Float>>> matchingPostings(String token, boolean prefix) {
+        if (!prefix) {
+            Map<Long, Float> docs = postings.get(token);
+            List<Map.Entry<String, Map<Long, Float>>> result = new ArrayList<>(1);
+            if (docs != null) {
+                result.add(Map.entry(token, docs));
+            }
+            return result;
+        }
+        NavigableMap<String, Map<Long, Float>> range = postings.subMap(token, true, token + Character.MAX_VALUE, false);
+        List<Map.Entry<String, Map<Long, Float>>> result = new ArrayList<>();
+        for (Map.Entry<String, Map<Long, Float>> entry : range.entrySet()) {
+            result.add(entry);
+            if (result.size() >= MAX_PREFIX_EXPANSIONS) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    private static Set<String> termsOf(List<Map.Entry<String, Map<Long, Float>>> postings) {
+        Set<String> terms = new HashSet<>();
+        for (Map.Entry<String, Map<Long, Float>> posting : postings) {
+            terms.add(posting.getKey());
+        }
+        return terms;
+    }
+
+    /**
+     * Các term trong từ vựng cách {@code token} không quá maxEdits(token) lỗi, không kể chính nó và các term
+     * trong {@code matched}.
+     * Mỗi lỗi chỉnh sửa phá hủy tối đa 2 bigram, nên term nào chung ít hơn (số bigram - 2k) bigram bị loại
+     * trước khi tính khoảng cách.
+     */
+    private Map<String, Integer> fuzzyTerms(String token, Set<String> matched) {
+        int maxEdits = maxEdits(token);
+        if (maxEdits == 0) {
+            return Map.of();
+        }
+        List<String> grams = bigrams(token);
+        Map<String, Integer> overlap = new HashMap<>();
+        for (String gram : grams) {
+            Set<String> terms = termsByGram.get(gram);
+            if (terms != null) {
+                for (String term : terms) {
+                    overlap.merge(term, 1, Integer::sum);
+                }
+            }
+        }
+
+        int minOverlap = grams.size() - 2 * maxEdits;
+        List<Map.Entry<String, Integer>> candidates = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : overlap.entrySet()) {
+            String term = entry.getKey();
+            if (entry.getValue() < minOverlap || term.equals(token) || matched.contains(term)
+                    || Math.abs(term.length() - token.length()) > maxEdits) {
+                continue;
+            }
+            int distance = boundedLevenshtein(token, term, maxEdits);
+            if (distance <= maxEdits) {
+                candidates.add(Map.entry(term, distance));
+            }
+        }
+        // Ưu tiên ít lỗi hơn, rồi term phổ biến hơn
+        candidates.sort((a, b) -> {
+            int cmp = Integer.compare(a.getValue(), b.getValue());
+            return cmp != 0 ? cmp : Integer.compare(postings.get(b.getKey()).size(), postings.get(a.getKey()).size());
+        });
+        Map<String, Integer> result = new HashMap<>();
+        for (Map.Entry<String, Integer> candidate : candidates) {
+            result.put(candidate.getKey(), candidate.getValue());
+            if (result.size() >= MAX_FUZZY_EXPANSIONS) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    // Từ ngắn dễ khớp nhầm: < 3 ký tự không sửa lỗi, 3-5 ký tự cho 1 lỗi, dài hơn cho 2 lỗi
+    private static int maxEdits(String token) {
+        int length = token.length();
+        return length < 3 ? 0 : length <= 5 ? 1 : 2;
+    }
+
+    // Bigram có đánh dấu đầu/cuối từ: "sam" -> "^s", "sa", "am", "m$"
+    private static List<String> bigrams(String term) {
+        String padded = "^" + term + "$";
+        List<String> grams = new ArrayList<>(padded.length() - 1);
+        for (int i = 0; i + 2 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 2));
+        }
+        return grams;
+    }
+
+    // Khoảng cách Levenshtein, dừng sớm và trả về max + 1 khi mọi ô trong một hàng đã vượt ngưỡng
+    static int boundedLevenshtein(String a, String b, int max) {
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+
+    private Map<Long, Float> addTerm(String term) {
+        for (String gram : bigrams(term)) {
+            termsByGram.computeIfAbsent(gram, g -> new HashSet<>()).add(term);
+        }
+        return new HashMap<>();
+    }
+
+    private void removeTerm(String term) {
+        for (String gram : bigrams(term)) {
+            Set<String> terms = termsByGram.get(gram);
+            if (terms != null) {
+                terms.remove(term);
+                if (terms.isEmpty()) {
+                    termsByGram.remove(gram);
+                }
+            }
+        }
+    }
+
+    private void removeInternal(long docId) {
+        Document existing = documents.remove(docId);
+        if (existing == null) {
+            return;
+        }
+        totalLength -= existing.length;
+        for (String term : existing.terms) {
+            Map<Long, Float> docs = postings.get(term);
+            if (docs != null) {
+                docs.remove(docId);
+                if (docs.isEmpty()) {
+                    postings.remove(term);
+                    removeTerm(term);
+                }
+            }
+        }
+    }
+
+    private record Document(String[] terms, float length) {
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.back_end.service.search;
+
+import com.example.back_end.dto.ProductSearchDocument;
+import com.example.back_end.event.ProductChangedEvent;
+import com.example.back_end.repositories.ProductRepository;
+import com.example.back_end.service.metrics.LatencyRecorder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Chỉ mục tìm kiếm sản phẩm trong bộ nhớ (tên, thương hiệu, model, mô tả ngắn, danh mục), chỉ gồm sản phẩm
+ * đang bán (active = true, như các endpoint danh sách). Được xây dựng khi ứng dụng khởi động và cập nhật từng sản phẩm qua {@link ProductChangedEvent}.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductSearchIndex {
+    private static final int BATCH_SIZE = 2000;
+    private static final Map<String, Float> FIELD_WEIGHTS = Map.of(
+            "name", 3.0f,
+            "brand", 2.0f,
+            "model", 2.0f,
+            "category", 1.5f,
+            "shortDescription", 1.0f
+    );
+    // Các trường có thể sắp xếp kết quả tìm kiếm ngay trong chỉ mục (ngoài độ liên quan)
+    public static final Set<String> SORT_FIELDS = Set.of("id", "name", "price");
+
+    private final ProductRepository productRepository;
+    private final InvertedIndex index = new InvertedIndex(FIELD_WEIGHTS);
+    private final Map<Long, SortKey> sortKeys = new ConcurrentHashMap<>();
+    private final LatencyRecorder fuzzyLatency = new LatencyRecorder();
+    private final LongAdder exactSearches = new LongAdder();
+    private volatile boolean ready;
+
+    // Chỉ chạy lượt tìm kiếm mờ khi tìm kiếm chính xác trả về ít hơn số kết quả này
+    @Value("${app.search.fuzzy.min-hits:5}")
+    private int fuzzyMinHits;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        try {
+            index.clear();
+            sortKeys.clear();
+            long lastId = 0;
+            List<ProductSearchDocument> batch;
+            do {
+                batch = productRepository.findSearchDocumentsAfter(lastId, PageRequest.of(0, BATCH_SIZE));
+                for (ProductSearchDocument document : batch) {
+                    put(document);
+                    lastId = document.getId();
+                }
+            } while (batch.size() == BATCH_SIZE);
+            ready = true;
+            log.info("Product search index built: {} products in {} ms", index.size(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            // Không chặn ứng dụng khởi động; tìm kiếm sẽ dùng truy vấn DB cho đến khi chỉ mục sẵn sàng
+            log.error("Failed to build product search index, falling back to database search", e);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.isStockOnly()) {
+            return; // tồn kho không được đánh chỉ mục
+        }
+        refresh(event.getProductIds());
+    }
+
+    public void refresh(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        Set<Long> missing = new HashSet<>(productIds);
+        for (ProductSearchDocument document : productRepository.findSearchDocumentsByIds(productIds)) {
+            put(document);
+            missing.remove(document.getId());
+        }
+        // Sản phẩm đã xóa hoặc ngừng bán bị gỡ khỏi chỉ mục
+        for (Long productId : missing) {
+            index.remove(productId);
+            sortKeys.remove(productId);
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * @return id sản phẩm theo thứ tự liên quan giảm dần; kết quả chính xác luôn đứng trước kết quả gần đúng
+     */
+    public List<Long> search(String keyword) {
+        exactSearches.increment();
+        List<Long> exact = index.search(keyword);
+        if (exact.size() >= fuzzyMinHits) {
+            return exact;
+        }
+
+        long start = System.nanoTime();
+        List<Long> fuzzy = index.search(keyword, true);
+        fuzzyLatency.record(System.nanoTime() - start);
+        if (fuzzy.isEmpty()) {
+            return exact;
+        }
+        Set<Long> merged = new LinkedHashSet<>(exact);
+        merged.addAll(fuzzy);
+        return new ArrayList<>(merged);
+    }
+
+    /**
+     * Sắp xếp kết quả tìm kiếm theo một trường trong {@link #SORT_FIELDS} bằng dữ liệu đã nạp trong chỉ mục,
+     * để chỉ id của trang cần hiển thị phải truy vấn DB. Giá trị thiếu xếp cuối; cùng giá trị thì theo id.
+     */
+    public List<Long> sort(List<Long> productIds, String field, boolean descending) {
+        Comparator<SortKey> byField = switch (field) {
+            case "id" -> Comparator.comparingLong(SortKey::id);
+            case "name" -> Comparator.comparing(SortKey::name, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER));
+            case "price" -> Comparator.comparing(SortKey::price, Comparator.nullsLast(Comparator.naturalOrder()));
+            default -> throw new IllegalArgumentException("Unsupported sort field: " + field);
+        };
+        if (descending) {
+            byField = byField.reversed();
+        }
+        Comparator<SortKey> comparator = byField.thenComparingLong(SortKey::id);
+
+        List<SortKey> keys = new ArrayList<>(productIds.size());
+        for (Long productId : productIds) {
+            SortKey key = sortKeys.get(productId);
+            keys.add(key != null ? key : new SortKey(productId, null, null));
+        }
+        keys.sort(comparator);
+        List<Long> sorted = new ArrayList<>(keys.size());
+        for (SortKey key : keys) {
+            sorted.add(key.id());
+        }
+        return sorted;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("ready", ready);
+        stats.put("documents", index.size());
+        stats.put("searches", exactSearches.sum());
+        stats.put("fuzzyMinHits", fuzzyMinHits);
+        stats.put("fuzzyPass", fuzzyLatency.getStats());
+        return stats;
+    }
+
+    private void put(ProductSearchDocument document) {
+        index.put(document.getId(), toFields(document));
+        sortKeys.put(document.getId(), new SortKey(document.getId(), document.getName(), document.getPrice()));
+    }
+
+    private static Map<String, String> toFields(ProductSearchDocument document) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put("name", document.getName());
+        fields.put("brand", document.getBrand());
+        fields.put("model", document.getModel());
+        fields.put("category", document.getCategoryName());
+        fields.put("shortDescription", document.getShortDescription());
+        return fields;
+    }
+
+    private record SortKey(long id, String name, BigDecimal price) {
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.back_end.service.search;
+
+import com.example.back_end.dto.ProductSearchDocument;
+import com.example.back_end.event.ProductChangedEvent;
+import com.example.back_end.repositories.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Gợi ý tự động hoàn thành theo tên sản phẩm, thương hiệu và danh mục, chỉ từ sản phẩm đang bán (active = true,
+ * cùng nguồn dữ liệu với chỉ mục tìm kiếm): số đếm của thương hiệu / danh mục cũng không tính sản phẩm ngừng bán.
+ * Giữ tên/thương hiệu/danh mục của từng sản phẩm trong bộ nhớ; khi có thay đổi, cây gợi ý được dựng lại
+ * theo lô (tối đa một lần mỗi chu kỳ) rồi thay thế nguyên khối để luồng đọc không bao giờ phải chờ.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductSuggestIndex {
+    public static final int MAX_RESULTS = 10;
+    private static final int BATCH_SIZE = 2000;
+    // Số từ đầu tiên của tên sản phẩm được dùng làm điểm bắt đầu khóa ("15 pro" -> "iPhone 15 Pro")
+    private static final int MAX_WORD_STARTS = 6;
+
+    private final ProductRepository productRepository;
+    private final Map<Long, Phrases> phrases = new ConcurrentHashMap<>();
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    private volatile SuggestionTrie trie = SuggestionTrie.EMPTY;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long start = System.currentTimeMillis();
+        try {
+            phrases.clear();
+            long lastId = 0;
+            List<ProductSearchDocument> batch;
+            do {
+                batch = productRepository.findSearchDocumentsAfter(lastId, PageRequest.of(0, BATCH_SIZE));
+                for (ProductSearchDocument document : batch) {
+                    phrases.put(document.getId(), Phrases.of(document));
+                    lastId = document.getId();
+                }
+            } while (batch.size() == BATCH_SIZE);
+            rebuild();
+            log.info("Product suggestion trie built: {} suggestions in {} ms", trie.size(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("Failed to build product suggestion trie", e);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.isStockOnly()) {
+            return;
+        }
+        refresh(event.getProductIds());
+    }
+
+    public void refresh(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        Set<Long> missing = new HashSet<>(productIds);
+        for (ProductSearchDocument document : productRepository.findSearchDocumentsByIds(productIds)) {
+            phrases.put(document.getId(), Phrases.of(document));
+            missing.remove(document.getId());
+        }
+        // Sản phẩm đã xóa hoặc ngừng bán không còn được gợi ý
+        missing.forEach(phrases::remove);
+        dirty.set(true);
+    }
+
+    // Gom các thay đổi lại, dựng lại cây tối đa một lần mỗi chu kỳ
+    @Scheduled(fixedDelayString = "${app.search.suggest.rebuild-interval-ms:5000}")
+    public void rebuildIfDirty() {
+        if (dirty.compareAndSet(true, false)) {
+            rebuild();
+        }
+    }
+
+    public List<SuggestionTrie.Suggestion> complete(String prefix, int limit) {
+        return trie.complete(prefix, limit);
+    }
+
+    private void rebuild() {
+        // Tên trùng nhau (sau chuẩn hóa) chỉ tạo một gợi ý, trỏ tới sản phẩm có id nhỏ nhất
+        Map<String, NameGroup> names = new HashMap<>();
+        Map<String, Long> brandCounts = new TreeMap<>();
+        Map<String, Long> categoryCounts = new TreeMap<>();
+        for (Map.Entry<Long, Phrases> entry : phrases.entrySet()) {
+            Phrases p = entry.getValue();
+            String key = TextNormalizer.normalizePhrase(p.name());
+            if (!key.isEmpty()) {
+                names.merge(key, new NameGroup(p.name(), entry.getKey(), 1), NameGroup::merge);
+            }
+            if (p.brand() != null && !p.brand().isBlank()) {
+                brandCounts.merge(p.brand().trim(), 1L, Long::sum);
+            }
+            if (p.category() != null && !p.category().isBlank()) {
+                categoryCounts.merge(p.category().trim(), 1L, Long::sum);
+            }
+        }
+
+        SuggestionTrie.Builder builder = new SuggestionTrie.Builder(MAX_RESULTS);
+        for (NameGroup group : names.values()) {
+            builder.add(new SuggestionTrie.Suggestion(group.name(), "product", group.productId()),
+                    group.count(), wordStarts(group.name()));
+        }
+        brandCounts.forEach((brand, count) ->
+                builder.add(new SuggestionTrie.Suggestion(brand, "brand", null), count, List.of(brand)));
+        categoryCounts.forEach((category, count) ->
+                builder.add(new SuggestionTrie.Suggestion(category, "category", null), count, List.of(category)));
+        trie = builder.build();
+    }
+
+    private static List<String> wordStarts(String name) {
+        List<String> words = TextNormalizer.tokenize(name);
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < Math.min(words.size(), MAX_WORD_STARTS); i++) {
+            keys.add(String.join(" ", words.subList(i, words.size())));
+        }
+        return keys;
+    }
+
+    private record Phrases(String name, String brand, String category) {
+        static Phrases of(ProductSearchDocument document) {
+            return new Phrases(document.getName(), document.getBrand(), document.getCategoryName());
+        }
+    }
+
+    private record NameGroup(String name, long productId, long count) {
+        NameGroup merge(NameGroup other) {
+            return productId <= other.productId
+                    ? new NameGroup(name, productId, count + other.count)
+                    : new NameGroup(other.name, other.productId, count + other.count);
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.example.back_end.service.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Cây tiền tố nén (radix trie) bất biến cho gợi ý tìm kiếm.
+ * Các gợi ý được đánh số theo thứ hạng (0 = tốt nhất), nên top-k của một nút chỉ là k chỉ số nhỏ nhất
+ * trong cây con; giá trị này được tính sẵn cho các nút có nhiều hơn k khóa, các nút nhỏ hơn được duyệt trực tiếp.
+ * Dữ liệu thay đổi bằng cách dựng cây mới rồi thay thế, nên đọc không cần khóa.
+ */
+public final class SuggestionTrie {
+    public static final SuggestionTrie EMPTY = new Builder(0).build();
+
+    private final Node root;
+    private final Suggestion[] suggestions;
+    private final int maxResults;
+
+    private SuggestionTrie(Node root, Suggestion[] suggestions, int maxResults) {
+        this.root = root;
+        this.suggestions = suggestions;
+        this.maxResults = maxResults;
+    }
+
+    public int size() {
+        return suggestions.length;
+    }
+
+    /**
+     * @param prefix văn bản người dùng đang gõ, so khớp không phân biệt dấu và hoa/thường
+     * @param limit  số gợi ý tối đa, được kẹp vào [1, maxResults]
+     */
+    public List<Suggestion> complete(String prefix, int limit) {
+        String key = TextNormalizer.normalizePhrase(prefix);
+        if (key.isEmpty() || root == null) {
+            return List.of();
+        }
+        // Giữ khoảng trắng cuối: "iphone " chỉ gợi ý các cụm có từ tiếp theo sau "iphone"
+        if (Character.isWhitespace(prefix.charAt(prefix.length() - 1))) {
+            key = key + " ";
+        }
+
+        Node node = root;
+        int pos = 0;
+        while (true) {
+            String label = node.label;
+            int n = Math.min(label.length(), key.length() - pos);
+            if (!label.regionMatches(0, key, pos, n)) {
+                return List.of();
+            }
+            pos += n;
+            if (pos == key.length()) {
+                break;
+            }
+            node = node.child(key.charAt(pos));
+            if (node == null) {
+                return List.of();
+            }
+        }
+
+        int[] ranks = node.top != null ? node.top : collect(node);
+        // limit ngoài khoảng [1, maxResults] (kể cả số âm từ tham số request) được kẹp lại
+        int count = Math.min(Math.max(1, Math.min(limit, maxResults)), ranks.length);
+        List<Suggestion> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(suggestions[ranks[i]]);
+        }
+        return result;
+    }
+
+    private int[] collect(Node node) {
+        List<Integer> ranks = new ArrayList<>();
+        gather(node, ranks);
+        return ranks.stream().distinct().sorted().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static void gather(Node node, List<Integer> out) {
+        for (int rank : node.terminals) {
+            out.add(rank);
+        }
+        for (Node child : node.children) {
+            gather(child, out);
+        }
+    }
+
+    /**
+     * @param text      chuỗi hiển thị
+     * @param type      loại gợi ý: product / brand / category
+     * @param productId id sản phẩm khi type = product, null với các loại khác
+     */
+    public record Suggestion(String text, String type, Long productId) {
+    }
+
+    private static final class Node {
+        private static final Node[] NO_CHILDREN = new Node[0];
+
+        final String label;
+        final int[] terminals;
+        final char[] childChars;
+        final Node[] children;
+        int[] top;
+
+        Node(String label, int[] terminals, char[] childChars, Node[] children) {
+            this.label = label;
+            this.terminals = terminals;
+            this.childChars = childChars;
+            this.children = children.length == 0 ? NO_CHILDREN : children;
+        }
+
+        Node child(char c) {
+            int i = Arrays.binarySearch(childChars, c);
+            return i >= 0 ? children[i] : null;
+        }
+    }
+
+    /**
+     * Thu thập các cụm từ (khóa, gợi ý, điểm) rồi dựng cây một lần.
+     */
+    public static final class Builder {
+        private final int maxResults;
+        private final List<Candidate> candidates = new ArrayList<>();
+        private final List<String[]> keys = new ArrayList<>();
+
+        public Builder(int maxResults) {
+            this.maxResults = maxResults;
+        }
+
+        /**
+         * @param keys các chuỗi dẫn tới gợi ý này (ví dụ tên đầy đủ và phần tên bắt đầu từ mỗi từ)
+         */
+        public Builder add(Suggestion suggestion, long score, List<String> keys) {
+            candidates.add(new Candidate(suggestion, score, candidates.size()));
+            this.keys.add(keys.toArray(new String[0]));
+            return this;
+        }
+
+        public SuggestionTrie build() {
+            // Thứ hạng: điểm cao trước, rồi chuỗi ngắn hơn, rồi theo bảng chữ cái
+            List<Candidate> ranked = new ArrayList<>(candidates);
+            ranked.sort(Comparator.comparingLong(Candidate::score).reversed()
+                    .thenComparingInt(c -> c.suggestion.text().length())
+                    .thenComparing(c -> c.suggestion.text()));
+            int[] rankOf = new int[candidates.size()];
+            Suggestion[] suggestions = new Suggestion[ranked.size()];
+            for (int rank = 0; rank < ranked.size(); rank++) {
+                rankOf[ranked.get(rank).order] = rank;
+                suggestions[rank] = ranked.get(rank).suggestion;
+            }
+
+            List<Entry> entries = new ArrayList<>();
+            for (int i = 0; i < keys.size(); i++) {
+                for (String raw : keys.get(i)) {
+                    String key = TextNormalizer.normalizePhrase(raw);
+                    if (!key.isEmpty()) {
+                        entries.add(new Entry(key, rankOf[i]));
+                    }
+                }
+            }
+            entries.sort(Comparator.comparing(Entry::key).thenComparingInt(Entry::rank));
+
+            Node root = entries.isEmpty() ? null : buildNode(entries, 0, entries.size(), 0);
+            return new SuggestionTrie(root, suggestions, maxResults);
+        }
+
+        // Các khóa trong [lo, hi) đã được sắp xếp và có chung tiền tố dài depth ký tự
+        private Node buildNode(List<Entry> entries, int lo, int hi, int depth) {
+            String first = entries.get(lo).key;
+            String last = entries.get(hi - 1).key;
+            int end = depth;
+            int max = Math.min(first.length(), last.length());
+            while (end < max && first.charAt(end) == last.charAt(end)) {
+                end++;
+            }
+
+            List<Integer> terminals = new ArrayList<>();
+            int i = lo;
+            while (i < hi && entries.get(i).key.length() == end) {
+                terminals.add(entries.get(i).rank);
+                i++;
+            }
+
+            List<Character> childChars = new ArrayList<>();
+            List<Node> children = new ArrayList<>();
+            while (i < hi) {
+                char c = entries.get(i).key.charAt(end);
+                int j = i;
+                while (j < hi && entries.get(j).key.charAt(end) == c) {
+                    j++;
+                }
+                childChars.add(c);
+                children.add(buildNode(entries, i, j, end));
+                i = j;
+            }
+
+            char[] chars = new char[childChars.size()];
+            for (int k = 0; k < chars.length; k++) {
+                chars[k] = childChars.get(k);
+            }
+            Node node = new Node(first.substring(depth, end),
+                    terminals.stream().mapToInt(Integer::intValue).toArray(),
+                    chars, children.toArray(new Node[0]));
+            if (hi - lo > maxResults) {
+                node.top = topRanks(node);
+            }
+            return node;
+        }
+
+        // Gộp top-k của các nút con (đã tính sẵn hoặc duyệt trực tiếp nếu nhỏ) với các khóa kết thúc tại nút
+        private int[] topRanks(Node node) {
+            List<Integer> ranks = new ArrayList<>();
+            for (int rank : node.terminals) {
+                ranks.add(rank);
+            }
+            for (Node child : node.children) {
+                if (child.top != null) {
+                    for (int rank : child.top) {
+                        ranks.add(rank);
+                    }
+                } else {
+                    gather(child, ranks);
+                }
+            }
+            return ranks.stream().distinct().sorted().limit(maxResults).mapToInt(Integer::intValue).toArray();
+        }
+
+        private record Candidate(Suggestion suggestion, long score, int order) {
+        }
+
+        private record Entry(String key, int rank) {
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.back_end.service.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Chuẩn hóa văn bản cho tìm kiếm: chữ thường, bỏ dấu tiếng Việt ("Điện thoại" -> "dien thoai"),
+ * tách từ theo ký tự không phải chữ/số.
+ */
+public final class TextNormalizer {
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private TextNormalizer() {}
+
+    public static String fold(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        String lower = text.toLowerCase(Locale.ROOT).replace('đ', 'd');
+        String decomposed = Normalizer.normalize(lower, Normalizer.Form.NFD);
+        return COMBINING_MARKS.matcher(decomposed).replaceAll("");
+    }
+
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        for (String token : NON_WORD.split(fold(text))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    // Dạng chuẩn của cả cụm từ: các từ đã chuẩn hóa nối bằng một khoảng trắng ("iPhone  15-Pro" -> "iphone 15 pro")
+    public static String normalizePhrase(String text) {
+        return String.join(" ", tokenize(text));
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.back_end.service.shipping;
+
+import java.math.BigDecimal;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bảng phí vận chuyển tính ở server (cùng bảng với calculateShippingFee ở frontend, API/Location.jsx):
+ * phí cơ bản theo phương thức giao hàng, nhân 0.8 cho các thành phố lớn và 1.5 cho các tỉnh xa.
+ * Phí do client gửi lên không được dùng để tính tiền.
+ */
+public final class ShippingFees {
+    public static final String STANDARD = "standard";
+
+    private static final Map<String, Long> BASE_FEES = Map.of(
+            STANDARD, 30_000L,
+            "express", 50_000L,
+            "economy", 20_000L);
+
+    private static final Set<String> MAJOR_CITIES = Set.of(
+            "Thành phố Hà Nội",
+            "Thành phố Hồ Chí Minh",
+            "Thành phố Đà Nẵng",
+            "Thành phố Hải Phòng",
+            "Thành phố Cần Thơ");
+
+    private static final Set<String> REMOTE_PROVINCES = Set.of(
+            "Tỉnh Cao Bằng",
+            "Tỉnh Hà Giang",
+            "Tỉnh Lai Châu",
+            "Tỉnh Lào Cai",
+            "Tỉnh Điện Biên",
+            "Tỉnh Sơn La",
+            "Tỉnh Yên Bái",
+            "Tỉnh Tuyên Quang",
+            "Tỉnh Bắc Kạn",
+            "Tỉnh Thái Nguyên",
+            "Tỉnh Lạng Sơn",
+            "Tỉnh Quảng Ninh",
+            "Tỉnh Bắc Giang",
+            "Tỉnh Phú Thọ",
+            "Tỉnh Vĩnh Phúc",
+            "Tỉnh Bắc Ninh",
+            "Tỉnh Hải Dương",
+            "Tỉnh Hưng Yên",
+            "Tỉnh Thái Bình",
+            "Tỉnh Hà Nam",
+            "Tỉnh Nam Định",
+            "Tỉnh Ninh Bình");
+
+    private ShippingFees() {
+    }
+
+    /**
+     * @param province       tên đầy đủ của tỉnh/thành phố (ví dụ "Thành phố Hà Nội"); null nếu không rõ
+     * @param shippingMethod standard / express / economy; null là standard
+     * @throws IllegalArgumentException nếu phương thức giao hàng không được hỗ trợ
+     */
+    public static BigDecimal fee(String province, String shippingMethod) {
+        String method = shippingMethod == null || shippingMethod.isBlank()
+                ? STANDARD : shippingMethod.trim().toLowerCase(Locale.ROOT);
+        Long base = BASE_FEES.get(method);
+        if (base == null) {
+            throw new IllegalArgumentException("Unsupported shipping method: " + shippingMethod);
+        }
+        String name = province != null ? province.trim() : "";
+        double multiplier = MAJOR_CITIES.contains(name) ? 0.8 : REMOTE_PROVINCES.contains(name) ? 1.5 : 1;
+        return BigDecimal.valueOf(Math.round(base * multiplier));
+    }
+
+    /**
+     * Phí của một đơn: tỉnh lấy từ trường province, nếu không có thì từ phần cuối của địa chỉ giao hàng
+     * (frontend ghép địa chỉ thành "số nhà, phường/xã, quận/huyện, tỉnh/thành phố").
+     */
+    public static BigDecimal forOrder(String province, String shippingAddress, String shippingMethod) {
+        return fee(province != null && !province.isBlank() ? province : provinceOf(shippingAddress), shippingMethod);
+    }
+
+    // Phần sau dấu phẩy cuối cùng của địa chỉ; null nếu địa chỉ trống
+    static String provinceOf(String shippingAddress) {
+        if (shippingAddress == null || shippingAddress.isBlank()) {
+            return null;
+        }
+        return shippingAddress.substring(shippingAddress.lastIndexOf(',') + 1).trim();
+    }
+}
@@ -0,0 +1,300 @@
+package com.example.back_end.service.stats;
+
+import com.example.back_end.constant.OrderStatus;
+import com.example.back_end.entity.Order;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Bảng tổng hợp thống kê đơn hàng theo (ngày đặt, trạng thái): order_daily_stats.
+ * - Được đăng ký làm entity listener của Order: mỗi lần đơn được tạo / đổi trạng thái / bị xóa sinh ra
+ *   một delta (+1 / -1 và tổng tiền) cho các ô tương ứng.
+ * - Delta của một transaction chỉ được ghi nhận khi transaction commit, gom trong bộ nhớ rồi định kỳ
+ *   cộng vào bảng bằng một batch upsert, nên luồng đặt hàng không tranh khóa trên các dòng tổng hợp.
+ * - Việc dựng lại toàn bộ từ bảng orders chạy định kỳ để đối chiếu, sửa các sai lệch (ví dụ delta chưa
+ *   kịp ghi khi ứng dụng dừng đột ngột). Ảnh chụp bảng orders và việc bỏ các delta đang chờ diễn ra khi không
+ *   còn transaction nào đang giữ delta chưa ghi nhận, nên mỗi thay đổi được tính đúng một lần: hoặc đã nằm
+ *   trong ảnh chụp, hoặc còn trong delta.
+ * Thống kê cho dashboard chỉ đọc bảng này (số dòng tỉ lệ với số ngày, không phụ thuộc số đơn).
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OrderStatisticsRollup {
+    private static final String UPSERT_SQL = "INSERT INTO order_daily_stats (stat_date, status, order_count, total_amount) " +
+            "VALUES (?, ?, ?, ?) ON DUPLICATE KEY UPDATE " +
+            "order_count = order_count + VALUES(order_count), total_amount = total_amount + VALUES(total_amount)";
+    private static final String INSERT_SQL = "INSERT INTO order_daily_stats (stat_date, status, order_count, total_amount) " +
+            "VALUES (?, ?, ?, ?)";
+    // Đọc nhất quán (không khóa dòng), nên không phải chờ các transaction đặt hàng đang mở
+    private static final String SNAPSHOT_SQL = "SELECT DATE(order_date), status, COUNT(*), COALESCE(SUM(total_amount), 0) " +
+            "FROM orders GROUP BY DATE(order_date), status";
+    private static final int RECENT_DAYS = 30;
+    // Thời gian tối đa chờ các transaction có delta kết thúc trước khi bỏ qua một lần dựng lại
+    private static final long REBUILD_LOCK_WAIT_MS = 30_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    // Lấy lười: bean này là entity listener, được tạo trong lúc dựng EntityManagerFactory
+    private final ObjectProvider<PlatformTransactionManager> transactionManager;
+
+    // Delta đã commit nhưng chưa cộng vào bảng
+    private final Map<Key, Delta> pending = new ConcurrentHashMap<>();
+    // Read: từ delta đầu tiên của một transaction đến khi transaction kết thúc (delta đã vào pending hoặc bị bỏ).
+    // Không lấy ở beforeCommit: Hibernate flush trong lúc commit, sau beforeCommit, nên delta có thể sinh ra muộn hơn.
+    // Write: lúc dựng lại chụp bảng orders và bỏ pending
+    private final ReadWriteLock commitLock = new ReentrantReadWriteLock();
+
+    @PostLoad
+    public void onLoaded(Order order) {
+        order.setPersistedStatus(order.getStatus());
+    }
+
+    @PostPersist
+    public void onCreated(Order order) {
+        record(order, order.getStatus(), 1);
+        order.setPersistedStatus(order.getStatus());
+    }
+
+    @PostUpdate
+    public void onUpdated(Order order) {
+        OrderStatus previous = order.getPersistedStatus();
+        if (previous != null && previous != order.getStatus()) {
+            record(order, previous, -1);
+            record(order, order.getStatus(), 1);
+        }
+        order.setPersistedStatus(order.getStatus());
+    }
+
+    @PostRemove
+    public void onRemoved(Order order) {
+        OrderStatus previous = order.getPersistedStatus() != null ? order.getPersistedStatus() : order.getStatus();
+        record(order, previous, -1);
+    }
+
+    @Scheduled(fixedDelayString = "${app.stats.order-rollup.flush-interval-ms:5000}")
+    public synchronized void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Map<Key, Delta> drained = new HashMap<>();
+        for (Key key : new ArrayList<>(pending.keySet())) {
+            Delta delta = pending.remove(key);
+            if (delta != null && !delta.isZero()) {
+                drained.put(key, delta);
+            }
+        }
+        if (drained.isEmpty()) {
+            return;
+        }
+        List<Object[]> args = new ArrayList<>(drained.size());
+        drained.forEach((key, delta) -> args.add(new Object[]{Date.valueOf(key.day()), key.status().name(), delta.count(), delta.amount()}));
+        try {
+            jdbcTemplate.batchUpdate(UPSERT_SQL, args);
+        } catch (Exception e) {
+            log.error("Failed to flush order statistics rollup, keeping {} deltas for the next run", drained.size(), e);
+            drained.forEach((key, delta) -> pending.merge(key, delta, Delta::plus));
+        }
+    }
+
+    /**
+     * Dựng lại bảng tổng hợp từ bảng orders, trong một transaction. Delta đang chờ lúc chụp bảng orders đã
+     * nằm trong ảnh chụp nên bị bỏ; delta của các transaction commit sau đó được giữ lại.
+     */
+    @Scheduled(cron = "${app.stats.order-rollup.rebuild-cron:0 30 3 * * *}")
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        Map<Key, Delta> covered = new HashMap<>();
+        try {
+            new TransactionTemplate(transactionManager.getObject()).executeWithoutResult(status -> {
+                List<Object[]> rows;
+                lockForRebuild();
+                try {
+                    rows = jdbcTemplate.query(SNAPSHOT_SQL, (rs, rowNum) -> new Object[]{
+                            rs.getDate(1), rs.getString(2), rs.getLong(3), rs.getBigDecimal(4)});
+                    covered.putAll(pending);
+                    pending.clear();
+                } finally {
+                    commitLock.writeLock().unlock();
+                }
+                jdbcTemplate.update("DELETE FROM order_daily_stats");
+                jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+            });
+        } catch (RuntimeException e) {
+            // Bảng cũ được giữ nguyên: trả lại các delta đã bỏ
+            covered.forEach((key, delta) -> pending.merge(key, delta, Delta::plus));
+            throw e;
+        }
+        log.info("Order statistics rollup rebuilt in {} ms", System.currentTimeMillis() - start);
+    }
+
+    // Thử khóa ghi không xếp hàng (tryLock): một writer đang chờ sẽ chặn các transaction mới lấy khóa đọc, trong khi
+    // transaction đang giữ khóa đọc có thể chờ khóa dòng của chính các transaction đó trong DB -> deadlock
+    private void lockForRebuild() {
+        long deadline = System.currentTimeMillis() + REBUILD_LOCK_WAIT_MS;
+        while (!commitLock.writeLock().tryLock()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new IllegalStateException("Order transactions kept the statistics rollup busy, rebuild skipped");
+            }
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting to rebuild order statistics", e);
+            }
+        }
+    }
+
+    // Lần chạy đầu tiên (bảng tổng hợp còn trống nhưng đã có đơn hàng): dựng từ dữ liệu hiện có
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        try {
+            Long rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM order_daily_stats", Long.class);
+            if (rows != null && rows == 0) {
+                rebuild();
+            }
+        } catch (Exception e) {
+            log.error("Failed to initialize order statistics rollup", e);
+        }
+    }
+
+    /**
+     * Ghi nhận một lần đổi trạng thái được thực hiện bằng câu UPDATE trực tiếp (không qua entity listener).
+     * Phải được gọi trong transaction thực hiện UPDATE đó.
+     */
+    public void recordTransition(LocalDateTime orderDate, BigDecimal totalAmount, OrderStatus from, OrderStatus to) {
+        record(orderDate, totalAmount, from, -1);
+        record(orderDate, totalAmount, to, 1);
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Long> ordersByStatus = new LinkedHashMap<>();
+        for (OrderStatus status : OrderStatus.values()) {
+            ordersByStatus.put(status.name(), 0L);
+        }
+        long[] totals = new long[2]; // tổng số đơn, số đơn gần đây
+        BigDecimal[] revenue = {BigDecimal.ZERO};
+        LocalDate recentFrom = LocalDate.now().minusDays(RECENT_DAYS);
+
+        jdbcTemplate.query("SELECT stat_date, status, order_count, total_amount FROM order_daily_stats", rs -> {
+            add(ordersByStatus, totals, revenue, recentFrom, rs.getDate(1).toLocalDate(),
+                    OrderStatus.valueOf(rs.getString(2)), rs.getLong(3), rs.getBigDecimal(4));
+        });
+        // Cộng thêm các delta đã commit nhưng chưa được ghi xuống bảng
+        pending.forEach((key, delta) -> add(ordersByStatus, totals, revenue, recentFrom,
+                key.day(), key.status(), delta.count(), delta.amount()));
+
+        Map<String, Object> statistics = new HashMap<>();
+        statistics.put("totalOrders", totals[0]);
+        statistics.put("ordersByStatus", ordersByStatus);
+        statistics.put("totalRevenue", revenue[0]);
+        statistics.put("recentOrders", totals[1]);
+        return statistics;
+    }
+
+    private static void add(Map<String, Long> ordersByStatus, long[] totals, BigDecimal[] revenue, LocalDate recentFrom,
+                            LocalDate day, OrderStatus status, long count, BigDecimal amount) {
+        ordersByStatus.merge(status.name(), count, Long::sum);
+        totals[0] += count;
+        if (!day.isBefore(recentFrom)) {
+            totals[1] += count;
+        }
+        // Doanh thu chỉ tính các đơn đã giao
+        if (status == OrderStatus.DELIVERED && amount != null) {
+            revenue[0] = revenue[0].add(amount);
+        }
+    }
+
+    private void record(Order order, OrderStatus status, int sign) {
+        record(order.getOrderDate(), order.getTotalAmount(), status, sign);
+    }
+
+    private void record(LocalDateTime orderDate, BigDecimal totalAmount, OrderStatus status, int sign) {
+        if (status == null) {
+            return;
+        }
+        if (orderDate == null) {
+            orderDate = LocalDateTime.now();
+        }
+        BigDecimal amount = totalAmount != null ? totalAmount : BigDecimal.ZERO;
+        Key key = new Key(orderDate.toLocalDate(), status);
+        Delta delta = new Delta(sign, sign < 0 ? amount.negate() : amount);
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            commitLock.readLock().lock();
+            try {
+                pending.merge(key, delta, Delta::plus);
+            } finally {
+                commitLock.readLock().unlock();
+            }
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        Map<Key, Delta> local = (Map<Key, Delta>) TransactionSynchronizationManager.getResource(this);
+        if (local == null) {
+            Map<Key, Delta> deltas = new HashMap<>();
+            // Giữ khóa đọc từ delta đầu tiên: mọi delta sau đó (kể cả sinh ra khi flush lúc commit) đều được bảo vệ
+            commitLock.readLock().lock();
+            try {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int completionStatus) {
+                        try {
+                            TransactionSynchronizationManager.unbindResourceIfPossible(OrderStatisticsRollup.this);
+                            if (completionStatus == STATUS_COMMITTED) {
+                                deltas.forEach((k, d) -> pending.merge(k, d, Delta::plus));
+                            }
+                        } finally {
+                            commitLock.readLock().unlock();
+                        }
+                    }
+                });
+            } catch (RuntimeException e) {
+                commitLock.readLock().unlock();
+                throw e;
+            }
+            TransactionSynchronizationManager.bindResource(this, deltas);
+            local = deltas;
+        }
+        local.merge(key, delta, Delta::plus);
+    }
+
+    private record Key(LocalDate day, OrderStatus status) {
+    }
+
+    private record Delta(long count, BigDecimal amount) {
+        Delta plus(Delta other) {
+            return new Delta(count + other.count, amount.add(other.amount));
+        }
+
+        boolean isZero() {
+            return count == 0 && amount.signum() == 0;
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package com.example.back_end.service.transition;
+
+import com.example.back_end.constant.OrderStatus;
+import com.example.back_end.constant.PaymentStatus;
+import com.example.back_end.entity.Order;
+import com.example.back_end.service.stats.OrderStatisticsRollup;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostUpdate;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tự động chuyển trạng thái đơn hàng theo hạn: PAID -> CONFIRMED, CONFIRMED -> PROCESSING.
+ * - Khi đơn vào một trạng thái có bước tự động (entity listener của Order), một dòng hạn được ghi vào
+ *   order_transition_schedule trong cùng transaction (mỗi đơn tối đa một dòng, index theo due_at).
+ * - Hạn gần (trong horizon của timing wheel) được giữ thêm trong bộ nhớ để xử lý đúng lúc mà không cần quét DB.
+ * - Việc quét DB chỉ đọc các dòng đã tới hạn theo index due_at, từng lô có giới hạn, nên chi phí không phụ
+ *   thuộc tổng số đơn hàng; nó bắt các hạn do node khác ghi, hạn xa và các hạn còn lại sau khi khởi động lại.
+ * - Chuyển trạng thái bằng UPDATE hàng loạt, có điều kiện trên trạng thái hiện tại, nên đơn đã bị đổi trạng
+ *   thái tay (hủy, xác nhận sớm...) không bị ghi đè.
+ */
+@Component
+@Slf4j
+public class OrderTransitionScheduler {
+    private static final String SCHEDULE_SQL = "INSERT INTO order_transition_schedule (order_id, from_status, to_status, due_at) " +
+            "VALUES (?, ?, ?, ?) ON DUPLICATE KEY UPDATE " +
+            // Đơn vẫn ở trạng thái cũ (chỉ sửa thông tin khác): giữ nguyên hạn đã hẹn
+            "due_at = IF(from_status = VALUES(from_status), due_at, VALUES(due_at)), " +
+            "to_status = VALUES(to_status), from_status = VALUES(from_status)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectProvider<PlatformTransactionManager> transactionManager;
+    private final ObjectProvider<OrderStatisticsRollup> statisticsRollup;
+
+    private final Map<OrderStatus, Rule> rules = new EnumMap<>(OrderStatus.class);
+    private final TimingWheel<Long> wheel;
+    private final int batchSize;
+    private final int maxBatchesPerPoll;
+    private final AtomicLong applied = new AtomicLong();
+
+    public OrderTransitionScheduler(JdbcTemplate jdbcTemplate,
+                                    ObjectProvider<PlatformTransactionManager> transactionManager,
+                                    ObjectProvider<OrderStatisticsRollup> statisticsRollup,
+                                    @Value("${app.order-transition.confirm-delay-minutes:10}") long confirmDelayMinutes,
+                                    @Value("${app.order-transition.process-delay-minutes:30}") long processDelayMinutes,
+                                    @Value("${app.order-transition.wheel-tick-ms:5000}") long wheelTickMs,
+                                    @Value("${app.order-transition.wheel-slots:512}") int wheelSlots,
+                                    @Value("${app.order-transition.batch-size:500}") int batchSize,
+                                    @Value("${app.order-transition.max-batches-per-poll:20}") int maxBatchesPerPoll) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionManager = transactionManager;
+        this.statisticsRollup = statisticsRollup;
+        this.wheel = new TimingWheel<>(wheelTickMs, wheelSlots, System.currentTimeMillis());
+        this.batchSize = batchSize;
+        this.maxBatchesPerPoll = maxBatchesPerPoll;
+        rules.put(OrderStatus.PAID, new Rule(OrderStatus.CONFIRMED, confirmDelayMinutes));
+        rules.put(OrderStatus.CONFIRMED, new Rule(OrderStatus.PROCESSING, processDelayMinutes));
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onOrderSaved(Order order) {
+        Rule rule = rules.get(order.getStatus());
+        if (rule == null || !eligible(order.getStatus(), order.getPaymentStatus())) {
+            return;
+        }
+        LocalDateTime dueAt = LocalDateTime.now().plusMinutes(rule.delayMinutes());
+        jdbcTemplate.update(SCHEDULE_SQL, order.getId(), order.getStatus().name(), rule.to().name(), Timestamp.valueOf(dueAt));
+
+        // Chỉ đưa vào timing wheel sau khi transaction commit (hạn đã nằm chắc chắn trong DB)
+        Long orderId = order.getId();
+        long deadline = Timestamp.valueOf(dueAt).getTime();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    wheel.add(orderId, deadline);
+                }
+            });
+        } else {
+            wheel.add(orderId, deadline);
+        }
+    }
+
+    // Hạn gần: lấy từ timing wheel, không truy vấn DB khi chưa có gì tới hạn
+    @Scheduled(fixedDelayString = "${app.order-transition.wheel-tick-ms:5000}")
+    public void fireWheel() {
+        List<Long> due = wheel.advance(System.currentTimeMillis());
+        for (int from = 0; from < due.size(); from += batchSize) {
+            applySafely(due.subList(from, Math.min(due.size(), from + batchSize)));
+        }
+    }
+
+    // Quét DB theo index due_at: chỉ các dòng đã tới hạn, tối đa maxBatchesPerPoll lô mỗi lần
+    @Scheduled(fixedDelayString = "${app.order-transition.poll-interval-ms:60000}")
+    public void pollDue() {
+        for (int batch = 0; batch < maxBatchesPerPoll; batch++) {
+            List<Long> due = jdbcTemplate.queryForList(
+                    "SELECT order_id FROM order_transition_schedule WHERE due_at <= ? ORDER BY due_at LIMIT ?",
+                    Long.class, Timestamp.valueOf(LocalDateTime.now()), batchSize);
+            if (due.isEmpty() || applySafely(due) < 0 || due.size() < batchSize) {
+                return;
+            }
+        }
+    }
+
+    // Lần chạy đầu tiên: tạo hạn cho các đơn đang chờ chuyển trạng thái từ trước khi có bảng hạn
+    @EventListener(ApplicationReadyEvent.class)
+    public void seedExistingOrders() {
+        try {
+            Long rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM order_transition_schedule", Long.class);
+            if (rows == null || rows > 0) {
+                return;
+            }
+            rules.forEach((from, rule) -> jdbcTemplate.update(
+                    "INSERT IGNORE INTO order_transition_schedule (order_id, from_status, to_status, due_at) " +
+                            "SELECT id, ?, ?, DATE_ADD(updated_at, INTERVAL ? MINUTE) FROM orders WHERE status = ?" +
+                            (from == OrderStatus.PAID ? " AND payment_status = 'PAID'" : ""),
+                    from.name(), rule.to().name(), rule.delayMinutes(), from.name()));
+        } catch (Exception e) {
+            log.error("Failed to seed order transition schedule", e);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("wheelPending", wheel.size());
+        stats.put("wheelHorizonMs", wheel.horizonMillis());
+        stats.put("applied", applied.get());
+        return stats;
+    }
+
+    private int applySafely(List<Long> orderIds) {
+        try {
+            return apply(orderIds);
+        } catch (Exception e) {
+            log.error("Failed to apply scheduled order transitions for {} orders", orderIds.size(), e);
+            return -1;
+        }
+    }
+
+    /**
+     * Áp dụng các hạn đã tới của các đơn cho trước, trong một transaction:
+     * khóa các dòng hạn, xóa chúng, rồi với mỗi loại chuyển trạng thái chạy một UPDATE hàng loạt.
+     */
+    private int apply(List<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return 0;
+        }
+        Integer count = new TransactionTemplate(transactionManager.getObject()).execute(status -> {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            String in = placeholders(orderIds.size());
+            List<Object> dueArgs = new ArrayList<>(orderIds);
+            dueArgs.add(now);
+
+            Map<Rule, List<Long>> byTransition = new LinkedHashMap<>();
+            Map<Rule, OrderStatus> fromOf = new LinkedHashMap<>();
+            jdbcTemplate.query("SELECT order_id, from_status FROM order_transition_schedule " +
+                    "WHERE order_id IN (" + in + ") AND due_at <= ? FOR UPDATE", rs -> {
+                OrderStatus from = OrderStatus.valueOf(rs.getString(2));
+                Rule rule = rules.get(from);
+                if (rule != null) {
+                    byTransition.computeIfAbsent(rule, r -> new ArrayList<>()).add(rs.getLong(1));
+                    fromOf.put(rule, from);
+                }
+            }, dueArgs.toArray());
+            if (byTransition.isEmpty()) {
+                return 0;
+            }
+            jdbcTemplate.update("DELETE FROM order_transition_schedule WHERE order_id IN (" + in + ") AND due_at <= ?",
+                    dueArgs.toArray());
+
+            int total = 0;
+            for (Map.Entry<Rule, List<Long>> entry : byTransition.entrySet()) {
+                total += transition(fromOf.get(entry.getKey()), entry.getKey().to(), entry.getValue(), now);
+            }
+            return total;
+        });
+        int result = count != null ? count : 0;
+        if (result > 0) {
+            applied.addAndGet(result);
+            log.info("Applied {} scheduled order status transitions", result);
+        }
+        return result;
+    }
+
+    private int transition(OrderStatus from, OrderStatus to, List<Long> orderIds, Timestamp now) {
+        String in = placeholders(orderIds.size());
+        List<Object> args = new ArrayList<>(orderIds);
+        args.add(from.name());
+
+        // Khóa và đọc các đơn vẫn còn ở trạng thái nguồn (đơn đã bị đổi trạng thái bằng tay được bỏ qua)
+        List<Object[]> rows = jdbcTemplate.query("SELECT id, order_date, total_amount FROM orders " +
+                        "WHERE id IN (" + in + ") AND status = ?" +
+                        (from == OrderStatus.PAID ? " AND payment_status = 'PAID'" : "") + " FOR UPDATE",
+                (rs, rowNum) -> new Object[]{rs.getLong(1), rs.getTimestamp(2), rs.getBigDecimal(3)},
+                args.toArray());
+        if (rows.isEmpty()) {
+            return 0;
+        }
+
+        List<Object> updateArgs = new ArrayList<>(rows.size() + 2);
+        updateArgs.add(to.name());
+        updateArgs.add(now);
+        rows.forEach(row -> updateArgs.add(row[0]));
+        jdbcTemplate.update("UPDATE orders SET status = ?, updated_at = ? WHERE id IN (" + placeholders(rows.size()) + ")",
+                updateArgs.toArray());
+
+        // UPDATE trực tiếp không qua Hibernate: báo cho bảng thống kê và hẹn bước tiếp theo (nếu có)
+        OrderStatisticsRollup rollup = statisticsRollup.getObject();
+        Rule next = rules.get(to);
+        List<Object[]> followUps = new ArrayList<>();
+        for (Object[] row : rows) {
+            Timestamp orderDate = (Timestamp) row[1];
+            rollup.recordTransition(orderDate.toLocalDateTime(), (BigDecimal) row[2], from, to);
+            if (next != null) {
+                followUps.add(new Object[]{row[0], to.name(), next.to().name(),
+                        Timestamp.valueOf(now.toLocalDateTime().plusMinutes(next.delayMinutes()))});
+            }
+        }
+        if (!followUps.isEmpty()) {
+            jdbcTemplate.batchUpdate(SCHEDULE_SQL, followUps);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    for (Object[] followUp : followUps) {
+                        wheel.add((Long) followUp[0], ((Timestamp) followUp[3]).getTime());
+                    }
+                }
+            });
+        }
+        return rows.size();
+    }
+
+    // Đơn PAID chỉ được tự xác nhận khi tiền đã thực sự về
+    private static boolean eligible(OrderStatus status, PaymentStatus paymentStatus) {
+        return status != OrderStatus.PAID || paymentStatus == PaymentStatus.PAID;
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    private record Rule(OrderStatus to, long delayMinutes) {
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.back_end.service.transition;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Timing wheel một tầng: mỗi ô giữ các phần tử hết hạn trong cùng một tick.
+ * Thêm và lấy phần tử hết hạn đều O(1) theo mỗi phần tử, không phụ thuộc số phần tử đang chờ.
+ * Chỉ nhận các hạn nằm trong một vòng bánh xe (horizon); hạn xa hơn do nơi gọi tự xử lý.
+ * Phần tử không bao giờ được trả về trước hạn của nó (hạn được làm tròn lên tick kế tiếp).
+ */
+public class TimingWheel<T> {
+    private final long tickMillis;
+    private final List<List<T>> slots;
+    private long currentTick;
+    private int size;
+
+    public TimingWheel(long tickMillis, int slotCount, long nowMillis) {
+        this.tickMillis = tickMillis;
+        this.slots = new ArrayList<>(slotCount);
+        for (int i = 0; i < slotCount; i++) {
+            slots.add(new ArrayList<>());
+        }
+        this.currentTick = nowMillis / tickMillis;
+    }
+
+    public long horizonMillis() {
+        return tickMillis * (slots.size() - 1);
+    }
+
+    /**
+     * @return false nếu hạn nằm ngoài horizon (phần tử không được thêm)
+     */
+    public synchronized boolean add(T item, long deadlineMillis) {
+        long tick = Math.max(Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis), currentTick + 1);
+        if (tick - currentTick >= slots.size()) {
+            return false;
+        }
+        slots.get((int) (tick % slots.size())).add(item);
+        size++;
+        return true;
+    }
+
+    /**
+     * Quay bánh xe tới thời điểm nowMillis và trả về các phần tử đã tới hạn.
+     */
+    public synchronized List<T> advance(long nowMillis) {
+        long target = nowMillis / tickMillis;
+        List<T> expired = new ArrayList<>();
+        // Bị trễ hơn một vòng (máy ngủ, GC dài...): mọi ô đều đã tới hạn
+        long steps = Math.min(target - currentTick, slots.size());
+        for (long i = 1; i <= steps; i++) {
+            List<T> slot = slots.get((int) ((currentTick + i) % slots.size()));
+            expired.addAll(slot);
+            slot.clear();
+        }
+        currentTick = Math.max(currentTick, target);
+        size -= expired.size();
+        return expired;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+}
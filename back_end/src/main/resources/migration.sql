@@ -13,4 +13,23 @@ ALTER TABLE orders MODIFY COLUMN tax_amount DECIMAL(15,2) DEFAULT 0;
 
 -- Update order_details table
 ALTER TABLE order_details MODIFY COLUMN price DECIMAL(15,2) NOT NULL;
-ALTER TABLE order_details MODIFY COLUMN subtotal DECIMAL(15,2) NOT NULL;
\ No newline at end of file
+ALTER TABLE order_details MODIFY COLUMN subtotal DECIMAL(15,2) NOT NULL;
+
+-- Composite indexes for keyset (cursor) pagination: (filter, sort key, id)
+ALTER TABLE products ADD INDEX idx_price_id (price, id);
+ALTER TABLE products ADD INDEX idx_name_id (name, id);
+ALTER TABLE products ADD INDEX idx_category_price_id (category_id, price, id);
+ALTER TABLE products ADD INDEX idx_category_name_id (category_id, name, id);
+ALTER TABLE orders ADD INDEX idx_user_order_date_id (user_id, order_date, id);
+ALTER TABLE orders ADD INDEX idx_user_total_id (user_id, total_amount, id);
+
+-- Flash sale flag
+ALTER TABLE products ADD COLUMN flash_sale BOOLEAN DEFAULT FALSE;
+
+-- Product snapshot on order lines (filled for old rows by OrderDetailSnapshotBackfill)
+ALTER TABLE order_details ADD COLUMN product_name VARCHAR(255);
+ALTER TABLE order_details ADD COLUMN product_brand VARCHAR(255);
+ALTER TABLE order_details ADD COLUMN product_model VARCHAR(255);
+ALTER TABLE order_details ADD COLUMN product_color VARCHAR(255);
+ALTER TABLE order_details ADD COLUMN product_material VARCHAR(255);
+ALTER TABLE order_details ADD COLUMN product_image VARCHAR(500);
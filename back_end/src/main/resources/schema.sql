@@ -68,12 +68,17 @@ CREATE TABLE IF NOT EXISTS products (
     features LONGTEXT,
     category_id BIGINT,
     active BOOLEAN NOT NULL DEFAULT TRUE,
+    flash_sale BOOLEAN DEFAULT FALSE,
     created_at DATETIME DEFAULT CURRENT_TIMESTAMP,
     updated_at DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
     FOREIGN KEY (category_id) REFERENCES categories(id),
     INDEX idx_category (category_id),
     INDEX idx_active (active),
     INDEX idx_price (price),
+    INDEX idx_price_id (price, id),
+    INDEX idx_name_id (name, id),
+    INDEX idx_category_price_id (category_id, price, id),
+    INDEX idx_category_name_id (category_id, name, id),
     FULLTEXT idx_search (name, description, brand)
 );
 
@@ -156,7 +161,9 @@ CREATE TABLE IF NOT EXISTS orders (
     INDEX idx_user (user_id),
     INDEX idx_status (status),
     INDEX idx_order_date (order_date),
-    INDEX idx_order_number (order_number)
+    INDEX idx_order_number (order_number),
+    INDEX idx_user_order_date_id (user_id, order_date, id),
+    INDEX idx_user_total_id (user_id, total_amount, id)
 );
 
 -- Tạo bảng order_details
@@ -167,6 +174,12 @@ CREATE TABLE IF NOT EXISTS order_details (
     quantity INT NOT NULL,
     price DECIMAL(10,2) NOT NULL,
     subtotal DECIMAL(10,2) NOT NULL,
+    product_name VARCHAR(255),
+    product_brand VARCHAR(255),
+    product_model VARCHAR(255),
+    product_color VARCHAR(255),
+    product_material VARCHAR(255),
+    product_image VARCHAR(500),
     FOREIGN KEY (order_id) REFERENCES orders(id),
     FOREIGN KEY (product_id) REFERENCES products(id)
 );
@@ -207,4 +220,95 @@ CREATE TABLE IF NOT EXISTS payments (
     INDEX idx_created_date (created_date),
     FOREIGN KEY (order_id) REFERENCES orders(id),
     FOREIGN KEY (user_id) REFERENCES users(id)
-); 
\ No newline at end of file
+); 
+-- Giữ hàng có thời hạn cho đơn thanh toán VNPay
+CREATE TABLE IF NOT EXISTS stock_reservations (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    order_id BIGINT NOT NULL UNIQUE,
+    status VARCHAR(20) NOT NULL,
+    expires_at DATETIME NOT NULL,
+    created_at DATETIME NOT NULL,
+    INDEX idx_reservation_status_expires (status, expires_at),
+    FOREIGN KEY (order_id) REFERENCES orders(id)
+);
+
+-- Bộ cấp id theo khối (pooled-lo) cho các bảng ghi nhiều; luôn bắt đầu sau id lớn nhất đang có
+CREATE TABLE IF NOT EXISTS id_generators (
+    sequence_name VARCHAR(64) NOT NULL PRIMARY KEY,
+    next_val BIGINT NOT NULL
+);
+
+INSERT INTO id_generators (sequence_name, next_val)
+SELECT 'order_details', COALESCE(MAX(id), 0) + 1 FROM order_details
+ON DUPLICATE KEY UPDATE next_val = GREATEST(next_val, VALUES(next_val));
+
+INSERT INTO id_generators (sequence_name, next_val)
+SELECT 'cart_items', COALESCE(MAX(id), 0) + 1 FROM cart_items
+ON DUPLICATE KEY UPDATE next_val = GREATEST(next_val, VALUES(next_val));
+
+INSERT INTO id_generators (sequence_name, next_val)
+SELECT 'wishlist_items', COALESCE(MAX(id), 0) + 1 FROM wishlist_items
+ON DUPLICATE KEY UPDATE next_val = GREATEST(next_val, VALUES(next_val));
+
+INSERT INTO id_generators (sequence_name, next_val)
+SELECT 'payments', COALESCE(MAX(id), 0) + 1 FROM payments
+ON DUPLICATE KEY UPDATE next_val = GREATEST(next_val, VALUES(next_val));
+
+-- Node id Snowflake cho mã đơn hàng: mỗi instance thuê một dòng và gia hạn định kỳ, dòng hết hạn được cấp lại
+CREATE TABLE IF NOT EXISTS node_id_leases (
+    node_id INT NOT NULL PRIMARY KEY,
+    owner VARCHAR(255) NOT NULL,
+    expires_at DATETIME(3) NOT NULL
+);
+
+-- Thống kê đơn hàng theo ngày đặt và trạng thái (cập nhật tăng dần, dựng lại định kỳ từ orders)
+CREATE TABLE IF NOT EXISTS order_daily_stats (
+    stat_date DATE NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    order_count BIGINT NOT NULL DEFAULT 0,
+    total_amount DECIMAL(19,2) NOT NULL DEFAULT 0,
+    PRIMARY KEY (stat_date, status)
+);
+
+-- Hạn chuyển trạng thái tự động của đơn hàng (mỗi đơn tối đa một dòng, quét theo due_at)
+CREATE TABLE IF NOT EXISTS order_transition_schedule (
+    order_id BIGINT NOT NULL PRIMARY KEY,
+    from_status VARCHAR(20) NOT NULL,
+    to_status VARCHAR(20) NOT NULL,
+    due_at DATETIME(6) NOT NULL,
+    INDEX idx_order_transition_due (due_at)
+);
+
+-- Khuyến mãi / mã giảm giá (code NULL: tự động áp dụng)
+CREATE TABLE IF NOT EXISTS promotions (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    name VARCHAR(255) NOT NULL,
+    code VARCHAR(50) UNIQUE,
+    scope VARCHAR(20) NOT NULL,
+    target_id BIGINT,
+    target_brand VARCHAR(255),
+    discount_type VARCHAR(20) NOT NULL,
+    discount_value DECIMAL(15,2) NOT NULL,
+    min_subtotal DECIMAL(15,2),
+    max_discount DECIMAL(15,2),
+    usage_limit INT,
+    starts_at DATETIME,
+    ends_at DATETIME,
+    active BOOLEAN NOT NULL DEFAULT TRUE,
+    created_at DATETIME DEFAULT CURRENT_TIMESTAMP,
+    updated_at DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    INDEX idx_promotion_active_ends (active, ends_at)
+);
+
+-- Lượt dùng khuyến mãi theo đơn hàng (chỉ INSERT khi đặt hàng, xóa khi đơn bị hủy)
+CREATE TABLE IF NOT EXISTS promotion_redemptions (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    promotion_id BIGINT NOT NULL,
+    order_id BIGINT NOT NULL,
+    discount_amount DECIMAL(15,2) NOT NULL,
+    created_at DATETIME(6) NOT NULL,
+    FOREIGN KEY (promotion_id) REFERENCES promotions(id),
+    FOREIGN KEY (order_id) REFERENCES orders(id),
+    INDEX idx_redemption_promotion (promotion_id),
+    INDEX idx_redemption_order (order_id)
+);
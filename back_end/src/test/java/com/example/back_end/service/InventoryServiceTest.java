@@ -0,0 +1,164 @@
+package com.example.back_end.service;
+
+import com.example.back_end.exception.AppException;
+import com.example.back_end.exception.ErrorCode;
+import com.example.back_end.repositories.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.when;
+
+/**
+ * JdbcTemplate giả lập câu UPDATE có điều kiện "stock = stock - ? WHERE id = ? AND stock >= ?" trên một bảng
+ * tồn kho trong bộ nhớ (mỗi dòng cập nhật nguyên tử như khóa dòng của DB), để kiểm tra InventoryService
+ * không bao giờ bán quá tồn kho.
+ */
+@ExtendWith(MockitoExtension.class)
+class InventoryServiceTest {
+    private static final String DECREMENT_SQL = "UPDATE products SET stock = stock - ? WHERE id = ? AND stock >= ?";
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private ProductRepository productRepository;
+
+    private final Map<Long, Integer> stock = new HashMap<>();
+    private final List<List<Long>> batches = new ArrayList<>();
+    private InventoryService inventoryService;
+
+    @BeforeEach
+    void setUp() {
+        inventoryService = new InventoryService(jdbcTemplate, productRepository);
+        lenient().when(productRepository.findById(anyLong())).thenReturn(Optional.empty());
+        lenient().when(jdbcTemplate.batchUpdate(eq(DECREMENT_SQL), anyList())).thenAnswer(invocation -> {
+            List<Object[]> args = invocation.getArgument(1);
+            List<Long> ids = new ArrayList<>();
+            int[] updated = new int[args.size()];
+            synchronized (stock) {
+                for (int i = 0; i < args.size(); i++) {
+                    int quantity = (Integer) args.get(i)[0];
+                    Long productId = (Long) args.get(i)[1];
+                    int guard = (Integer) args.get(i)[2];
+                    ids.add(productId);
+                    int current = stock.getOrDefault(productId, 0);
+                    if (current >= guard) {
+                        stock.put(productId, current - quantity);
+                        updated[i] = 1;
+                    }
+                }
+                batches.add(ids);
+            }
+            return updated;
+        });
+    }
+
+    @Test
+    void decrementsInAscendingIdOrder() {
+        stock.put(3L, 5);
+        stock.put(1L, 5);
+        stock.put(2L, 5);
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        quantities.put(3L, 1);
+        quantities.put(1L, 2);
+        quantities.put(2L, 3);
+
+        inventoryService.decrementStock(quantities);
+
+        assertEquals(List.of(List.of(1L, 2L, 3L)), batches);
+        assertEquals(3, stock.get(1L));
+        assertEquals(2, stock.get(2L));
+        assertEquals(4, stock.get(3L));
+    }
+
+    @Test
+    void rejectsWhenAnyLineIsShort() {
+        stock.put(1L, 5);
+        stock.put(2L, 1);
+
+        assertThrows(RuntimeException.class, () -> inventoryService.decrementStock(Map.of(1L, 2, 2L, 2)));
+        assertEquals(1, stock.get(2L));
+    }
+
+    @Test
+    void rejectsNonPositiveQuantities() {
+        stock.put(1L, 5);
+        stock.put(2L, 5);
+        Map<Long, Integer> withNull = new TreeMap<>();
+        withNull.put(1L, 1);
+        withNull.put(2L, null);
+
+        for (Map<Long, Integer> quantities : List.of(Map.of(1L, 1, 2L, -3), Map.of(1L, 0), withNull)) {
+            AppException decrement = assertThrows(AppException.class, () -> inventoryService.decrementStock(quantities));
+            assertEquals(ErrorCode.INVALID_QUANTITY, decrement.getErrorCode());
+            AppException increment = assertThrows(AppException.class, () -> inventoryService.incrementStock(quantities));
+            assertEquals(ErrorCode.INVALID_QUANTITY, increment.getErrorCode());
+        }
+        // Không câu UPDATE nào được gửi: tồn kho giữ nguyên
+        assertTrue(batches.isEmpty());
+        assertEquals(5, stock.get(1L));
+        assertEquals(5, stock.get(2L));
+    }
+
+    @Test
+    void concurrentOrdersNeverOversell() throws Exception {
+        int initial = 100;
+        stock.put(1L, initial);
+        AtomicInteger sold = new AtomicInteger();
+        int threads = 8;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 50; i++) {
+                        try {
+                            inventoryService.decrementStock(Map.of(1L, 3));
+                            sold.addAndGet(3);
+                        } catch (RuntimeException e) {
+                            // hết hàng: đơn bị từ chối
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertTrue(sold.get() <= initial, "oversold: " + sold.get());
+        assertTrue(stock.get(1L) >= 0, "negative stock: " + stock.get(1L));
+        assertEquals(initial, sold.get() + stock.get(1L));
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.back_end.service.cart;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CartAppendLogTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void setEntryRoundTrips() {
+        CartAppendLog.Entry entry = CartAppendLog.Entry.set(7, 42L, 1001L, 3);
+        assertEquals("S 7 42 1001 3;", entry.format());
+        assertEquals(entry, CartAppendLog.Entry.parse(entry.format()));
+    }
+
+    @Test
+    void removeAndClearEntriesRoundTrip() {
+        CartAppendLog.Entry remove = CartAppendLog.Entry.set(7, 42L, 1001L, 0);
+        assertEquals(remove, CartAppendLog.Entry.parse(remove.format()));
+
+        CartAppendLog.Entry clear = CartAppendLog.Entry.clear(7);
+        assertEquals("C 7;", clear.format());
+        CartAppendLog.Entry parsed = CartAppendLog.Entry.parse(clear.format());
+        assertEquals(clear, parsed);
+        assertTrue(parsed.isClear());
+    }
+
+    @Test
+    void tornOrCorruptLinesAreSkipped() {
+        // Thiếu ';' cuối: dòng bị cắt dở
+        assertNull(CartAppendLog.Entry.parse("S 7 42 1001 3"));
+        assertNull(CartAppendLog.Entry.parse("S 7 42 10"));
+        assertNull(CartAppendLog.Entry.parse(""));
+        assertNull(CartAppendLog.Entry.parse("S 7 42 x 3;"));
+        assertNull(CartAppendLog.Entry.parse("S 7 42;"));
+        assertNull(CartAppendLog.Entry.parse("X 7;"));
+    }
+
+    @Test
+    void replaysAppendedEntriesInOrderAcrossSegments() throws Exception {
+        CartAppendLog log = new CartAppendLog(directory, false);
+        log.append(List.of(CartAppendLog.Entry.set(1, 10L, 100L, 2), CartAppendLog.Entry.set(1, 11L, 101L, 1)));
+        log.seal();
+        log.append(List.of(CartAppendLog.Entry.clear(1)));
+        log.close();
+
+        List<CartAppendLog.Entry> replayed = new ArrayList<>();
+        new CartAppendLog(directory, false).replay(replayed::add);
+        assertEquals(List.of(CartAppendLog.Entry.set(1, 10L, 100L, 2), CartAppendLog.Entry.set(1, 11L, 101L, 1),
+                CartAppendLog.Entry.clear(1)), replayed);
+    }
+
+    @Test
+    void replaySkipsTornLastLine() throws Exception {
+        CartAppendLog log = new CartAppendLog(directory, false);
+        log.append(List.of(CartAppendLog.Entry.set(1, 10L, 100L, 2)));
+        log.close();
+        try (var files = Files.list(directory)) {
+            Path segment = files.findFirst().orElseThrow();
+            Files.write(segment, "S 1 11 101".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        }
+
+        List<CartAppendLog.Entry> replayed = new ArrayList<>();
+        new CartAppendLog(directory, false).replay(replayed::add);
+        assertEquals(List.of(CartAppendLog.Entry.set(1, 10L, 100L, 2)), replayed);
+    }
+
+    @Test
+    void deleteUpToKeepsLaterSegments() throws Exception {
+        CartAppendLog log = new CartAppendLog(directory, false);
+        log.append(List.of(CartAppendLog.Entry.set(1, 10L, 100L, 2)));
+        long sealed = log.seal();
+        log.append(List.of(CartAppendLog.Entry.set(2, 20L, 200L, 5)));
+
+        log.deleteUpTo(sealed);
+        log.close();
+
+        List<CartAppendLog.Entry> replayed = new ArrayList<>();
+        new CartAppendLog(directory, false).replay(replayed::add);
+        assertEquals(List.of(CartAppendLog.Entry.set(2, 20L, 200L, 5)), replayed);
+    }
+
+    @Test
+    void newLogContinuesSegmentNumbering() throws Exception {
+        CartAppendLog first = new CartAppendLog(directory, false);
+        first.append(List.of(CartAppendLog.Entry.set(1, 10L, 100L, 2)));
+        long firstSegment = first.seal();
+
+        CartAppendLog second = new CartAppendLog(directory, false);
+        second.append(List.of(CartAppendLog.Entry.set(1, 10L, 100L, 4)));
+        assertTrue(second.seal() > firstSegment);
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.back_end.service.cart;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GuestCartCodecTest {
+    private static final long NOW = 1_700_000_000L;
+    private static final long TTL = 3_600;
+
+    private final GuestCartCodec codec = new GuestCartCodec("test-key".getBytes(StandardCharsets.UTF_8), TTL, 3);
+
+    @Test
+    void roundTripKeepsLinesAndOrder() {
+        LinkedHashMap<Long, Integer> lines = new LinkedHashMap<>();
+        lines.put(42L, 2);
+        lines.put(7L, 1);
+        lines.put(Long.MAX_VALUE, Integer.MAX_VALUE);
+
+        LinkedHashMap<Long, Integer> decoded = codec.decode(codec.encode(lines, NOW), NOW);
+        assertEquals(lines, decoded);
+        assertEquals(List.of(42L, 7L, Long.MAX_VALUE), List.copyOf(decoded.keySet()));
+    }
+
+    @Test
+    void blankTokenIsEmptyCart() {
+        assertTrue(codec.decode(null, NOW).isEmpty());
+        assertTrue(codec.decode("", NOW).isEmpty());
+        assertTrue(codec.decode("   ", NOW).isEmpty());
+        assertTrue(codec.decode(codec.encode(Map.of(), NOW), NOW).isEmpty());
+    }
+
+    @Test
+    void rejectsTamperedToken() {
+        String token = codec.encode(Map.of(42L, 2), NOW);
+        byte[] raw = Base64.getUrlDecoder().decode(token);
+
+        // Sửa từng byte (cả phần nội dung lẫn tag) đều làm chữ ký sai
+        for (int i = 0; i < raw.length; i++) {
+            byte[] tampered = raw.clone();
+            tampered[i] ^= 0x01;
+            String forged = Base64.getUrlEncoder().withoutPadding().encodeToString(tampered);
+            assertThrows(IllegalArgumentException.class, () -> codec.decode(forged, NOW));
+        }
+    }
+
+    @Test
+    void rejectsTokenSignedWithAnotherKey() {
+        GuestCartCodec other = new GuestCartCodec("other-key".getBytes(StandardCharsets.UTF_8), TTL, 3);
+        String token = other.encode(Map.of(42L, 2), NOW);
+        assertThrows(IllegalArgumentException.class, () -> codec.decode(token, NOW));
+    }
+
+    @Test
+    void rejectsMalformedToken() {
+        assertThrows(IllegalArgumentException.class, () -> codec.decode("not base64!", NOW));
+        assertThrows(IllegalArgumentException.class, () -> codec.decode("AAAA", NOW));
+        String token = codec.encode(Map.of(42L, 2), NOW);
+        assertThrows(IllegalArgumentException.class, () -> codec.decode(token.substring(0, token.length() - 4), NOW));
+    }
+
+    @Test
+    void expiresAfterTtl() {
+        String token = codec.encode(Map.of(42L, 2), NOW);
+        assertEquals(Map.of(42L, 2), codec.decode(token, NOW + TTL));
+        assertThrows(IllegalArgumentException.class, () -> codec.decode(token, NOW + TTL + 1));
+    }
+
+    @Test
+    void enforcesMaxLines() {
+        Map<Long, Integer> full = Map.of(1L, 1, 2L, 1, 3L, 1);
+        assertEquals(full, codec.decode(codec.encode(full, NOW), NOW));
+
+        Map<Long, Integer> tooMany = Map.of(1L, 1, 2L, 1, 3L, 1, 4L, 1);
+        assertThrows(IllegalArgumentException.class, () -> codec.encode(tooMany, NOW));
+
+        // Token hợp lệ của một cấu hình cho phép nhiều dòng hơn vẫn bị từ chối
+        GuestCartCodec larger = new GuestCartCodec("test-key".getBytes(StandardCharsets.UTF_8), TTL, 10);
+        String token = larger.encode(tooMany, NOW);
+        assertThrows(IllegalArgumentException.class, () -> codec.decode(token, NOW));
+    }
+}
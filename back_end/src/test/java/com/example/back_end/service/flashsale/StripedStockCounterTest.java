@@ -0,0 +1,138 @@
+package com.example.back_end.service.flashsale;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StripedStockCounterTest {
+    private static final int THREADS = 16;
+
+    @Test
+    void splitsInitialStockAcrossStripes() {
+        StripedStockCounter counter = new StripedStockCounter(10, 4);
+        assertEquals(10, counter.available());
+
+        // 10 đơn vị chia cho 4 stripe: phải gom từ nhiều stripe mới đủ 10
+        assertTrue(counter.tryAcquire(10));
+        assertEquals(0, counter.available());
+        assertFalse(counter.tryAcquire(1));
+    }
+
+    @Test
+    void failedAcquireGivesBackPartialTakes() {
+        StripedStockCounter counter = new StripedStockCounter(5, 8);
+        assertFalse(counter.tryAcquire(6));
+        assertEquals(5, counter.available());
+    }
+
+    @Test
+    void rejectsNonPositiveQuantity() {
+        StripedStockCounter counter = new StripedStockCounter(5, 2);
+        assertFalse(counter.tryAcquire(0));
+        assertFalse(counter.tryAcquire(-1));
+        assertEquals(5, counter.available());
+    }
+
+    @Test
+    void negativeInitialStockMeansSoldOut() {
+        StripedStockCounter counter = new StripedStockCounter(-3, 4);
+        assertEquals(0, counter.available());
+        assertFalse(counter.tryAcquire(1));
+    }
+
+    @Test
+    void resetMovesAvailableToTarget() {
+        StripedStockCounter counter = new StripedStockCounter(10, 4);
+        assertTrue(counter.tryAcquire(3));
+
+        counter.reset(20);
+        assertEquals(20, counter.available());
+        counter.reset(2);
+        assertEquals(2, counter.available());
+        counter.reset(-5);
+        assertEquals(0, counter.available());
+        assertFalse(counter.tryAcquire(1));
+    }
+
+    @Test
+    void concurrentBuyersNeverOversell() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            long stock = 1_000 + round;
+            StripedStockCounter counter = new StripedStockCounter(stock, 8);
+            AtomicLong sold = new AtomicLong();
+
+            runConcurrently(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                int misses = 0;
+                while (misses < 50) {
+                    int quantity = 1 + random.nextInt(3);
+                    if (counter.tryAcquire(quantity)) {
+                        sold.addAndGet(quantity);
+                    } else {
+                        misses++;
+                    }
+                }
+            });
+
+            assertTrue(sold.get() <= stock, "oversold: " + sold.get() + " > " + stock);
+            assertEquals(stock, sold.get() + counter.available(), "units lost or created");
+        }
+    }
+
+    @Test
+    void concurrentAcquireAndReleaseKeepsTotal() throws Exception {
+        long stock = 200;
+        StripedStockCounter counter = new StripedStockCounter(stock, 4);
+        AtomicLong held = new AtomicLong();
+
+        runConcurrently(() -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < 20_000; i++) {
+                int quantity = 1 + random.nextInt(5);
+                if (counter.tryAcquire(quantity)) {
+                    long now = held.addAndGet(quantity);
+                    assertTrue(now <= stock, "held more than stock: " + now);
+                    // Giả lập đơn bị hủy / rollback: trả lại hàng
+                    held.addAndGet(-quantity);
+                    counter.release(quantity);
+                }
+            }
+        });
+
+        assertEquals(0, held.get());
+        assertEquals(stock, counter.available());
+    }
+
+    private static void runConcurrently(Runnable task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    task.run();
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
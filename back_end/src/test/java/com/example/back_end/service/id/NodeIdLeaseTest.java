@@ -0,0 +1,156 @@
+package com.example.back_end.service.id;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Bảng node_id_leases giả lập trong bộ nhớ (đồng hồ DB và đồng hồ đơn điệu của instance dùng chung một giá trị).
+ */
+class NodeIdLeaseTest {
+    private static final int TTL_SECONDS = 60;
+
+    private final AtomicLong nowMillis = new AtomicLong(1_000_000);
+    private final FakeLeaseTable table = new FakeLeaseTable(nowMillis);
+
+    @Test
+    void twoInstancesNeverLeaseTheSameNodeId() {
+        NodeIdLease first = lease("a");
+        NodeIdLease second = lease("b");
+
+        int firstId = first.acquire();
+        int secondId = second.acquire();
+
+        assertNotEquals(firstId, secondId);
+        assertEquals("a", table.owners.get(firstId));
+        assertEquals("b", table.owners.get(secondId));
+    }
+
+    @Test
+    void failsWhenEveryNodeIdIsLeased() {
+        for (int id = 0; id <= SnowflakeIdGenerator.MAX_NODE_ID; id++) {
+            table.put(id, "other", nowMillis.get() + 30_000);
+        }
+
+        assertThrows(IllegalStateException.class, () -> lease("a").acquire());
+    }
+
+    @Test
+    void expiredLeaseCanBeTakenOverAndOldOwnerStopsIssuing() {
+        for (int id = 0; id <= SnowflakeIdGenerator.MAX_NODE_ID; id++) {
+            table.put(id, "other", nowMillis.get() + 10 * TTL_SECONDS * 1000L);
+        }
+        NodeIdLease stale = lease("a");
+        table.owners.remove(7);
+        table.expiries.remove(7);
+        assertEquals(7, stale.acquire());
+
+        // "a" không gia hạn được quá TTL: tự rào và dòng bị "b" lấy lại
+        nowMillis.addAndGet(TTL_SECONDS * 1000L + 1);
+        assertFalse(stale.isValid());
+        NodeIdLease next = lease("b");
+        assertEquals(7, next.acquire());
+        assertTrue(next.isValid());
+
+        assertFalse(stale.renew());
+        assertEquals("b", table.owners.get(7));
+    }
+
+    @Test
+    void renewExtendsAndReleaseFreesTheRow() {
+        NodeIdLease lease = lease("a");
+        int nodeId = lease.acquire();
+
+        nowMillis.addAndGet(TTL_SECONDS * 1000L - 1);
+        assertTrue(lease.renew());
+        nowMillis.addAndGet(TTL_SECONDS * 1000L - 1);
+        assertTrue(lease.isValid());
+
+        lease.release();
+        assertFalse(lease.isValid());
+        assertFalse(table.owners.containsKey(nodeId));
+    }
+
+    private NodeIdLease lease(String owner) {
+        return new NodeIdLease(table, owner, TTL_SECONDS, () -> nowMillis.get() * 1_000_000L);
+    }
+
+    private static final class FakeLeaseTable extends JdbcTemplate {
+        private final AtomicLong nowMillis;
+        private final Map<Integer, String> owners = new HashMap<>();
+        private final Map<Integer, Long> expiries = new HashMap<>();
+
+        private FakeLeaseTable(AtomicLong nowMillis) {
+            this.nowMillis = nowMillis;
+        }
+
+        void put(int nodeId, String owner, long expiresAt) {
+            owners.put(nodeId, owner);
+            expiries.put(nodeId, expiresAt);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> List<T> queryForList(String sql, Class<T> elementType, Object... args) {
+            List<Object> rows = new ArrayList<>();
+            if (sql.startsWith("SELECT node_id")) {
+                expiries.forEach((id, expiresAt) -> {
+                    if (expiresAt >= nowMillis.get()) {
+                        rows.add(id);
+                    }
+                });
+            } else if (sql.startsWith("SELECT owner")) {
+                String owner = owners.get((Integer) args[0]);
+                if (owner != null) {
+                    rows.add(owner);
+                }
+            } else {
+                throw new UnsupportedOperationException(sql);
+            }
+            return (List<T>) rows;
+        }
+
+        @Override
+        public int update(String sql, Object... args) {
+            long now = nowMillis.get();
+            if (sql.startsWith("INSERT")) {
+                int nodeId = (Integer) args[0];
+                String owner = (String) args[1];
+                long expiresAt = now + (Integer) args[2] * 1000L;
+                if (!owners.containsKey(nodeId) || expiries.get(nodeId) < now || owners.get(nodeId).equals(owner)) {
+                    put(nodeId, owner, expiresAt);
+                }
+                return 1;
+            }
+            if (sql.startsWith("UPDATE")) {
+                int nodeId = (Integer) args[1];
+                if (!args[2].equals(owners.get(nodeId))) {
+                    return 0;
+                }
+                expiries.put(nodeId, now + (Integer) args[0] * 1000L);
+                return 1;
+            }
+            if (sql.startsWith("DELETE")) {
+                int nodeId = (Integer) args[0];
+                if (!args[1].equals(owners.get(nodeId))) {
+                    return 0;
+                }
+                owners.remove(nodeId);
+                expiries.remove(nodeId);
+                return 1;
+            }
+            throw new UnsupportedOperationException(sql);
+        }
+    }
+}
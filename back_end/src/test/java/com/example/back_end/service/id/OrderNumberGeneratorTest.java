@@ -0,0 +1,55 @@
+package com.example.back_end.service.id;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderNumberGeneratorTest {
+
+    @Test
+    void encodesToFixedLengthCrockfordBase32() {
+        assertEquals("0000000000000", OrderNumberGenerator.encode(0));
+        assertEquals("000000000000Z", OrderNumberGenerator.encode(31));
+        assertEquals("0000000000010", OrderNumberGenerator.encode(32));
+        // 13 ký tự x 5 bit = 65 bit: ký tự đầu chỉ mang 4 bit cao của id
+        assertEquals("7ZZZZZZZZZZZZ", OrderNumberGenerator.encode(Long.MAX_VALUE));
+        assertEquals("FZZZZZZZZZZZZ", OrderNumberGenerator.encode(-1L));
+    }
+
+    @Test
+    void decodeIsInverseOfEncode() {
+        long[] samples = {0, 1, 31, 32, 1_234_567_890_123L, Long.MAX_VALUE, -1L};
+        for (long id : samples) {
+            assertEquals(id, OrderNumberGenerator.decode(OrderNumberGenerator.encode(id)));
+        }
+        // Chấp nhận chữ thường
+        assertEquals(31, OrderNumberGenerator.decode("000000000000z"));
+    }
+
+    @Test
+    void decodeRejectsCharactersOutsideAlphabet() {
+        // Crockford bỏ I, L, O, U
+        assertThrows(IllegalArgumentException.class, () -> OrderNumberGenerator.decode("000000000000I"));
+        assertThrows(IllegalArgumentException.class, () -> OrderNumberGenerator.decode("ORD-0000000001"));
+    }
+
+    @Test
+    void stringOrderMatchesIdOrder() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(3);
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            ids.add(generator.nextId());
+        }
+        String previous = OrderNumberGenerator.encode(ids.get(0));
+        for (int i = 1; i < ids.size(); i++) {
+            String current = OrderNumberGenerator.encode(ids.get(i));
+            assertTrue(current.compareTo(previous) > 0, current + " <= " + previous);
+            previous = current;
+        }
+    }
+}
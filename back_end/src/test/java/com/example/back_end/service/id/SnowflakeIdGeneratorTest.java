@@ -0,0 +1,112 @@
+package com.example.back_end.service.id;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SnowflakeIdGeneratorTest {
+    private static final long NOW = SnowflakeIdGenerator.EPOCH + 1_000_000L;
+
+    @Test
+    void encodesTimestampAndNode() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(5, () -> NOW);
+        long id = generator.nextId();
+
+        assertEquals(NOW, SnowflakeIdGenerator.timestampOf(id));
+        assertEquals(5, (id >>> 12) & SnowflakeIdGenerator.MAX_NODE_ID);
+        assertEquals(0, id & 0xFFF);
+    }
+
+    @Test
+    void rejectsOutOfRangeNodeId() {
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(-1, () -> NOW));
+        assertThrows(IllegalArgumentException.class,
+                () -> new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_NODE_ID + 1, () -> NOW));
+    }
+
+    @Test
+    void idsIncreaseWithinTheSameMillisecond() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, () -> NOW);
+        long previous = generator.nextId();
+        for (int i = 0; i < 10_000; i++) {
+            long id = generator.nextId();
+            assertTrue(id > previous, "not increasing at " + i);
+            previous = id;
+        }
+        // 4096 số mỗi ms: 10 001 id đã "mượn" hai ms kế tiếp
+        assertEquals(NOW + 2, SnowflakeIdGenerator.timestampOf(previous));
+    }
+
+    @Test
+    void clockGoingBackwardsDoesNotRepeatIds() {
+        AtomicLong clock = new AtomicLong(NOW);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, clock::get);
+        long before = generator.nextId();
+
+        clock.set(NOW - 5_000);
+        long after = generator.nextId();
+
+        assertTrue(after > before);
+        assertEquals(NOW, SnowflakeIdGenerator.timestampOf(after));
+    }
+
+    @Test
+    void advancePastSkipsKnownTimestamps() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, () -> NOW);
+        generator.advancePast(NOW + 10);
+
+        assertEquals(NOW + 11, SnowflakeIdGenerator.timestampOf(generator.nextId()));
+    }
+
+    @Test
+    void differentNodesNeverCollide() {
+        SnowflakeIdGenerator first = new SnowflakeIdGenerator(1, () -> NOW);
+        SnowflakeIdGenerator second = new SnowflakeIdGenerator(2, () -> NOW);
+        Set<Long> ids = new HashSet<>();
+        for (int i = 0; i < 1_000; i++) {
+            assertTrue(ids.add(first.nextId()));
+            assertTrue(ids.add(second.nextId()));
+        }
+        assertNotEquals(first.nextId(), second.nextId());
+    }
+
+    @Test
+    void concurrentCallersGetUniqueIds() throws Exception {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(7);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        int threads = 8;
+        int perThread = 20_000;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        ids.add(generator.nextId());
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(threads * perThread, ids.size());
+    }
+}
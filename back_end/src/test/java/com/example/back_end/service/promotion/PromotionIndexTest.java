@@ -0,0 +1,151 @@
+package com.example.back_end.service.promotion;
+
+import com.example.back_end.constant.DiscountType;
+import com.example.back_end.constant.PromotionScope;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class PromotionIndexTest {
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 10, 18, 12, 0);
+
+    // Hai dòng: sản phẩm 1 (danh mục 10, Apple) 2 x 300, sản phẩm 2 (danh mục 20, Samsung) 1 x 400
+    private static final List<PromotionIndex.Line> LINES = List.of(
+            new PromotionIndex.Line(1, 10L, "Apple", new BigDecimal("300"), 2),
+            new PromotionIndex.Line(2, 20L, "Samsung", new BigDecimal("400"), 1));
+
+    @Test
+    void picksBestAutomaticRuleOnly() {
+        PromotionIndex index = PromotionIndex.compile(List.of(
+                rule(1, null, PromotionScope.CATEGORY, 10L, null, DiscountType.PERCENTAGE, "10", null, null),
+                rule(2, null, PromotionScope.BRAND, null, "samsung", DiscountType.FIXED_AMOUNT, "50", null, null),
+                rule(3, null, PromotionScope.ORDER, null, null, DiscountType.PERCENTAGE, "5", null, null)));
+
+        PromotionIndex.Evaluation evaluation = index.evaluate(LINES, null, NOW);
+
+        assertEquals(new BigDecimal("1000"), evaluation.subtotal());
+        // 10% của 600 = 60 > 50 (thương hiệu) > 50 (5% của 1000): khuyến mãi tự động không cộng dồn với nhau
+        assertEquals(1, evaluation.automatic().rule().id());
+        assertAmount("60.00", evaluation.discount());
+        assertEquals(PromotionIndex.CouponStatus.NONE, evaluation.couponStatus());
+        assertEquals(1, evaluation.applied().size());
+    }
+
+    @Test
+    void stacksOneCouponOnTopOfAutomaticRule() {
+        PromotionIndex index = PromotionIndex.compile(List.of(
+                rule(1, null, PromotionScope.CATEGORY, 10L, null, DiscountType.PERCENTAGE, "10", null, "50"),
+                rule(2, "SALE10", PromotionScope.ORDER, null, null, DiscountType.FIXED_AMOUNT, "55", null, null)));
+
+        PromotionIndex.Evaluation evaluation = index.evaluate(LINES, " sale10 ", NOW);
+
+        // 10% của 600 = 60, bị giới hạn còn 50; cộng mã 55
+        assertAmount("50", evaluation.automatic().amount());
+        assertAmount("55", evaluation.coupon().amount());
+        assertEquals(PromotionIndex.CouponStatus.APPLIED, evaluation.couponStatus());
+        assertAmount("105.00", evaluation.discount());
+        assertEquals(2, evaluation.applied().size());
+    }
+
+    @Test
+    void couponIsCappedAtRemainingSubtotal() {
+        PromotionIndex index = PromotionIndex.compile(List.of(
+                rule(1, null, PromotionScope.ORDER, null, null, DiscountType.FIXED_AMOUNT, "900", null, null),
+                rule(2, "BIG", PromotionScope.ORDER, null, null, DiscountType.FIXED_AMOUNT, "500", null, null)));
+
+        PromotionIndex.Evaluation evaluation = index.evaluate(LINES, "BIG", NOW);
+
+        assertAmount("100", evaluation.coupon().amount());
+        assertAmount("1000", evaluation.discount());
+    }
+
+    @Test
+    void percentageRoundsDownThenAppliesCaps() {
+        List<PromotionIndex.Line> lines = List.of(new PromotionIndex.Line(1, 10L, "Apple", new BigDecimal("33.33"), 1));
+
+        PromotionIndex rounded = PromotionIndex.compile(List.of(
+                rule(1, null, PromotionScope.PRODUCT, 1L, null, DiscountType.PERCENTAGE, "15", null, null)));
+        // 15% của 33.33 = 4.9995 -> 4.99
+        assertAmount("4.99", rounded.evaluate(lines, null, NOW).discount());
+
+        PromotionIndex capped = PromotionIndex.compile(List.of(
+                rule(1, null, PromotionScope.PRODUCT, 1L, null, DiscountType.PERCENTAGE, "15", null, "2")));
+        assertAmount("2", capped.evaluate(lines, null, NOW).discount());
+
+        PromotionIndex fixed = PromotionIndex.compile(List.of(
+                rule(1, null, PromotionScope.PRODUCT, 1L, null, DiscountType.FIXED_AMOUNT, "100", null, null)));
+        // Mức giảm cố định không vượt quá phần tiền hàng thuộc phạm vi
+        assertAmount("33.33", fixed.evaluate(lines, null, NOW).discount());
+    }
+
+    @Test
+    void minSubtotalAppliesToEligibleAmount() {
+        PromotionIndex index = PromotionIndex.compile(List.of(
+                rule(1, null, PromotionScope.CATEGORY, 20L, null, DiscountType.FIXED_AMOUNT, "40", "500", null)));
+
+        // Danh mục 20 chỉ có 400 trong giỏ, dù tổng đơn là 1000
+        PromotionIndex.Evaluation evaluation = index.evaluate(LINES, null, NOW);
+        assertNull(evaluation.automatic());
+        assertAmount("0", evaluation.discount());
+    }
+
+    @Test
+    void unknownOrInactiveCouponIsInvalid() {
+        PromotionIndex index = PromotionIndex.compile(List.of(
+                new PromotionIndex.Rule(1, "Old", "OLD", PromotionScope.ORDER, null, null, DiscountType.FIXED_AMOUNT,
+                        new BigDecimal("10"), null, null, NOW.minusDays(10), NOW.minusDays(1)),
+                new PromotionIndex.Rule(2, "Soon", "SOON", PromotionScope.ORDER, null, null, DiscountType.FIXED_AMOUNT,
+                        new BigDecimal("10"), null, null, NOW.plusDays(1), null)));
+
+        assertEquals(PromotionIndex.CouponStatus.INVALID, index.evaluate(LINES, "NOPE", NOW).couponStatus());
+        assertEquals(PromotionIndex.CouponStatus.INVALID, index.evaluate(LINES, "OLD", NOW).couponStatus());
+        assertEquals(PromotionIndex.CouponStatus.INVALID, index.evaluate(LINES, "SOON", NOW).couponStatus());
+        assertNull(index.evaluate(LINES, "OLD", NOW).coupon());
+    }
+
+    @Test
+    void couponWithNothingToDiscountIsNotApplicable() {
+        PromotionIndex index = PromotionIndex.compile(List.of(
+                rule(1, "SHOES", PromotionScope.CATEGORY, 99L, null, DiscountType.PERCENTAGE, "20", null, null),
+                rule(2, "MIN", PromotionScope.ORDER, null, null, DiscountType.FIXED_AMOUNT, "10", "5000", null)));
+
+        assertEquals(PromotionIndex.CouponStatus.NOT_APPLICABLE, index.evaluate(LINES, "SHOES", NOW).couponStatus());
+        assertEquals(PromotionIndex.CouponStatus.NOT_APPLICABLE, index.evaluate(LINES, "MIN", NOW).couponStatus());
+    }
+
+    @Test
+    void couponsAreNeverAppliedAutomatically() {
+        PromotionIndex index = PromotionIndex.compile(List.of(
+                rule(1, "SALE10", PromotionScope.ORDER, null, null, DiscountType.PERCENTAGE, "10", null, null)));
+
+        PromotionIndex.Evaluation evaluation = index.evaluate(LINES, null, NOW);
+        assertNull(evaluation.automatic());
+        assertNull(evaluation.coupon());
+        assertAmount("0", evaluation.discount());
+    }
+
+    @Test
+    void emptyIndexGivesNoDiscount() {
+        PromotionIndex.Evaluation evaluation = PromotionIndex.EMPTY.evaluate(LINES, null, NOW);
+        assertAmount("1000", evaluation.subtotal());
+        assertAmount("0", evaluation.discount());
+        assertEquals(0, PromotionIndex.EMPTY.size());
+    }
+
+    private static PromotionIndex.Rule rule(long id, String code, PromotionScope scope, Long targetId, String brand,
+                                            DiscountType type, String value, String minSubtotal, String maxDiscount) {
+        return new PromotionIndex.Rule(id, "rule-" + id, code, scope, targetId, brand, type, new BigDecimal(value),
+                minSubtotal != null ? new BigDecimal(minSubtotal) : null,
+                maxDiscount != null ? new BigDecimal(maxDiscount) : null, null, null);
+    }
+
+    // So sánh theo giá trị, không theo scale
+    private static void assertAmount(String expected, BigDecimal actual) {
+        assertEquals(0, new BigDecimal(expected).compareTo(actual), "expected " + expected + " but was " + actual);
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.back_end.service.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InvertedIndexTest {
+    private InvertedIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new InvertedIndex(Map.of("name", 3.0f, "brand", 2.0f, "shortDescription", 1.0f));
+        index.put(1, fields("Điện thoại iPhone 15 Pro", "Apple", "Chip A17"));
+        index.put(2, fields("Samsung Galaxy S24", "Samsung", "Màn hình AMOLED"));
+        index.put(3, fields("Ốp lưng iPhone", "Spigen", "Chống sốc"));
+        index.put(4, fields("Tai nghe AirPods", "Apple", "Dùng với iPhone"));
+    }
+
+    @Test
+    void foldsVietnameseAccents() {
+        assertEquals(List.of(1L), index.search("dien thoai"));
+        assertEquals(List.of(3L), index.search("op lung"));
+    }
+
+    @Test
+    void documentsMatchingAllTermsComeFirst() {
+        // Chỉ sản phẩm 1 có cả ba từ; không trả về sản phẩm chỉ khớp một phần
+        assertEquals(List.of(1L), index.search("iphone apple chip"));
+    }
+
+    @Test
+    void fallsBackToAnyTermWhenNoDocumentMatchesAll() {
+        List<Long> ids = index.search("galaxy airpods");
+        assertEquals(2, ids.size());
+        assertTrue(ids.containsAll(List.of(2L, 4L)));
+    }
+
+    @Test
+    void weightedFieldRanksHigher() {
+        // "iphone" trong tên (trọng số 3) xếp trước "iphone" trong mô tả (trọng số 1)
+        List<Long> ids = index.search("iphone");
+        assertEquals(3, ids.size());
+        assertEquals(4L, ids.get(2));
+    }
+
+    @Test
+    void lastTermMatchesAsPrefix() {
+        assertEquals(List.of(2L), index.search("gala"));
+        // Từ không đứng cuối phải khớp nguyên từ
+        assertEquals(List.of(4L), index.search("gala airpods"));
+    }
+
+    @Test
+    void fuzzySearchToleratesTypos() {
+        assertEquals(List.of(), index.search("galxay"));
+        assertEquals(List.of(2L), index.search("galxay", true));
+    }
+
+    @Test
+    void fuzzyDoesNotDowngradePrefixMatches() {
+        InvertedIndex phones = new InvertedIndex(Map.of("name", 1.0f, "brand", 1.0f, "shortDescription", 1.0f));
+        phones.put(1, fields("iPhone", "", ""));
+        phones.put(2, fields("iPhone", "", ""));
+        phones.put(3, fields("iPhoneSE cũ", "", ""));
+        phones.put(4, fields("iPhoneSE cũ", "", ""));
+        // "iphone" vừa là mở rộng tiền tố của "iphon" vừa cách 1 lỗi: phải giữ trọng số của khớp tiền tố
+        assertEquals(List.of(1L, 2L, 3L, 4L), phones.search("iphon"));
+        assertEquals(phones.search("iphon"), phones.search("iphon", true));
+    }
+
+    @Test
+    void putReplacesAndRemoveDeletesDocument() {
+        index.put(2, fields("Xiaomi 14", "Xiaomi", ""));
+        assertEquals(List.of(), index.search("galaxy"));
+        assertEquals(List.of(2L), index.search("xiaomi"));
+
+        index.remove(2);
+        assertEquals(List.of(), index.search("xiaomi"));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    void boundedLevenshteinStopsAtLimit() {
+        assertEquals(2, InvertedIndex.boundedLevenshtein("iphone", "iphoen", 2));
+        assertEquals(0, InvertedIndex.boundedLevenshtein("apple", "apple", 1));
+        assertEquals(2, InvertedIndex.boundedLevenshtein("abc", "xyz", 1));
+    }
+
+    private static Map<String, String> fields(String name, String brand, String description) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put("name", name);
+        fields.put("brand", brand);
+        fields.put("shortDescription", description);
+        return fields;
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.back_end.service.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SuggestionTrieTest {
+
+    @Test
+    void completesByPrefixIgnoringAccentsAndCase() {
+        SuggestionTrie trie = new SuggestionTrie.Builder(5)
+                .add(product("Điện thoại Samsung", 1L), 10, List.of("Điện thoại Samsung"))
+                .add(product("Đồng hồ thông minh", 2L), 5, List.of("Đồng hồ thông minh"))
+                .build();
+
+        assertEquals(List.of("Điện thoại Samsung"), texts(trie.complete("DIEN th", 5)));
+        assertEquals(List.of("Đồng hồ thông minh"), texts(trie.complete("dong", 5)));
+        assertEquals(List.of(), trie.complete("xyz", 5));
+        assertEquals(List.of(), trie.complete("  ", 5));
+    }
+
+    @Test
+    void resultsAreOrderedByScoreThenLength() {
+        SuggestionTrie trie = new SuggestionTrie.Builder(5)
+                .add(product("iPhone 15 Pro Max", 1L), 3, List.of("iPhone 15 Pro Max"))
+                .add(product("iPhone 15", 2L), 3, List.of("iPhone 15"))
+                .add(product("iPhone 13", 3L), 9, List.of("iPhone 13"))
+                .build();
+
+        assertEquals(List.of("iPhone 13", "iPhone 15", "iPhone 15 Pro Max"), texts(trie.complete("iph", 5)));
+    }
+
+    @Test
+    void trailingSpaceRequiresNextWord() {
+        SuggestionTrie trie = new SuggestionTrie.Builder(5)
+                .add(product("Sam", 1L), 1, List.of("Sam"))
+                .add(product("Samsung Galaxy", 2L), 1, List.of("Samsung Galaxy"))
+                .add(product("Sam sung", 3L), 1, List.of("Sam sung"))
+                .build();
+
+        assertEquals(List.of("Sam sung"), texts(trie.complete("sam ", 5)));
+    }
+
+    @Test
+    void precomputedTopKMatchesFullScan() {
+        // maxResults nhỏ để các nút lớn dùng top-k tính sẵn
+        SuggestionTrie.Builder builder = new SuggestionTrie.Builder(3);
+        for (int i = 0; i < 20; i++) {
+            builder.add(product("Laptop " + (char) ('a' + i), (long) i), i, List.of("Laptop " + (char) ('a' + i)));
+        }
+        SuggestionTrie trie = builder.build();
+
+        assertEquals(List.of("Laptop t", "Laptop s", "Laptop r"), texts(trie.complete("lap", 3)));
+        assertEquals(List.of("Laptop c"), texts(trie.complete("laptop c", 3)));
+    }
+
+    @Test
+    void limitIsClampedToRange() {
+        SuggestionTrie.Builder builder = new SuggestionTrie.Builder(4);
+        for (int i = 0; i < 10; i++) {
+            builder.add(product("Tai nghe " + i, (long) i), i, List.of("Tai nghe " + i));
+        }
+        SuggestionTrie trie = builder.build();
+
+        assertEquals(1, trie.complete("tai", -5).size());
+        assertEquals(1, trie.complete("tai", 0).size());
+        assertEquals(4, trie.complete("tai", 100).size());
+        assertEquals(2, trie.complete("tai", 2).size());
+    }
+
+    @Test
+    void emptyTrieReturnsNothing() {
+        assertTrue(SuggestionTrie.EMPTY.complete("abc", 5).isEmpty());
+        assertEquals(0, SuggestionTrie.EMPTY.size());
+    }
+
+    private static SuggestionTrie.Suggestion product(String text, Long productId) {
+        return new SuggestionTrie.Suggestion(text, "product", productId);
+    }
+
+    private static List<String> texts(List<SuggestionTrie.Suggestion> suggestions) {
+        return suggestions.stream().map(SuggestionTrie.Suggestion::text).toList();
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.back_end.service.shipping;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ShippingFeesTest {
+
+    @Test
+    void baseFeeByMethod() {
+        assertEquals(BigDecimal.valueOf(30_000), ShippingFees.fee("Tỉnh Đồng Nai", "standard"));
+        assertEquals(BigDecimal.valueOf(50_000), ShippingFees.fee("Tỉnh Đồng Nai", "express"));
+        assertEquals(BigDecimal.valueOf(20_000), ShippingFees.fee("Tỉnh Đồng Nai", "economy"));
+    }
+
+    @Test
+    void majorCitiesAndRemoteProvincesAdjustTheFee() {
+        assertEquals(BigDecimal.valueOf(24_000), ShippingFees.fee("Thành phố Hà Nội", "standard"));
+        assertEquals(BigDecimal.valueOf(40_000), ShippingFees.fee("Thành phố Hồ Chí Minh", "express"));
+        assertEquals(BigDecimal.valueOf(45_000), ShippingFees.fee("Tỉnh Hà Giang", "standard"));
+        assertEquals(BigDecimal.valueOf(30_000), ShippingFees.fee("Tỉnh Ninh Bình", "economy"));
+    }
+
+    @Test
+    void missingMethodIsStandardAndUnknownMethodIsRejected() {
+        assertEquals(BigDecimal.valueOf(24_000), ShippingFees.fee("Thành phố Đà Nẵng", null));
+        assertEquals(BigDecimal.valueOf(24_000), ShippingFees.fee("Thành phố Đà Nẵng", " "));
+        assertEquals(BigDecimal.valueOf(40_000), ShippingFees.fee("Thành phố Đà Nẵng", "Express"));
+        assertThrows(IllegalArgumentException.class, () -> ShippingFees.fee("Thành phố Đà Nẵng", "overnight"));
+    }
+
+    @Test
+    void provinceFallsBackToLastPartOfAddress() {
+        String address = "12 Lê Lợi, Phường Bến Nghé, Quận 1, Thành phố Hồ Chí Minh";
+        assertEquals("Thành phố Hồ Chí Minh", ShippingFees.provinceOf(address));
+        assertNull(ShippingFees.provinceOf(null));
+        assertNull(ShippingFees.provinceOf(""));
+
+        assertEquals(BigDecimal.valueOf(24_000), ShippingFees.forOrder(null, address, "standard"));
+        // Trường province được ưu tiên hơn địa chỉ
+        assertEquals(BigDecimal.valueOf(45_000), ShippingFees.forOrder("Tỉnh Lào Cai", address, "standard"));
+        // Không xác định được tỉnh: hệ số 1
+        assertEquals(BigDecimal.valueOf(30_000), ShippingFees.forOrder(null, "không rõ", null));
+        assertEquals(BigDecimal.valueOf(30_000), ShippingFees.forOrder(null, null, null));
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.back_end.service.transition;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimingWheelTest {
+
+    @Test
+    void neverReturnsItemBeforeItsDeadline() {
+        TimingWheel<String> wheel = new TimingWheel<>(100, 10, 1_000);
+        assertTrue(wheel.add("a", 1_250));
+
+        // Hạn 1250 làm tròn lên tick 13 (1300)
+        assertTrue(wheel.advance(1_200).isEmpty());
+        assertTrue(wheel.advance(1_299).isEmpty());
+        assertEquals(List.of("a"), wheel.advance(1_300));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void pastDeadlineFiresOnNextTick() {
+        TimingWheel<String> wheel = new TimingWheel<>(100, 10, 1_000);
+        assertTrue(wheel.add("late", 500));
+
+        assertTrue(wheel.advance(1_050).isEmpty());
+        assertEquals(List.of("late"), wheel.advance(1_100));
+    }
+
+    @Test
+    void rejectsDeadlineBeyondHorizon() {
+        TimingWheel<String> wheel = new TimingWheel<>(100, 10, 1_000);
+        assertEquals(900, wheel.horizonMillis());
+
+        assertTrue(wheel.add("edge", 1_000 + wheel.horizonMillis()));
+        assertFalse(wheel.add("far", 1_000 + wheel.horizonMillis() + 1));
+        assertEquals(1, wheel.size());
+    }
+
+    @Test
+    void returnsItemsInDeadlineOrderAcrossTicks() {
+        TimingWheel<Integer> wheel = new TimingWheel<>(10, 8, 0);
+        for (int i = 1; i <= 7; i++) {
+            assertTrue(wheel.add(i, i * 10L));
+        }
+
+        List<Integer> fired = new ArrayList<>();
+        for (long now = 10; now <= 70; now += 10) {
+            List<Integer> expired = wheel.advance(now);
+            assertEquals(1, expired.size());
+            fired.addAll(expired);
+        }
+        assertEquals(List.of(1, 2, 3, 4, 5, 6, 7), fired);
+    }
+
+    @Test
+    void slotsAreReusedAfterWrapAround() {
+        TimingWheel<String> wheel = new TimingWheel<>(10, 4, 0);
+        assertTrue(wheel.add("first", 20));
+        assertEquals(List.of("first"), wheel.advance(20));
+
+        // Tick 5 dùng lại ô của tick 1
+        assertTrue(wheel.add("second", 50));
+        assertTrue(wheel.advance(40).isEmpty());
+        assertEquals(List.of("second"), wheel.advance(50));
+    }
+
+    @Test
+    void longStallDrainsEveryPendingItem() {
+        TimingWheel<Integer> wheel = new TimingWheel<>(10, 5, 0);
+        for (int i = 1; i <= 4; i++) {
+            assertTrue(wheel.add(i, i * 10L));
+        }
+
+        // Trễ hơn một vòng bánh xe: mọi phần tử đều tới hạn, không phần tử nào bị bỏ sót
+        List<Integer> expired = wheel.advance(10_000);
+        expired.sort(null);
+        assertEquals(List.of(1, 2, 3, 4), expired);
+        assertEquals(0, wheel.size());
+
+        assertTrue(wheel.add(9, 10_010));
+        assertEquals(List.of(9), wheel.advance(10_010));
+    }
+}
@@ -50,7 +50,6 @@ const BuyNowPage = () => {
   const [isLoading, setIsLoading] = useState(false);
   const [showSuccess, setShowSuccess] = useState(false);
   const [userProfile, setUserProfile] = useState(null);
-  const [calculatedShippingFee, setCalculatedShippingFee] = useState(0);
 
   // Redirect if no product data
   useEffect(() => {
@@ -86,24 +85,12 @@ const BuyNowPage = () => {
   }, [user]);
 
   const shippingMethods = {
-    standard: { price: calculatedShippingFee || 30000, time: "3-5 ngày làm việc" },
-    express: { price: calculatedShippingFee ? Math.round(calculatedShippingFee * 1.67) : 50000, time: "1-2 ngày làm việc" },
-    economy: { price: calculatedShippingFee ? Math.round(calculatedShippingFee * 0.67) : 20000, time: "5-7 ngày làm việc" },
+    // Cùng bảng phí với server (ShippingFees): phí cơ bản của từng phương thức nhân hệ số theo tỉnh
+    standard: { price: calculateShippingFee(formData.province, "standard"), time: "3-5 ngày làm việc" },
+    express: { price: calculateShippingFee(formData.province, "express"), time: "1-2 ngày làm việc" },
+    economy: { price: calculateShippingFee(formData.province, "economy"), time: "5-7 ngày làm việc" },
   };
 
-  // Handle shipping fee calculation when location changes
-  const handleShippingFeeChange = (fee) => {
-    setCalculatedShippingFee(fee);
-  };
-
-  // Recalculate shipping fee when shipping method changes
-  useEffect(() => {
-    if (formData.province && formData.shippingMethod) {
-      const newFee = calculateShippingFee(formData.province, formData.shippingMethod);
-      setCalculatedShippingFee(newFee);
-    }
-  }, [formData.shippingMethod, formData.province]);
-
   const validateForm = () => {
     const newErrors = {};
     
@@ -317,7 +304,6 @@ const BuyNowPage = () => {
                   formData={formData}
                   setFormData={setFormData}
                   errors={errors}
-                  onShippingFeeChange={handleShippingFeeChange}
                 />
 
                 <div>
@@ -134,9 +134,10 @@ const CheckoutPage = () => {
   }
 
   const shippingMethods = {
-    standard: { name: t('checkout.standardShipping'), price: 30000, days: "3-5" },
-    express: { name: t('checkout.expressShipping'), price: 50000, days: "1-2" },
-    overnight: { name: t('checkout.overnightShipping'), price: 100000, days: "1" },
+    // Cùng bảng phí với server (ShippingFees): phí cơ bản của từng phương thức nhân hệ số theo tỉnh
+    standard: { name: t('checkout.standardShipping'), price: calculateShippingFee(formData.province, "standard"), days: "3-5" },
+    express: { name: t('checkout.expressShipping'), price: calculateShippingFee(formData.province, "express"), days: "1-2" },
+    economy: { name: t('checkout.economyShipping'), price: calculateShippingFee(formData.province, "economy"), days: "5-7" },
   };
 
   const paymentMethods = [
@@ -248,6 +249,8 @@ const CheckoutPage = () => {
             email: formData.email,
             customerName: formData.fullName,
             paymentMethod: formData.paymentMethod,
+            province: formData.province,
+            shippingMethod: formData.shippingMethod,
             shippingFee: shippingMethods[formData.shippingMethod]?.price || 0,
             discountAmount: 0,
             notes: formData.deliveryNotes
@@ -263,6 +266,8 @@ const CheckoutPage = () => {
             email: formData.email,
             customerName: formData.fullName,
             paymentMethod: formData.paymentMethod,
+            province: formData.province,
+            shippingMethod: formData.shippingMethod,
             shippingFee: shippingMethods[formData.shippingMethod]?.price || 0,
             discountAmount: 0,
             notes: formData.deliveryNotes
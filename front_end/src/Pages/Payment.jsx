@@ -128,25 +128,11 @@ const CheckoutPage = () => {
                      (Array.isArray(cart) && cart.length === 0) ||
                      cart.totalItems === 0);
 
-  const [calculatedShippingFee, setCalculatedShippingFee] = useState(0);
-
   const shippingMethods = {
-    standard: { price: calculatedShippingFee || 30000, time: "3-5 ngày làm việc" },
-    express: { price: calculatedShippingFee ? Math.round(calculatedShippingFee * 1.67) : 50000, time: "1-2 ngày làm việc" },
-    economy: { price: calculatedShippingFee ? Math.round(calculatedShippingFee * 0.67) : 20000, time: "5-7 ngày làm việc" },
-  };
-
-  // Recalculate shipping fee when shipping method changesAdd commentMore actions
-  useEffect(() => {
-    if (formData.province && formData.shippingMethod) {
-      const newFee = calculateShippingFee(formData.province, formData.shippingMethod);
-      setCalculatedShippingFee(newFee);
-    }
-  }, [formData.shippingMethod, formData.province]);
-
-  // Handle shipping fee calculation when location changes
-  const handleShippingFeeChange = (fee) => {
-    setCalculatedShippingFee(fee);
+    // Cùng bảng phí với server (ShippingFees): phí cơ bản của từng phương thức nhân hệ số theo tỉnh
+    standard: { price: calculateShippingFee(formData.province, "standard"), time: "3-5 ngày làm việc" },
+    express: { price: calculateShippingFee(formData.province, "express"), time: "1-2 ngày làm việc" },
+    economy: { price: calculateShippingFee(formData.province, "economy"), time: "5-7 ngày làm việc" },
   };
 
   const validateForm = () => {
@@ -229,6 +215,8 @@ const CheckoutPage = () => {
             email: formData.email,
             customerName: formData.fullName,
             paymentMethod: formData.paymentMethod,
+            province: formData.province,
+            shippingMethod: formData.shippingMethod,
             shippingFee: shippingMethods[formData.shippingMethod]?.price || 0,
             discountAmount: 0,
             notes: formData.deliveryNotes
@@ -246,6 +234,8 @@ const CheckoutPage = () => {
             email: formData.email,
             customerName: formData.fullName,
             paymentMethod: formData.paymentMethod,
+            province: formData.province,
+            shippingMethod: formData.shippingMethod,
             shippingFee: shippingMethods[formData.shippingMethod]?.price || 0,
             discountAmount: 0,
             notes: formData.deliveryNotes
@@ -452,7 +442,6 @@ const CheckoutPage = () => {
                       formData={formData}
                       setFormData={setFormData}
                       errors={errors}
-                      onShippingFeeChange={handleShippingFeeChange}
                   />
 
                   <div>